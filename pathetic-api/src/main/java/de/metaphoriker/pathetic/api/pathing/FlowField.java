@@ -0,0 +1,34 @@
+package de.metaphoriker.pathetic.api.pathing;
+
+import de.metaphoriker.pathetic.api.annotation.Experimental;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import java.util.Optional;
+
+/**
+ * The cheapest next step towards a fixed target for every block of a region around it. Unlike a
+ * path, which leads from a single start, a flow field serves any number of entities sharing the
+ * same target, each of which only looks up the step from the block it is standing on.
+ *
+ * <p>The field is computed on its first lookup, and the parts affected by chunks reported through
+ * {@link ChunkInvalidations} are recomputed on the lookup after. A flow field is not thread-safe,
+ * lookups have to be made one after another.
+ */
+@Experimental
+public interface FlowField {
+
+  /** Returns the target all steps of this field lead to. */
+  PathPosition getTarget();
+
+  /**
+   * Looks up the next block on the cheapest path from the given position to the target.
+   *
+   * @param position The current position of the entity.
+   * @return The next block to move to, the target itself if the position lies in the target block,
+   *     or an empty optional if the position lies outside the region or cannot reach the target.
+   */
+  Optional<PathPosition> nextStep(PathPosition position);
+
+  /** Releases the field and stops listening for chunk invalidations. */
+  void close();
+}
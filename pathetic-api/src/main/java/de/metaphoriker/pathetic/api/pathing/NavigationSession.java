@@ -0,0 +1,36 @@
+package de.metaphoriker.pathetic.api.pathing;
+
+import de.metaphoriker.pathetic.api.annotation.Experimental;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+
+/**
+ * A long-lived search towards a fixed target. Unlike {@link Pathfinder#findPath}, which starts
+ * every search from scratch, a session keeps its search between updates and only repairs the parts
+ * affected by a new start position or by chunks reported through {@link ChunkInvalidations}.
+ *
+ * <p>A session is meant for a single entity that repeatedly replans towards the same target. It is
+ * not thread-safe, updates have to be made one after another.
+ */
+@Experimental
+public interface NavigationSession {
+
+  /** Returns the target all paths of this session lead to. */
+  PathPosition getTarget();
+
+  /**
+   * Replans the path from the given start to the target on the calling thread.
+   *
+   * <p>If the iteration limit is reached, the result is {@link PathState#MAX_ITERATIONS_REACHED}
+   * and the next update continues the search where it stopped.
+   *
+   * @param start The current position of the entity.
+   * @return The {@link PathfinderResult} of the replanned path.
+   */
+  PathfinderResult update(PathPosition start);
+
+  /** Releases the search and stops listening for chunk invalidations. */
+  void close();
+}
@@ -0,0 +1,20 @@
+package de.metaphoriker.pathetic.api.pathing;
+
+/**
+ * The priority class of a path request. While searches wait for a free slot of the fair scheduler,
+ * every class receives a fixed share of the slots that become free, and higher classes receive the
+ * larger share. No class is starved, so background requests still make progress under load.
+ *
+ * @see PathRequestTag
+ */
+public enum PathPriority {
+
+  /** Requests a player waits for, like navigation they have triggered. */
+  INTERACTIVE,
+
+  /** Requests without particular urgency. */
+  NORMAL,
+
+  /** Requests nobody waits for, like the pathing of ambient mobs. */
+  BACKGROUND
+}
@@ -0,0 +1,53 @@
+package de.metaphoriker.pathetic.api.pathing;
+
+import java.util.Objects;
+
+/**
+ * Tells the fair scheduler who a path request comes from and how urgent it is. Requests of the same
+ * priority are served round-robin by owner, so an owner that floods the pathfinder with requests
+ * only delays its own ones.
+ *
+ * <p>The owner is compared by {@link Object#equals(Object)}, and is typically the plugin or a name
+ * for the feature the request belongs to.
+ */
+public final class PathRequestTag {
+
+  /** The tag of requests that do not specify one. */
+  public static final PathRequestTag DEFAULT = new PathRequestTag("default", PathPriority.NORMAL);
+
+  private final Object owner;
+  private final PathPriority priority;
+
+  private PathRequestTag(Object owner, PathPriority priority) {
+    this.owner = owner;
+    this.priority = priority;
+  }
+
+  public static PathRequestTag of(Object owner, PathPriority priority) {
+    return new PathRequestTag(
+        Objects.requireNonNull(owner, "owner"), Objects.requireNonNull(priority, "priority"));
+  }
+
+  public Object getOwner() {
+    return this.owner;
+  }
+
+  public PathPriority getPriority() {
+    return this.priority;
+  }
+
+  public boolean equals(final Object o) {
+    if (o == this) return true;
+    if (!(o instanceof PathRequestTag)) return false;
+    final PathRequestTag other = (PathRequestTag) o;
+    return this.priority == other.priority && this.owner.equals(other.owner);
+  }
+
+  public int hashCode() {
+    return Objects.hash(this.owner, this.priority);
+  }
+
+  public String toString() {
+    return "PathRequestTag(owner=" + this.getOwner() + ", priority=" + this.getPriority() + ")";
+  }
+}
@@ -1,12 +1,18 @@
 package de.metaphoriker.pathetic.api.pathing;
 
+import de.metaphoriker.pathetic.api.annotation.Experimental;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
 import de.metaphoriker.pathetic.api.pathing.hook.PathfinderHook;
 import de.metaphoriker.pathetic.api.pathing.result.PathState;
 import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -18,6 +24,10 @@ public interface Pathfinder {
   /**
    * Tries to find a Path between the two {@link PathPosition}'s provided with the given filters.
    *
+   * <p>Every request runs on its own, so one pathfinder can serve many requests at once. Cancelling
+   * the {@link java.util.concurrent.CompletableFuture} of the returned stage stops the search of
+   * this request only.
+   *
    * @param filters A list of {@link PathFilter}'s to apply to the pathfinding process.
    * @return An {@link CompletionStage} that will contain a {@link PathfinderResult}.
    */
@@ -50,10 +60,185 @@ public interface Pathfinder {
       List<PathFilterStage> filterStages);
 
   /**
-   * Aborts the running pathfinding process.
+   * Tries to find a Path between the two {@link PathPosition}'s provided with the given
+   * filter-containers, answering from the path cache where possible.
+   *
+   * <p>If the path cache is enabled in the configuration, the result of an earlier search with the
+   * same start block, target block and filter fingerprint is returned instead of searching again.
+   * The fingerprint stands in for the filters, which cannot be compared themselves, so queries
+   * with different filters have to use different fingerprints.
+   *
+   * <p>A request made while an equivalent one is still being searched shares that search instead
+   * of starting its own, and gets its result once it completes. The shared search is only
+   * cancelled once the stages of all requests sharing it are cancelled.
+   *
+   * @param start The start position of the path.
+   * @param target The target position of the path.
+   * @param sharedFilters A list of {@link PathFilter}'s, which will be applied to all stages.
+   * @param filterStages A list of {@link PathFilterStage}'s to apply to the pathfinding
+   * <p>Pathfinders without a path cache ignore the fingerprint and search every request on its own.
+   *
+   * @param filterFingerprint Identifies the filters, by {@link Object#equals(Object)}. If {@code
+   *     null}, the cache is skipped and the request never shares a search.
+   * @return An {@link CompletionStage} that will contain a {@link PathfinderResult}.
+   * @see #findPath(PathPosition, PathPosition, List, List)
+   */
+  @Experimental
+  default CompletionStage<PathfinderResult> findPath(
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages,
+      Object filterFingerprint) {
+    return findPath(start, target, sharedFilters, filterStages);
+  }
+
+  /**
+   * Tries to find a Path between the two {@link PathPosition}'s provided with the given
+   * filter-containers, on behalf of the owner and with the priority of the given tag.
+   *
+   * <p>Asynchronous requests are queued by the fair scheduler if it is enabled in the
+   * configuration, which starts them by their priority and, within a priority, round-robin by
+   * owner. Otherwise, the tag is only reported to {@link PathfinderHook#onSearchStarted}. Only
+   * requests of the same priority share a search, and a request that shares the search of an
+   * equivalent one is searched on behalf of the owner of that request. Pathfinders that do not
+   * schedule requests ignore the tag.
+   *
+   * @param start The start position of the path.
+   * @param target The target position of the path.
+   * @param sharedFilters A list of {@link PathFilter}'s, which will be applied to all stages.
+   * @param filterStages A list of {@link PathFilterStage}'s to apply to the pathfinding
+   * @param filterFingerprint Identifies the filters for the path cache, or {@code null}.
+   * @param requestTag The owner and priority of the request.
+   * @return An {@link CompletionStage} that will contain a {@link PathfinderResult}.
+   * @see #findPath(PathPosition, PathPosition, List, List, Object)
+   */
+  @Experimental
+  default CompletionStage<PathfinderResult> findPath(
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages,
+      Object filterFingerprint,
+      PathRequestTag requestTag) {
+    return findPath(start, target, sharedFilters, filterStages, filterFingerprint);
+  }
+
+  /**
+   * Tries to find a Path from the start to each of the given targets with the given filters.
+   *
+   * @see #findPaths(PathPosition, Collection, List, List)
+   */
+  @Experimental
+  default CompletionStage<Map<PathPosition, PathfinderResult>> findPaths(
+      PathPosition start, Collection<PathPosition> targets, List<PathFilter> filters) {
+    return findPaths(start, targets, filters, Collections.emptyList());
+  }
+
+  /**
+   * Tries to find a Path from the start to each of the given targets in a single search. Other than
+   * one {@link #findPath} per target, the search expands outwards from the start only once, and
+   * ends as soon as every target has been reached or the iteration limit is spent. Each target is
+   * reached on its cheapest path.
+   *
+   * <p>Since the search heads for no particular target, the start is handed to the filters as
+   * target.
+   *
+   * <p>Pathfinders without a search of their own for this start a {@link #findPath} per distinct
+   * target instead.
+   *
+   * @param start The start position of all paths.
+   * @param targets The target positions of the paths.
+   * @param sharedFilters A list of {@link PathFilter}'s, which will be applied to all stages.
+   * @param filterStages A list of {@link PathFilterStage}'s to apply to the pathfinding
+   * @return An {@link CompletionStage} that will contain a {@link PathfinderResult} per target, in
+   *     the order of the targets.
+   */
+  @Experimental
+  default CompletionStage<Map<PathPosition, PathfinderResult>> findPaths(
+      PathPosition start,
+      Collection<PathPosition> targets,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages) {
+    Map<PathPosition, CompletableFuture<PathfinderResult>> searches = new LinkedHashMap<>();
+    for (PathPosition target : targets)
+      searches.computeIfAbsent(
+          target, key -> findPath(start, key, sharedFilters, filterStages).toCompletableFuture());
+
+    return CompletableFuture.allOf(searches.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(
+            done -> {
+              Map<PathPosition, PathfinderResult> results = new LinkedHashMap<>();
+              searches.forEach((target, search) -> results.put(target, search.join()));
+              return results;
+            });
+  }
+
+  /**
+   * Opens a {@link NavigationSession} towards the given target, which keeps its search between
+   * updates instead of starting from scratch for every new start position.
+   *
+   * <p>The filters and filter stages are applied per position, with the position itself as parent
+   * and the target as start, since the start of a session changes with every update.
+   *
+   * @param target The target of every path of the session.
+   * @param sharedFilters A list of {@link PathFilter}'s, which will be applied to all stages.
+   * @param filterStages A list of {@link PathFilterStage}'s to apply to the pathfinding
+   * @return A new {@link NavigationSession}.
+   * @throws UnsupportedOperationException if the pathfinder does not support sessions
+   */
+  @Experimental
+  default NavigationSession openSession(
+      PathPosition target, List<PathFilter> sharedFilters, List<PathFilterStage> filterStages) {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " does not support navigation sessions");
+  }
+
+  /**
+   * Creates a {@link FlowField} towards the given target, which holds the next step towards it for
+   * every block within the given radius.
+   *
+   * <p>The filters and filter stages are applied per position, with the position itself as parent
+   * and the target as start.
+   *
+   * @param target The target every step of the field leads to.
+   * @param radius The distance on each axis the region of the field extends around the target. The
+   *     field takes about five bytes per block of the region.
+   * @param sharedFilters A list of {@link PathFilter}'s, which will be applied to all stages.
+   * @param filterStages A list of {@link PathFilterStage}'s to apply to the pathfinding
+   * @return A new {@link FlowField}.
+   * @throws UnsupportedOperationException if the pathfinder does not support flow fields
+   */
+  @Experimental
+  default FlowField createFlowField(
+      PathPosition target,
+      int radius,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages) {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " does not support flow fields");
+  }
+
+  /**
+   * Proceeds with the synchronous searches that are sliced by the tick budget of the configuration.
+   * Sliced searches only make progress through this method, so it has to be called once per server
+   * tick on the thread the searches are meant to run on. The searches run one after another until
+   * the budget of this call is used up, and the one that was interrupted continues on the next
+   * call. A search whose nodes all wait for navigation points to load moves behind the others, so
+   * it does not hold them up.
+   *
+   * <p>Does nothing if there are no sliced searches, which is always the case for pathfinders
+   * that do not slice their searches.
+   */
+  @Experimental
+  default void resumeSearches() {}
+
+  /**
+   * Aborts all running pathfinding processes of this pathfinder.
    *
-   * <p>In this context aborts means that the pathfinding process will be stopped and the result
-   * will be {@link PathState#ABORTED}.
+   * <p>In this context aborts means that the pathfinding processes will be stopped and their
+   * results will be {@link PathState#ABORTED}. Requests started afterwards are not affected. To
+   * stop a single request, cancel its future instead.
    */
   void abort();
 
@@ -0,0 +1,30 @@
+package de.metaphoriker.pathetic.api.pathing.configuration;
+
+/**
+ * The sets of neighbouring blocks a search may move to from a block. Fewer neighbours mean fewer
+ * filter checks per expanded node, but also fewer possible paths.
+ *
+ * <p>Moves that are diagonal in the horizontal plane never change the height at the same time, so
+ * the 8 corners of the cube around the block are never moved to, whatever the strategy.
+ */
+public enum NeighbourStrategy {
+
+  /** The 6 blocks sharing a face with the block, so only moves along a single axis. */
+  FACES,
+
+  /** The 18 blocks sharing a face or an edge with the block, leaving out the corners. */
+  FACES_AND_EDGES,
+
+  /**
+   * All blocks around the block that can be moved to. Without the corners of the cube, these are
+   * the same 18 blocks as {@link #FACES_AND_EDGES}.
+   */
+  ALL,
+
+  /**
+   * The 16 blocks a ground-bound walker can step to: the 8 blocks around it at the same height and
+   * the blocks one above and one below each of the 4 sharing a face with it. Straight moves up or
+   * down are left out.
+   */
+  WALKER
+}
@@ -0,0 +1,18 @@
+package de.metaphoriker.pathetic.api.pathing.configuration;
+
+/**
+ * The implementations available for the priority queue that holds the open nodes (the frontier) of
+ * a search. All of them support lowering the priority of a queued node when a cheaper route to it
+ * is found.
+ */
+public enum NodeQueueType {
+
+  /** A binary heap. Simple and a good fit for small searches. */
+  BINARY_HEAP,
+
+  /**
+   * A quaternary heap. Its tree is half as deep as the one of a binary heap and the children of a
+   * node lie next to each other in memory, which makes it faster for most searches.
+   */
+  QUATERNARY_HEAP
+}
@@ -2,6 +2,7 @@ package de.metaphoriker.pathetic.api.pathing.configuration;
 
 import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * Defines a set of configurable parameters that govern the behavior of the A* pathfinding
@@ -55,19 +56,219 @@ public class PathfinderConfiguration {
    */
   private final HeuristicWeights heuristicWeights;
 
+  /**
+   * The implementation of the priority queue holding the open nodes of a search. Every
+   * implementation supports lowering the priority of a queued node once a cheaper route to it is
+   * found.
+   *
+   * <p>Default: {@link NodeQueueType#QUATERNARY_HEAP}
+   */
+  private final NodeQueueType nodeQueueType;
+
+  /**
+   * Whether nodes that have already been expanded are reopened once a cheaper route to them is
+   * found. This keeps the path quality intact with heuristics that are not consistent, like the
+   * weighted heuristic built from {@link HeuristicWeights}. If the heuristic in use is consistent,
+   * a node is always reached on its cheapest route first and reopening can be disabled to save the
+   * bookkeeping.
+   *
+   * <p>Default: true
+   */
+  private final boolean reopenClosedNodes;
+
+  /**
+   * Whether the search runs from both ends at once. A forward search starts at the start and a
+   * backward search at the target, always expanding the smaller of both frontiers, and the path is
+   * joined where they meet. This keeps a single frontier from ballooning around an obstacle-heavy
+   * target on long routes.
+   *
+   * <p>The backward search hands its moves to the filters in the direction of travel, towards the
+   * target, so the filters see the same moves as in a unidirectional search. The searches go on
+   * after they first meet, until no path through a later meeting position can be cheaper than the
+   * cheapest one found.
+   *
+   * <p>Default: false
+   */
+  private final boolean bidirectional;
+
+  /**
+   * The wall-clock time in milliseconds an anytime search may spend on a single path. A value above
+   * 0 enables the anytime mode: the search first finds a path with the heuristic inflated by the
+   * anytime inflation, and then keeps lowering the inflation towards 1 and improving the path until
+   * the budget runs out. Every improved path is handed to the registered pathfinder hooks, and the
+   * best one found is the result. Since the budget only bounds the improvement, the first path is
+   * always searched to the end. A value of 0 disables the anytime mode.
+   *
+   * <p>The anytime mode takes precedence over a bidirectional search.
+   *
+   * <p>Default: 0
+   */
+  private final long anytimeBudgetMillis;
+
+  /**
+   * The factor the heuristic is inflated by for the first path of an anytime search. Higher values
+   * find the first path faster, and the cost of every path found is at most the inflation it was
+   * found with times the cost of the best path under the configured heuristic. Values below 1 are
+   * treated as 1.
+   *
+   * <p>Default: 3.0
+   */
+  private final double anytimeInflation;
+
+  /**
+   * The time in microseconds synchronous searches may run per call of {@code
+   * Pathfinder#resumeSearches()}. A value above 0 slices synchronous searches: instead of running
+   * on the calling thread right away, a search is queued and proceeded with on every call until it
+   * has finished, which completes its result. Calling the method once per server tick spreads long
+   * searches over several ticks instead of stalling a single one. Has no effect on asynchronous
+   * searches.
+   *
+   * <p>Default: 0
+   */
+  private final long tickBudgetMicros;
+
+  /**
+   * The number of nodes synchronous searches may expand per call of {@code
+   * Pathfinder#resumeSearches()}. A value above 0 slices synchronous searches just like the tick
+   * budget in microseconds, and if both are set, a slice ends with whichever is used up first.
+   *
+   * <p>Default: 0
+   */
+  private final int tickBudgetExpansions;
+
+  /**
+   * The number of results the path cache holds at most, evicting the least recently used one once
+   * it is full. A value above 0 enables the cache, which answers queries made with a filter
+   * fingerprint from earlier results with the same start block, target block and fingerprint.
+   *
+   * <p>Default: 0
+   */
+  private final int pathCacheSize;
+
+  /**
+   * The time in milliseconds the path cache keeps results of searches that did not find the target.
+   * Results that found it are kept until a chunk their path passes through is invalidated.
+   *
+   * <p>Default: 5000
+   */
+  private final long pathCacheFailureTtlMillis;
+
+  /**
+   * The set of neighbouring blocks the searches move to from a block. The jump point search always
+   * moves to all neighbours it can, since its pruning rules rely on them.
+   *
+   * <p>Default: {@link NeighbourStrategy#ALL}
+   */
+  private final NeighbourStrategy neighbourStrategy;
+
+  /**
+   * Whether the node stores and open lists of finished searches are kept per thread and reused by
+   * the next search on the same thread, instead of being allocated anew for every search. Their
+   * capacity follows the size of recent searches, and they are dropped once the thread has not
+   * searched for a minute.
+   *
+   * <p>This mostly pays off with many searches per second, where it keeps the allocation of the
+   * searches themselves close to zero.
+   *
+   * <p>Default: false
+   */
+  private final boolean reuseSearchMemory;
+
+  /**
+   * The executor asynchronous searches run on. If {@code null}, they run on a work-stealing pool
+   * that all pathfinders share.
+   *
+   * <p>Searches may block on chunk loads of the navigation point provider, so the executor should
+   * not be one that other tasks depend on, like the common pool. {@link PathfindingExecutors}
+   * creates bounded pools and, on Java 21 and newer, executors running every search on its own
+   * virtual thread. The executor is not shut down by the pathfinder.
+   *
+   * <p>Default: {@code null}
+   */
+  private final Executor executor;
+
+  /**
+   * The number of asynchronous searches the fair scheduler runs at once. Further requests wait in
+   * the scheduler, which starts them by the priority of their {@link
+   * de.metaphoriker.pathetic.api.pathing.PathRequestTag} and, within a priority, round-robin by
+   * owner. A value of 0 disables the scheduler, and requests go to the executor in the order they
+   * are made.
+   *
+   * <p>The waiting requests are not bounded, so the rejection policy of a bounded executor only
+   * applies to the searches the scheduler hands to it.
+   *
+   * <p>Default: 0
+   */
+  private final int maxConcurrentSearches;
+
+  /**
+   * The wall-clock time in nanoseconds a request may take, counted from the moment it is made, so
+   * the time it waits for a thread or for the next slice is included. A search that runs past the
+   * deadline stops and completes with {@code PathState#DEADLINE_EXCEEDED} and the partial path it
+   * has found so far, just like one that reaches the iteration limit. An anytime search that has
+   * already found a path returns that path instead. The clock is only read every few expansions,
+   * so a search may overrun the deadline by the time of those. A value of 0 disables the deadline.
+   *
+   * <p>Requests that share the search of an equivalent request share its deadline as well.
+   *
+   * <p>Default: 0
+   */
+  private final long requestDeadlineNanos;
+
+  /**
+   * The distance in blocks around every expanded node within which a search asks the provider to
+   * prefetch the chunks it is about to reach. Each chunk is asked for once per search, and the
+   * chunks a node brings within the distance are handed over in one batch, so the provider can load
+   * them in the background while the search keeps expanding nodes. A value of 0 disables
+   * prefetching.
+   *
+   * <p>Default: 0
+   */
+  private final int prefetchDistance;
+
   private PathfinderConfiguration(
       int maxIterations,
       int maxLength,
       boolean async,
       boolean fallback,
       NavigationPointProvider provider,
-      HeuristicWeights heuristicWeights) {
+      HeuristicWeights heuristicWeights,
+      NodeQueueType nodeQueueType,
+      boolean reopenClosedNodes,
+      boolean bidirectional,
+      long anytimeBudgetMillis,
+      double anytimeInflation,
+      long tickBudgetMicros,
+      int tickBudgetExpansions,
+      int pathCacheSize,
+      long pathCacheFailureTtlMillis,
+      NeighbourStrategy neighbourStrategy,
+      boolean reuseSearchMemory,
+      Executor executor,
+      int maxConcurrentSearches,
+      long requestDeadlineNanos,
+      int prefetchDistance) {
     this.maxIterations = maxIterations;
     this.maxLength = maxLength;
     this.async = async;
     this.fallback = fallback;
     this.provider = provider;
     this.heuristicWeights = heuristicWeights;
+    this.nodeQueueType = nodeQueueType;
+    this.reopenClosedNodes = reopenClosedNodes;
+    this.bidirectional = bidirectional;
+    this.anytimeBudgetMillis = anytimeBudgetMillis;
+    this.anytimeInflation = anytimeInflation;
+    this.tickBudgetMicros = tickBudgetMicros;
+    this.tickBudgetExpansions = tickBudgetExpansions;
+    this.pathCacheSize = pathCacheSize;
+    this.pathCacheFailureTtlMillis = pathCacheFailureTtlMillis;
+    this.neighbourStrategy = neighbourStrategy;
+    this.reuseSearchMemory = reuseSearchMemory;
+    this.executor = executor;
+    this.maxConcurrentSearches = maxConcurrentSearches;
+    this.requestDeadlineNanos = requestDeadlineNanos;
+    this.prefetchDistance = prefetchDistance;
   }
 
   /**
@@ -88,6 +289,21 @@ public class PathfinderConfiguration {
         .fallback(pathfinderConfiguration.fallback)
         .provider(pathfinderConfiguration.provider)
         .heuristicWeights(pathfinderConfiguration.heuristicWeights)
+        .nodeQueueType(pathfinderConfiguration.nodeQueueType)
+        .reopenClosedNodes(pathfinderConfiguration.reopenClosedNodes)
+        .bidirectional(pathfinderConfiguration.bidirectional)
+        .anytimeBudgetMillis(pathfinderConfiguration.anytimeBudgetMillis)
+        .anytimeInflation(pathfinderConfiguration.anytimeInflation)
+        .tickBudgetMicros(pathfinderConfiguration.tickBudgetMicros)
+        .tickBudgetExpansions(pathfinderConfiguration.tickBudgetExpansions)
+        .pathCacheSize(pathfinderConfiguration.pathCacheSize)
+        .pathCacheFailureTtlMillis(pathfinderConfiguration.pathCacheFailureTtlMillis)
+        .neighbourStrategy(pathfinderConfiguration.neighbourStrategy)
+        .reuseSearchMemory(pathfinderConfiguration.reuseSearchMemory)
+        .executor(pathfinderConfiguration.executor)
+        .maxConcurrentSearches(pathfinderConfiguration.maxConcurrentSearches)
+        .requestDeadlineNanos(pathfinderConfiguration.requestDeadlineNanos)
+        .prefetchDistance(pathfinderConfiguration.prefetchDistance)
         .build();
   }
 
@@ -119,6 +335,66 @@ public class PathfinderConfiguration {
     return this.heuristicWeights;
   }
 
+  public NodeQueueType getNodeQueueType() {
+    return this.nodeQueueType;
+  }
+
+  public boolean isReopenClosedNodes() {
+    return this.reopenClosedNodes;
+  }
+
+  public boolean isBidirectional() {
+    return this.bidirectional;
+  }
+
+  public long getAnytimeBudgetMillis() {
+    return this.anytimeBudgetMillis;
+  }
+
+  public double getAnytimeInflation() {
+    return this.anytimeInflation;
+  }
+
+  public long getTickBudgetMicros() {
+    return this.tickBudgetMicros;
+  }
+
+  public int getTickBudgetExpansions() {
+    return this.tickBudgetExpansions;
+  }
+
+  public int getPathCacheSize() {
+    return this.pathCacheSize;
+  }
+
+  public long getPathCacheFailureTtlMillis() {
+    return this.pathCacheFailureTtlMillis;
+  }
+
+  public NeighbourStrategy getNeighbourStrategy() {
+    return this.neighbourStrategy;
+  }
+
+  public boolean isReuseSearchMemory() {
+    return this.reuseSearchMemory;
+  }
+
+  public Executor getExecutor() {
+    return this.executor;
+  }
+
+  public int getMaxConcurrentSearches() {
+    return this.maxConcurrentSearches;
+  }
+
+  public long getRequestDeadlineNanos() {
+    return this.requestDeadlineNanos;
+  }
+
+  public int getPrefetchDistance() {
+    return this.prefetchDistance;
+  }
+
   public String toString() {
     return "PathfinderConfiguration(maxIterations="
         + this.getMaxIterations()
@@ -132,6 +408,36 @@ public class PathfinderConfiguration {
         + this.getProvider()
         + ", heuristicWeights="
         + this.getHeuristicWeights()
+        + ", nodeQueueType="
+        + this.getNodeQueueType()
+        + ", reopenClosedNodes="
+        + this.isReopenClosedNodes()
+        + ", bidirectional="
+        + this.isBidirectional()
+        + ", anytimeBudgetMillis="
+        + this.getAnytimeBudgetMillis()
+        + ", anytimeInflation="
+        + this.getAnytimeInflation()
+        + ", tickBudgetMicros="
+        + this.getTickBudgetMicros()
+        + ", tickBudgetExpansions="
+        + this.getTickBudgetExpansions()
+        + ", pathCacheSize="
+        + this.getPathCacheSize()
+        + ", pathCacheFailureTtlMillis="
+        + this.getPathCacheFailureTtlMillis()
+        + ", neighbourStrategy="
+        + this.getNeighbourStrategy()
+        + ", reuseSearchMemory="
+        + this.isReuseSearchMemory()
+        + ", executor="
+        + this.getExecutor()
+        + ", maxConcurrentSearches="
+        + this.getMaxConcurrentSearches()
+        + ", requestDeadlineNanos="
+        + this.getRequestDeadlineNanos()
+        + ", prefetchDistance="
+        + this.getPrefetchDistance()
         + ")";
   }
 
@@ -147,6 +453,21 @@ public class PathfinderConfiguration {
     if (this.getProvider() == null
         ? other.getProvider() != null
         : !this.getProvider().equals(other.getProvider())) return false;
+    if (!Objects.equals(this.getNodeQueueType(), other.getNodeQueueType())) return false;
+    if (this.isReopenClosedNodes() != other.isReopenClosedNodes()) return false;
+    if (this.isBidirectional() != other.isBidirectional()) return false;
+    if (this.getAnytimeBudgetMillis() != other.getAnytimeBudgetMillis()) return false;
+    if (Double.compare(this.getAnytimeInflation(), other.getAnytimeInflation()) != 0) return false;
+    if (this.getTickBudgetMicros() != other.getTickBudgetMicros()) return false;
+    if (this.getTickBudgetExpansions() != other.getTickBudgetExpansions()) return false;
+    if (this.getPathCacheSize() != other.getPathCacheSize()) return false;
+    if (this.getPathCacheFailureTtlMillis() != other.getPathCacheFailureTtlMillis()) return false;
+    if (!Objects.equals(this.getNeighbourStrategy(), other.getNeighbourStrategy())) return false;
+    if (this.isReuseSearchMemory() != other.isReuseSearchMemory()) return false;
+    if (!Objects.equals(this.getExecutor(), other.getExecutor())) return false;
+    if (this.getMaxConcurrentSearches() != other.getMaxConcurrentSearches()) return false;
+    if (this.getRequestDeadlineNanos() != other.getRequestDeadlineNanos()) return false;
+    if (this.getPrefetchDistance() != other.getPrefetchDistance()) return false;
     final Object this$heuristicWeights = this.getHeuristicWeights();
     final Object other$heuristicWeights = other.getHeuristicWeights();
     return Objects.equals(this$heuristicWeights, other$heuristicWeights);
@@ -164,6 +485,24 @@ public class PathfinderConfiguration {
     result = result * PRIME + (this.isAsync() ? 79 : 97);
     result = result * PRIME + (this.isFallback() ? 79 : 97);
     result = result * PRIME + (this.getProvider() == null ? 43 : this.getProvider().hashCode());
+    final Object $nodeQueueType = this.getNodeQueueType();
+    result = result * PRIME + ($nodeQueueType == null ? 43 : $nodeQueueType.hashCode());
+    result = result * PRIME + (this.isReopenClosedNodes() ? 79 : 97);
+    result = result * PRIME + (this.isBidirectional() ? 79 : 97);
+    result = result * PRIME + Long.hashCode(this.getAnytimeBudgetMillis());
+    result = result * PRIME + Double.hashCode(this.getAnytimeInflation());
+    result = result * PRIME + Long.hashCode(this.getTickBudgetMicros());
+    result = result * PRIME + this.getTickBudgetExpansions();
+    result = result * PRIME + this.getPathCacheSize();
+    result = result * PRIME + Long.hashCode(this.getPathCacheFailureTtlMillis());
+    final Object $neighbourStrategy = this.getNeighbourStrategy();
+    result = result * PRIME + ($neighbourStrategy == null ? 43 : $neighbourStrategy.hashCode());
+    result = result * PRIME + (this.isReuseSearchMemory() ? 79 : 97);
+    final Object $executor = this.getExecutor();
+    result = result * PRIME + ($executor == null ? 43 : $executor.hashCode());
+    result = result * PRIME + this.getMaxConcurrentSearches();
+    result = result * PRIME + Long.hashCode(this.getRequestDeadlineNanos());
+    result = result * PRIME + this.getPrefetchDistance();
     final Object $heuristicWeights = this.getHeuristicWeights();
     result = result * PRIME + ($heuristicWeights == null ? 43 : $heuristicWeights.hashCode());
     return result;
@@ -176,6 +515,21 @@ public class PathfinderConfiguration {
     private boolean fallback = true;
     private NavigationPointProvider provider;
     private HeuristicWeights heuristicWeights = HeuristicWeights.NATURAL_PATH_WEIGHTS;
+    private NodeQueueType nodeQueueType = NodeQueueType.QUATERNARY_HEAP;
+    private boolean reopenClosedNodes = true;
+    private boolean bidirectional = false;
+    private long anytimeBudgetMillis = 0;
+    private double anytimeInflation = 3.0;
+    private long tickBudgetMicros = 0;
+    private int tickBudgetExpansions = 0;
+    private int pathCacheSize = 0;
+    private long pathCacheFailureTtlMillis = 5000;
+    private NeighbourStrategy neighbourStrategy = NeighbourStrategy.ALL;
+    private boolean reuseSearchMemory = false;
+    private Executor executor = null;
+    private int maxConcurrentSearches = 0;
+    private long requestDeadlineNanos = 0;
+    private int prefetchDistance = 0;
 
     PathfinderConfigurationBuilder() {}
 
@@ -212,6 +566,94 @@ public class PathfinderConfiguration {
       return this;
     }
 
+    public PathfinderConfiguration.PathfinderConfigurationBuilder nodeQueueType(
+        NodeQueueType nodeQueueType) {
+      this.nodeQueueType = nodeQueueType;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder reopenClosedNodes(
+        boolean reopenClosedNodes) {
+      this.reopenClosedNodes = reopenClosedNodes;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder bidirectional(
+        boolean bidirectional) {
+      this.bidirectional = bidirectional;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder anytimeBudgetMillis(
+        long anytimeBudgetMillis) {
+      this.anytimeBudgetMillis = anytimeBudgetMillis;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder anytimeInflation(
+        double anytimeInflation) {
+      this.anytimeInflation = anytimeInflation;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder tickBudgetMicros(
+        long tickBudgetMicros) {
+      this.tickBudgetMicros = tickBudgetMicros;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder tickBudgetExpansions(
+        int tickBudgetExpansions) {
+      this.tickBudgetExpansions = tickBudgetExpansions;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder pathCacheSize(int pathCacheSize) {
+      this.pathCacheSize = pathCacheSize;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder pathCacheFailureTtlMillis(
+        long pathCacheFailureTtlMillis) {
+      this.pathCacheFailureTtlMillis = pathCacheFailureTtlMillis;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder neighbourStrategy(
+        NeighbourStrategy neighbourStrategy) {
+      this.neighbourStrategy = neighbourStrategy;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder reuseSearchMemory(
+        boolean reuseSearchMemory) {
+      this.reuseSearchMemory = reuseSearchMemory;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder maxConcurrentSearches(
+        int maxConcurrentSearches) {
+      this.maxConcurrentSearches = maxConcurrentSearches;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder requestDeadlineNanos(
+        long requestDeadlineNanos) {
+      this.requestDeadlineNanos = requestDeadlineNanos;
+      return this;
+    }
+
+    public PathfinderConfiguration.PathfinderConfigurationBuilder prefetchDistance(
+        int prefetchDistance) {
+      this.prefetchDistance = prefetchDistance;
+      return this;
+    }
+
     public PathfinderConfiguration build() {
       if (provider == null) {
         throw new IllegalStateException("NavigationPointProvider cannot be null.");
@@ -222,7 +664,22 @@ public class PathfinderConfiguration {
           this.async,
           this.fallback,
           this.provider,
-          this.heuristicWeights);
+          this.heuristicWeights,
+          this.nodeQueueType,
+          this.reopenClosedNodes,
+          this.bidirectional,
+          this.anytimeBudgetMillis,
+          this.anytimeInflation,
+          this.tickBudgetMicros,
+          this.tickBudgetExpansions,
+          this.pathCacheSize,
+          this.pathCacheFailureTtlMillis,
+          this.neighbourStrategy,
+          this.reuseSearchMemory,
+          this.executor,
+          this.maxConcurrentSearches,
+          this.requestDeadlineNanos,
+          this.prefetchDistance);
     }
 
     public String toString() {
@@ -238,6 +695,36 @@ public class PathfinderConfiguration {
           + this.provider
           + ", heuristicWeights="
           + this.heuristicWeights
+          + ", nodeQueueType="
+          + this.nodeQueueType
+          + ", reopenClosedNodes="
+          + this.reopenClosedNodes
+          + ", bidirectional="
+          + this.bidirectional
+          + ", anytimeBudgetMillis="
+          + this.anytimeBudgetMillis
+          + ", anytimeInflation="
+          + this.anytimeInflation
+          + ", tickBudgetMicros="
+          + this.tickBudgetMicros
+          + ", tickBudgetExpansions="
+          + this.tickBudgetExpansions
+          + ", pathCacheSize="
+          + this.pathCacheSize
+          + ", pathCacheFailureTtlMillis="
+          + this.pathCacheFailureTtlMillis
+          + ", neighbourStrategy="
+          + this.neighbourStrategy
+          + ", reuseSearchMemory="
+          + this.reuseSearchMemory
+          + ", executor="
+          + this.executor
+          + ", maxConcurrentSearches="
+          + this.maxConcurrentSearches
+          + ", requestDeadlineNanos="
+          + this.requestDeadlineNanos
+          + ", prefetchDistance="
+          + this.prefetchDistance
           + ")";
     }
   }
@@ -0,0 +1,112 @@
+package de.metaphoriker.pathetic.api.pathing.configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ready-made executors for {@link PathfinderConfiguration#getExecutor()}. The caller owns the
+ * executors and has to shut them down once they are no longer used.
+ */
+public final class PathfindingExecutors {
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+  private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+  /** What happens to a search that is started while the queue of a bounded executor is full. */
+  public enum RejectionPolicy {
+
+    /**
+     * The search is not started, and its stage completes exceptionally with a {@link
+     * RejectedExecutionException}. This lets callers back off without blocking.
+     */
+    REJECT,
+
+    /**
+     * The search runs on the thread that started it. This slows the caller down to the pace of the
+     * pool, but blocks it for the whole search, so it should not be used from the main thread.
+     */
+    CALLER_RUNS
+  }
+
+  private PathfindingExecutors() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Creates an executor that runs searches on a fixed number of daemon threads and queues at most
+   * the given number of searches that wait for a thread. Idle threads terminate after a minute.
+   *
+   * @param threads the number of threads searches run on
+   * @param queueCapacity the number of searches that may wait for a thread
+   * @param rejectionPolicy what happens to searches that find the queue full
+   */
+  public static ExecutorService bounded(
+      int threads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+    if (threads < 1) throw new IllegalArgumentException("Threads must be positive: " + threads);
+    if (queueCapacity < 1)
+      throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+
+    RejectedExecutionHandler handler =
+        rejectionPolicy == RejectionPolicy.CALLER_RUNS
+            ? new ThreadPoolExecutor.CallerRunsPolicy()
+            : new ThreadPoolExecutor.AbortPolicy();
+
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            daemonThreadFactory(),
+            handler);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Creates an executor that runs every search on its own virtual thread. A search that blocks on a
+   * chunk load then only parks its virtual thread instead of occupying a platform thread.
+   *
+   * @throws UnsupportedOperationException if the runtime is older than Java 21
+   */
+  public static ExecutorService virtualThreads() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or newer", e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to create a virtual thread executor", e);
+    }
+  }
+
+  /** Whether the runtime supports {@link #virtualThreads()}. */
+  public static boolean isVirtualThreadsSupported() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static ThreadFactory daemonThreadFactory() {
+    int pool = POOL_COUNT.incrementAndGet();
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread =
+          new Thread(runnable, "pathetic-pathing-" + pool + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
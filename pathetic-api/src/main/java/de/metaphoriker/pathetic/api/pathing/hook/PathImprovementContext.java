@@ -0,0 +1,58 @@
+package de.metaphoriker.pathetic.api.pathing.hook;
+
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import java.util.Objects;
+
+/** Context for a path an anytime search has improved. */
+public final class PathImprovementContext {
+
+  /** The result holding the improved path. */
+  private final PathfinderResult pathfinderResult;
+
+  /**
+   * The factor the cost of the path is at most away from the cost of the best path under the
+   * configured heuristic. A bound of 1 means that no cheaper path can be found.
+   */
+  private final double suboptimalityBound;
+
+  public PathImprovementContext(PathfinderResult pathfinderResult, double suboptimalityBound) {
+    this.pathfinderResult = pathfinderResult;
+    this.suboptimalityBound = suboptimalityBound;
+  }
+
+  public PathfinderResult getPathfinderResult() {
+    return this.pathfinderResult;
+  }
+
+  public double getSuboptimalityBound() {
+    return this.suboptimalityBound;
+  }
+
+  public boolean equals(final Object o) {
+    if (o == this) return true;
+    if (!(o instanceof PathImprovementContext)) return false;
+    final PathImprovementContext other = (PathImprovementContext) o;
+    if (Double.compare(this.getSuboptimalityBound(), other.getSuboptimalityBound()) != 0)
+      return false;
+    final Object this$pathfinderResult = this.getPathfinderResult();
+    final Object other$pathfinderResult = other.getPathfinderResult();
+    return Objects.equals(this$pathfinderResult, other$pathfinderResult);
+  }
+
+  public int hashCode() {
+    final int PRIME = 59;
+    int result = 1;
+    result = result * PRIME + Double.hashCode(this.getSuboptimalityBound());
+    final Object $pathfinderResult = this.getPathfinderResult();
+    result = result * PRIME + ($pathfinderResult == null ? 43 : $pathfinderResult.hashCode());
+    return result;
+  }
+
+  public String toString() {
+    return "PathImprovementContext(pathfinderResult="
+        + this.getPathfinderResult()
+        + ", suboptimalityBound="
+        + this.getSuboptimalityBound()
+        + ")";
+  }
+}
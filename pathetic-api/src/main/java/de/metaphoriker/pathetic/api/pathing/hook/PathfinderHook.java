@@ -11,4 +11,22 @@ public interface PathfinderHook {
    * @param pathfindingContext the context of the current pathfinding step
    */
   void onPathfindingStep(PathfindingContext pathfindingContext);
+
+  /**
+   * Called whenever a pass of an anytime search has finished, with the best path found so far and
+   * the bound on its cost, which tightens from pass to pass. Anytime searches are enabled through
+   * the anytime budget of the pathfinder configuration.
+   *
+   * @param pathImprovementContext the context of the improved path
+   */
+  default void onPathImproved(PathImprovementContext pathImprovementContext) {}
+
+  /**
+   * Called when the search of a request starts, with the time the request has waited for it. The
+   * wait includes the time spent in the queue of the fair scheduler and of the executor, so
+   * aggregating it per priority shows how long each class of requests is delayed.
+   *
+   * @param searchStartContext the context of the started search
+   */
+  default void onSearchStarted(SearchStartContext searchStartContext) {}
 }
@@ -0,0 +1,52 @@
+package de.metaphoriker.pathetic.api.pathing.hook;
+
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
+import java.util.Objects;
+
+/** Context for a search that starts after its request has waited for a free slot. */
+public final class SearchStartContext {
+
+  /** The tag of the request the search belongs to. */
+  private final PathRequestTag requestTag;
+
+  /** The time in nanoseconds between the request and the start of its search. */
+  private final long queueWaitNanos;
+
+  public SearchStartContext(PathRequestTag requestTag, long queueWaitNanos) {
+    this.requestTag = requestTag;
+    this.queueWaitNanos = queueWaitNanos;
+  }
+
+  public PathRequestTag getRequestTag() {
+    return this.requestTag;
+  }
+
+  public long getQueueWaitNanos() {
+    return this.queueWaitNanos;
+  }
+
+  public boolean equals(final Object o) {
+    if (o == this) return true;
+    if (!(o instanceof SearchStartContext)) return false;
+    final SearchStartContext other = (SearchStartContext) o;
+    if (this.getQueueWaitNanos() != other.getQueueWaitNanos()) return false;
+    return Objects.equals(this.getRequestTag(), other.getRequestTag());
+  }
+
+  public int hashCode() {
+    final int PRIME = 59;
+    int result = 1;
+    result = result * PRIME + Long.hashCode(this.getQueueWaitNanos());
+    final Object $requestTag = this.getRequestTag();
+    result = result * PRIME + ($requestTag == null ? 43 : $requestTag.hashCode());
+    return result;
+  }
+
+  public String toString() {
+    return "SearchStartContext(requestTag="
+        + this.getRequestTag()
+        + ", queueWaitNanos="
+        + this.getQueueWaitNanos()
+        + ")";
+  }
+}
@@ -22,5 +22,7 @@ public enum PathState {
   /** Signifies that the pathfinder reached its length limit */
   LENGTH_LIMITED,
   /** Signifies that the pathfinder reached its iteration limit */
-  MAX_ITERATIONS_REACHED
+  MAX_ITERATIONS_REACHED,
+  /** Signifies that the request ran past its deadline before the pathfinder reached the target */
+  DEADLINE_EXCEEDED
 }
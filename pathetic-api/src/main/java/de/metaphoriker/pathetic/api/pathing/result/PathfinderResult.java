@@ -17,8 +17,8 @@ public interface PathfinderResult {
 
   /**
    * Whether the pathfinder has failed to reach its target. This includes {@link PathState#FAILED},
-   * {@link PathState#LENGTH_LIMITED}, {@link PathState#MAX_ITERATIONS_REACHED} and {@link
-   * PathState#FALLBACK}
+   * {@link PathState#LENGTH_LIMITED}, {@link PathState#MAX_ITERATIONS_REACHED}, {@link
+   * PathState#DEADLINE_EXCEEDED} and {@link PathState#FALLBACK}
    *
    * @return Whether the pathfinder has failed to reach its target
    */
@@ -0,0 +1,23 @@
+package de.metaphoriker.pathetic.api.provider;
+
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import java.util.UUID;
+
+/**
+ * A listener that is notified whenever the blocks of a chunk change, so that data derived from the
+ * {@link NavigationPointProvider} can be discarded.
+ *
+ * @see ChunkInvalidations
+ */
+@FunctionalInterface
+public interface ChunkInvalidationListener {
+
+  /**
+   * Called when a chunk has been modified.
+   *
+   * @param environmentUuid the UUID of the {@link PathEnvironment} the chunk belongs to.
+   * @param chunkX the X coordinate of the chunk.
+   * @param chunkZ the Z coordinate of the chunk.
+   */
+  void onChunkInvalidated(UUID environmentUuid, int chunkX, int chunkZ);
+}
@@ -0,0 +1,65 @@
+package de.metaphoriker.pathetic.api.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * The central hook for chunk invalidations. Platform integrations report modified chunks through
+ * {@link #invalidate(UUID, int, int)}, and everything that caches data derived from a {@link
+ * NavigationPointProvider} registers a {@link ChunkInvalidationListener} to be told about it.
+ *
+ * <p>Listeners are only weakly referenced, so registering one does not keep its owner alive. The
+ * owner has to keep a strong reference to the listener for as long as it wants to be notified.
+ */
+public final class ChunkInvalidations {
+
+  private static final Set<ChunkInvalidationListener> LISTENERS =
+      Collections.newSetFromMap(new WeakHashMap<>());
+
+  private ChunkInvalidations() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Registers a listener to be notified about modified chunks.
+   *
+   * @param listener the listener to register.
+   */
+  public static void register(ChunkInvalidationListener listener) {
+    synchronized (LISTENERS) {
+      LISTENERS.add(listener);
+    }
+  }
+
+  /**
+   * Unregisters a previously registered listener.
+   *
+   * @param listener the listener to unregister.
+   */
+  public static void unregister(ChunkInvalidationListener listener) {
+    synchronized (LISTENERS) {
+      LISTENERS.remove(listener);
+    }
+  }
+
+  /**
+   * Notifies all registered listeners that the given chunk has been modified.
+   *
+   * @param environmentUuid the UUID of the environment the chunk belongs to.
+   * @param chunkX the X coordinate of the chunk.
+   * @param chunkZ the Z coordinate of the chunk.
+   */
+  public static void invalidate(UUID environmentUuid, int chunkX, int chunkZ) {
+    List<ChunkInvalidationListener> listeners;
+    synchronized (LISTENERS) {
+      listeners = new ArrayList<>(LISTENERS);
+    }
+
+    for (ChunkInvalidationListener listener : listeners)
+      listener.onChunkInvalidated(environmentUuid, chunkX, chunkZ);
+  }
+}
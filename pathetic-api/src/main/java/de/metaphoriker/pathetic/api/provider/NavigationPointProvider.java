@@ -1,6 +1,10 @@
 package de.metaphoriker.pathetic.api.provider;
 
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * The NavigationPointProvider interface defines methods for retrieving navigation point data
@@ -15,4 +19,51 @@ public interface NavigationPointProvider {
    * @return {@link NavigationPoint} the navigation point.
    */
   NavigationPoint getNavigationPoint(PathPosition position);
+
+  /**
+   * Whether the navigation points of the given chunk can be retrieved without blocking, for example
+   * because the chunk is loaded. Searches that can suspend ask this before they read the points
+   * around a node, and set the node aside while {@link #loadChunkAsync} makes the chunk available.
+   * Every search asks at most once per chunk and trusts the answer from then on.
+   *
+   * <p>By default, every chunk is available.
+   *
+   * @param environment the environment the chunk belongs to.
+   * @param chunkX the X coordinate of the chunk.
+   * @param chunkZ the Z coordinate of the chunk.
+   * @return whether the navigation points of the chunk are available.
+   */
+  default boolean isChunkAvailable(PathEnvironment environment, int chunkX, int chunkZ) {
+    return true;
+  }
+
+  /**
+   * Starts making the navigation points of the given chunk available without blocking the calling
+   * thread. {@link #getNavigationPoint} still has to answer for points that are not available,
+   * blocking if it has to, since not every search can suspend.
+   *
+   * <p>If the returned stage completes exceptionally, searches do not expand the nodes next to the
+   * chunk.
+   *
+   * @param environment the environment the chunk belongs to.
+   * @param chunkX the X coordinate of the chunk.
+   * @param chunkZ the Z coordinate of the chunk.
+   * @return a stage that completes once the chunk is available, or exceptionally once loading it
+   *     has failed.
+   */
+  default CompletionStage<Void> loadChunkAsync(
+      PathEnvironment environment, int chunkX, int chunkZ) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Hints that the navigation points around the given positions are about to be read, one position
+   * per chunk a search is approaching. The provider may start loading them in the background, but
+   * must not block the calling thread, which is the one running the search.
+   *
+   * <p>By default, nothing is prefetched.
+   *
+   * @param positions the positions to prefetch the navigation points around.
+   */
+  default void prefetch(Collection<PathPosition> positions) {}
 }
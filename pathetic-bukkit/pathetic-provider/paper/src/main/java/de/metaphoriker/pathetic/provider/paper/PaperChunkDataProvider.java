@@ -1,7 +1,9 @@
 package de.metaphoriker.pathetic.provider.paper;
 
 import de.metaphoriker.pathetic.provider.ChunkDataProvider;
+import java.util.concurrent.CompletableFuture;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.ChunkSnapshot;
 import org.bukkit.World;
 import org.bukkit.block.BlockState;
@@ -16,6 +18,11 @@ public class PaperChunkDataProvider implements ChunkDataProvider {
       return world.getChunkAtAsyncUrgently(chunkX, chunkZ).join().getChunkSnapshot();
     }
   }
+
+  @Override
+  public CompletableFuture<ChunkSnapshot> getSnapshotAsync(World world, int chunkX, int chunkZ) {
+    return world.getChunkAtAsyncUrgently(chunkX, chunkZ).thenApply(Chunk::getChunkSnapshot);
+  }
   
   @Override
   public BlockState getBlockState(ChunkSnapshot snapshot, int x, int y, int z) {
@@ -1,5 +1,6 @@
 package de.metaphoriker.pathetic.provider;
 
+import java.util.concurrent.CompletableFuture;
 import org.bukkit.ChunkSnapshot;
 import org.bukkit.World;
 import org.bukkit.block.BlockState;
@@ -17,6 +18,20 @@ public interface ChunkDataProvider {
    */
   ChunkSnapshot getSnapshot(World world, int chunkX, int chunkZ);
 
+  /**
+   * Returns a {@link ChunkSnapshot} of the chunk at the given coordinates, without blocking the
+   * calling thread while the chunk loads. By default, the snapshot is taken right away with {@link
+   * #getSnapshot}, which blocks if the chunk has to be loaded.
+   *
+   * @param world The {@link World} to get the {@link ChunkSnapshot} from
+   * @param chunkX The x-coordinate of the chunk
+   * @param chunkZ The z-coordinate of the chunk
+   * @return A future of the {@link ChunkSnapshot} of the chunk at the given coordinates
+   */
+  default CompletableFuture<ChunkSnapshot> getSnapshotAsync(World world, int chunkX, int chunkZ) {
+    return CompletableFuture.completedFuture(getSnapshot(world, chunkX, chunkZ));
+  }
+
   /** Get the block state from a chunk snapshot at the given coordinates */
   BlockState getBlockState(ChunkSnapshot snapshot, int x, int y, int z);
 }
@@ -3,12 +3,34 @@ package de.metaphoriker.pathetic.bukkit.initializer;
 import de.metaphoriker.pathetic.api.pathing.Pathfinder;
 import de.metaphoriker.pathetic.api.factory.PathfinderInitializer;
 import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.bukkit.PatheticBukkit;
 import de.metaphoriker.pathetic.bukkit.hook.SpigotPathfindingHook;
+import de.metaphoriker.pathetic.engine.util.ErrorLogger;
+import org.bukkit.Bukkit;
 
 public class BukkitPathfinderInitializer implements PathfinderInitializer {
 
+  /**
+   * Registers the watchdog hook and, if the synchronous searches of the pathfinder are sliced,
+   * resumes them on every server tick on the main thread.
+   *
+   * @throws IllegalStateException If the searches are sliced but Pathetic has not been initialized
+   */
   @Override
   public void initialize(Pathfinder pathfinder, PathfinderConfiguration configuration) {
     pathfinder.registerPathfindingHook(new SpigotPathfindingHook());
+
+    if (isSliced(configuration)) {
+      if (!PatheticBukkit.isInitialized())
+        throw ErrorLogger.logFatalError("Sliced searches require Pathetic to be initialized");
+
+      Bukkit.getScheduler()
+          .runTaskTimer(PatheticBukkit.getPluginInstance(), pathfinder::resumeSearches, 1L, 1L);
+    }
+  }
+
+  private boolean isSliced(PathfinderConfiguration configuration) {
+    return !configuration.isAsync()
+        && (configuration.getTickBudgetMicros() > 0 || configuration.getTickBudgetExpansions() > 0);
   }
 }
@@ -1,5 +1,6 @@
 package de.metaphoriker.pathetic.bukkit.provider;
 
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
 import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
 import de.metaphoriker.pathetic.api.provider.NavigationPoint;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
@@ -56,7 +57,8 @@ public class FailingNavigationPointProvider implements NavigationPointProvider {
   /**
    * Invalidates the cached chunk snapshot for the specified world and chunk coordinates. This
    * method should be called when a chunk is modified to ensure that the provider uses the updated
-   * chunk data.
+   * chunk data. The invalidation is passed on to {@link ChunkInvalidations}, so that data the
+   * pathfinders derived from the chunk is discarded as well.
    *
    * @param worldUUID The UUID of the world.
    * @param chunkX The X coordinate of the chunk.
@@ -68,6 +70,8 @@ public class FailingNavigationPointProvider implements NavigationPointProvider {
       long chunkKey = ChunkUtil.getChunkKey(chunkX, chunkZ);
       worldDomain.removeSnapshot(chunkKey);
     }
+
+    ChunkInvalidations.invalidate(worldUUID, chunkX, chunkZ);
   }
 
   /**
@@ -3,9 +3,15 @@ package de.metaphoriker.pathetic.bukkit.provider;
 import de.metaphoriker.pathetic.api.provider.NavigationPoint;
 import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.bukkit.provider.world.WorldDomain;
 import de.metaphoriker.pathetic.bukkit.util.ChunkUtil;
 import de.metaphoriker.pathetic.engine.util.ErrorLogger;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import lombok.NonNull;
 import org.bukkit.Bukkit;
 import org.bukkit.ChunkSnapshot;
@@ -21,9 +27,24 @@ import org.bukkit.block.BlockState;
  * <p>This provider builds upon the functionality of {@link FailingNavigationPointProvider} by
  * actively loading chunks when they are not readily available, guaranteeing the retrieval of
  * navigation point data even in situations where chunks might not be loaded initially.
+ *
+ * <p>Asynchronous searches ask it whether a chunk is available before they read it, and wait for
+ * chunks that are not without blocking their thread, while the chunk is loaded asynchronously.
  */
 public class LoadingNavigationPointProvider extends FailingNavigationPointProvider {
 
+  /**
+   * The thread prefetched snapshots are taken on, one batch after another. Snapshots that have to
+   * be taken blocking therefore neither hold up the searches nor the main thread.
+   */
+  private static final ExecutorService PREFETCH_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "pathetic-prefetch");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   /**
    * Retrieves a chunk snapshot for the specified world and chunk coordinates, loading the chunk if
    * it's not already loaded.
@@ -111,4 +132,75 @@ public class LoadingNavigationPointProvider extends FailingNavigationPointProvid
     NavigationPoint navigationPoint = super.getNavigationPoint(position);
     return navigationPoint == null ? ensureNavigationPoint(position) : navigationPoint;
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>A chunk is available if its snapshot is cached or it is loaded.
+   */
+  @Override
+  public boolean isChunkAvailable(@NonNull PathEnvironment environment, int chunkX, int chunkZ) {
+    if (isSnapshotCached(environment, chunkX, chunkZ)) return true;
+
+    World world = Bukkit.getWorld(environment.getUuid());
+    return world == null || world.isChunkLoaded(chunkX, chunkZ);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation loads the chunk asynchronously and caches its snapshot. Concurrent loads
+   * of the same chunk share a single one.
+   */
+  @Override
+  public CompletionStage<Void> loadChunkAsync(
+      @NonNull PathEnvironment environment, int chunkX, int chunkZ) {
+    return loadSnapshotAsync(environment, chunkX, chunkZ).thenAccept(snapshot -> {});
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This implementation takes the snapshots of the chunks that are neither cached in the {@link
+   * #SNAPSHOTS_MAP} nor being taken already on a background thread.
+   */
+  @Override
+  public void prefetch(@NonNull Collection<PathPosition> positions) {
+    PREFETCH_EXECUTOR.execute(
+        () -> positions.forEach(LoadingNavigationPointProvider::prefetchSnapshot));
+  }
+
+  private static void prefetchSnapshot(PathPosition position) {
+    PathEnvironment environment = position.getPathEnvironment();
+    int chunkX = position.getFlooredX() >> 4;
+    int chunkZ = position.getFlooredZ() >> 4;
+
+    if (!isSnapshotCached(environment, chunkX, chunkZ))
+      loadSnapshotAsync(environment, chunkX, chunkZ);
+  }
+
+  private static boolean isSnapshotCached(PathEnvironment environment, int chunkX, int chunkZ) {
+    WorldDomain worldDomain = SNAPSHOTS_MAP.get(environment.getUuid());
+    return worldDomain != null
+        && worldDomain.containsSnapshot(ChunkUtil.getChunkKey(chunkX, chunkZ));
+  }
+
+  /**
+   * Takes the snapshot of the given chunk asynchronously and caches it. Concurrent loads of the
+   * same chunk share a single one.
+   */
+  private static CompletableFuture<ChunkSnapshot> loadSnapshotAsync(
+      PathEnvironment environment, int chunkX, int chunkZ) {
+    World world = Bukkit.getWorld(environment.getUuid());
+    if (world == null) return CompletableFuture.completedFuture(null);
+
+    WorldDomain worldDomain =
+        SNAPSHOTS_MAP.computeIfAbsent(environment.getUuid(), uuid -> new WorldDomain());
+    return worldDomain.loadSnapshot(
+        ChunkUtil.getChunkKey(chunkX, chunkZ),
+        () ->
+            CHUNK_DATA_PROVIDER_RESOLVER
+                .getChunkDataProvider()
+                .getSnapshotAsync(world, chunkX, chunkZ));
+  }
 }
@@ -1,23 +1,39 @@
 package de.metaphoriker.pathetic.bukkit.provider.world;
 
-import de.metaphoriker.pathetic.engine.util.ExpiringHashMap;
+import de.metaphoriker.pathetic.engine.util.ExpiringCache;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.bukkit.ChunkSnapshot;
 
 public class WorldDomain {
 
-  private final Map<Long, ExpiringHashMap.Entry<ChunkSnapshot>> chunkSnapshotMap =
-      new ExpiringHashMap<>();
+  /** The time after which a snapshot is taken again, since it may have gone stale. */
+  private static final long SNAPSHOT_EXPIRATION_MINUTES = 5;
+
+  /** The number of snapshots kept per world, evicting the oldest one once it is exceeded. */
+  private static final int MAXIMUM_SNAPSHOTS = 1024;
+
+  private final ExpiringCache<Long, ChunkSnapshot> chunkSnapshotMap =
+      new ExpiringCache<>(
+          SNAPSHOT_EXPIRATION_MINUTES,
+          TimeUnit.MINUTES,
+          ExpiringCache.ExpirationPolicy.AFTER_WRITE,
+          MAXIMUM_SNAPSHOTS);
+
+  /** The snapshots that are being taken asynchronously, so every chunk is only loaded once. */
+  private final Map<Long, CompletableFuture<ChunkSnapshot>> pendingSnapshots =
+      new ConcurrentHashMap<>();
 
   public Optional<ChunkSnapshot> getSnapshot(long key) {
-    ExpiringHashMap.Entry<ChunkSnapshot> entry = chunkSnapshotMap.get(key);
-    if (entry == null) return Optional.empty();
-    return Optional.ofNullable(entry.getValue());
+    return Optional.ofNullable(chunkSnapshotMap.get(key));
   }
 
   public void addSnapshot(final long key, final ChunkSnapshot snapshot) {
-    chunkSnapshotMap.put(key, new ExpiringHashMap.Entry<>(snapshot));
+    chunkSnapshotMap.put(key, snapshot);
   }
 
   public void removeSnapshot(final long key) {
@@ -25,6 +41,41 @@ public class WorldDomain {
   }
 
   public boolean containsSnapshot(final long key) {
-    return chunkSnapshotMap.get(key) != null;
+    return chunkSnapshotMap.containsKey(key);
+  }
+
+  /**
+   * Takes the snapshot of a chunk asynchronously and adds it once it has been taken. If the
+   * snapshot of the chunk is already being taken, that one is waited for instead.
+   *
+   * @param loader takes the snapshot, if it is not already being taken
+   * @return a future of the snapshot
+   */
+  public CompletableFuture<ChunkSnapshot> loadSnapshot(
+      final long key, final Supplier<CompletableFuture<ChunkSnapshot>> loader) {
+    CompletableFuture<ChunkSnapshot> pending = pendingSnapshots.get(key);
+    if (pending != null) return pending;
+
+    CompletableFuture<ChunkSnapshot> snapshot = new CompletableFuture<>();
+    pending = pendingSnapshots.putIfAbsent(key, snapshot);
+    if (pending != null) return pending;
+
+    CompletableFuture<ChunkSnapshot> loading;
+    try {
+      loading = loader.get();
+    } catch (RuntimeException e) {
+      loading = new CompletableFuture<>();
+      loading.completeExceptionally(e);
+    }
+
+    loading.whenComplete(
+        (loaded, throwable) -> {
+          if (loaded != null) addSnapshot(key, loaded);
+          pendingSnapshots.remove(key, snapshot);
+
+          if (throwable != null) snapshot.completeExceptionally(throwable);
+          else snapshot.complete(loaded);
+        });
+    return snapshot;
   }
 }
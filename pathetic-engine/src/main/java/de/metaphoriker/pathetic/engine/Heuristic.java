@@ -0,0 +1,136 @@
+package de.metaphoriker.pathetic.engine;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.HeuristicWeights;
+import de.metaphoriker.pathetic.api.util.NumberUtils;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+
+/**
+ * Calculates the weighted heuristic of a search directly on block coordinates. Everything that only
+ * depends on the start and the target is computed once up front, so estimating a node does not
+ * allocate.
+ */
+public final class Heuristic {
+
+  private static final double D1 = 1;
+  private static final double D2 = 1.4142135623730951;
+  private static final double D3 = 1.7320508075688772;
+
+  private final int startX;
+  private final int startY;
+  private final int startZ;
+
+  private final int targetX;
+  private final int targetY;
+  private final int targetZ;
+
+  /** The vector from the start to the target, used for the perpendicular distance. */
+  private final double lineX;
+
+  private final double lineY;
+  private final double lineZ;
+  private final double lineLength;
+
+  private final double manhattanWeight;
+  private final double octileWeight;
+  private final double perpendicularWeight;
+  private final double heightWeight;
+
+  /** The factor every estimate is multiplied with. */
+  private final double inflation;
+
+  public Heuristic(PathPosition start, PathPosition target, HeuristicWeights heuristicWeights) {
+    this(start, target, heuristicWeights, 1);
+  }
+
+  /**
+   * Creates a heuristic whose estimates are inflated by the given factor. An inflated heuristic
+   * favours nodes close to the target, which finds a path with fewer expansions at the price of
+   * its cost. An inflation of 0 estimates nothing and turns a search into a Dijkstra search.
+   */
+  public Heuristic(
+      PathPosition start,
+      PathPosition target,
+      HeuristicWeights heuristicWeights,
+      double inflation) {
+    this.startX = start.getFlooredX();
+    this.startY = start.getFlooredY();
+    this.startZ = start.getFlooredZ();
+    this.targetX = target.getFlooredX();
+    this.targetY = target.getFlooredY();
+    this.targetZ = target.getFlooredZ();
+
+    this.lineX = targetX - startX;
+    this.lineY = targetY - startY;
+    this.lineZ = targetZ - startZ;
+    this.lineLength =
+        Math.sqrt(
+            NumberUtils.square(lineX) + NumberUtils.square(lineY) + NumberUtils.square(lineZ));
+
+    this.manhattanWeight = heuristicWeights.getManhattanWeight();
+    this.octileWeight = heuristicWeights.getOctileWeight();
+    this.perpendicularWeight = heuristicWeights.getPerpendicularWeight();
+    this.heightWeight = heuristicWeights.getHeightWeight();
+    this.inflation = inflation;
+  }
+
+  /**
+   * Calculates the cost of a single move between two blocks.
+   *
+   * @return the euclidean distance between both blocks
+   */
+  public static double movementCost(int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+    int dx = toX - fromX;
+    int dy = toY - fromY;
+    int dz = toZ - fromZ;
+    return NumberUtils.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  /**
+   * Estimates the remaining cost from the given block to the target.
+   *
+   * @return the weighted heuristic of the block, multiplied with the inflation
+   */
+  public double estimate(int x, int y, int z) {
+    int dx = Math.abs(x - targetX);
+    int dy = Math.abs(y - targetY);
+    int dz = Math.abs(z - targetZ);
+
+    double manhattanDistance = dx + dy + dz;
+    double octileDistance = octileDistance(dx, dy, dz);
+    double perpendicularDistance = perpendicularDistance(x, y, z);
+    double heightDifference = dy;
+    double directionalPenalty = Math.abs(y - startY);
+
+    return ((manhattanDistance * manhattanWeight)
+            + (octileDistance * octileWeight)
+            + (perpendicularDistance * perpendicularWeight)
+            + (heightDifference * heightWeight)
+            + (directionalPenalty * 0.5))
+        * inflation;
+  }
+
+  private static double octileDistance(int dx, int dy, int dz) {
+    int smallest = Math.min(Math.min(dx, dz), dy);
+    int highest = Math.max(Math.max(dx, dz), dy);
+    int mid = Math.max(Math.min(dx, dz), Math.min(Math.max(dx, dz), dy));
+
+    return (D3 - D2) * smallest + (D2 - D1) * mid + D1 * highest;
+  }
+
+  /** The distance of the block to the straight line between the start and the target. */
+  private double perpendicularDistance(int x, int y, int z) {
+    if (lineLength == 0) return 0;
+
+    double ax = x - startX;
+    double ay = y - startY;
+    double az = z - startZ;
+
+    double crossX = ay * lineZ - lineY * az;
+    double crossY = az * lineX - lineZ * ax;
+    double crossZ = ax * lineY - lineX * ay;
+
+    return Math.sqrt(
+            NumberUtils.square(crossX) + NumberUtils.square(crossY) + NumberUtils.square(crossZ))
+        / lineLength;
+  }
+}
@@ -0,0 +1,99 @@
+package de.metaphoriker.pathetic.engine;
+
+/**
+ * Checks the line of sight between two blocks with the voxel traversal of Amanatides and Woo. The
+ * line runs between the centres of both blocks and every block it passes through, in the order it
+ * does, has to be reachable from the one before with a single {@link Passability#canMove move}.
+ *
+ * <p>The traversal works on the integer coordinates of the blocks only. The times at which the
+ * line crosses the block boundaries of an axis are compared as fractions, so lines through edges
+ * or corners are detected exactly and nothing is allocated.
+ */
+public final class LineOfSight {
+
+  private LineOfSight() {}
+
+  /** Whether the line between the centres of both blocks only passes through passable blocks. */
+  public static boolean between(
+      Passability passability, int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+    int stepX = Integer.signum(toX - fromX);
+    int stepY = Integer.signum(toY - fromY);
+    int stepZ = Integer.signum(toZ - fromZ);
+
+    int distanceX = Math.abs(toX - fromX);
+    int distanceY = Math.abs(toY - fromY);
+    int distanceZ = Math.abs(toZ - fromZ);
+
+    // the number of block boundaries the line has crossed so far on each axis
+    int crossedX = 0;
+    int crossedY = 0;
+    int crossedZ = 0;
+
+    int x = fromX;
+    int y = fromY;
+    int z = fromZ;
+
+    while (crossedX < distanceX || crossedY < distanceY || crossedZ < distanceZ) {
+      boolean crossX = crossedX < distanceX;
+      boolean crossY = crossedY < distanceY;
+      boolean crossZ = crossedZ < distanceZ;
+
+      // only the axes whose next boundary comes first are crossed, ties cross several at once
+      if (crossX && crossY) {
+        int comparison = compareCrossings(crossedX, distanceX, crossedY, distanceY);
+        crossX = comparison <= 0;
+        crossY = comparison >= 0;
+      }
+      if (crossX && crossZ) {
+        int comparison = compareCrossings(crossedX, distanceX, crossedZ, distanceZ);
+        crossX = comparison <= 0;
+        crossZ = comparison >= 0;
+      }
+      if (crossY && crossZ) {
+        int comparison = compareCrossings(crossedY, distanceY, crossedZ, distanceZ);
+        crossY = comparison <= 0;
+        crossZ = comparison >= 0;
+      }
+
+      int dx = crossX ? stepX : 0;
+      int dy = crossY ? stepY : 0;
+      int dz = crossZ ? stepZ : 0;
+      if (!canCross(passability, x, y, z, dx, dy, dz)) return false;
+
+      x += dx;
+      y += dy;
+      z += dz;
+
+      if (crossX) crossedX++;
+      if (crossY) crossedY++;
+      if (crossZ) crossedZ++;
+    }
+
+    return true;
+  }
+
+  /**
+   * Whether the line can cross into the neighbouring block. A line through a corner of three
+   * blocks makes a move that is diagonal in the horizontal plane and changes the height at once,
+   * which is not a single move, so it has to be possible as the horizontal and the vertical part in
+   * either order.
+   */
+  private static boolean canCross(
+      Passability passability, int x, int y, int z, int dx, int dy, int dz) {
+    if (dx == 0 || dy == 0 || dz == 0) return passability.canMove(x, y, z, dx, dy, dz);
+
+    return (passability.canMove(x, y, z, 0, dy, 0)
+            && passability.canMove(x, y + dy, z, dx, 0, dz))
+        || (passability.canMove(x, y, z, dx, 0, dz)
+            && passability.canMove(x + dx, y, z + dz, 0, dy, 0));
+  }
+
+  /**
+   * Compares the times at which the line crosses the next boundary of two axes. Starting from the
+   * centre of a block, the line crosses the k-th boundary of an axis it moves d blocks along at
+   * (2k + 1) / 2d.
+   */
+  private static int compareCrossings(int crossed, int distance, int otherCrossed, int other) {
+    return Long.compare((2L * crossed + 1) * other, (2L * otherCrossed + 1) * distance);
+  }
+}
@@ -0,0 +1,297 @@
+package de.metaphoriker.pathetic.engine;
+
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import de.metaphoriker.pathetic.engine.util.SectionBitSet;
+import java.util.Arrays;
+
+/**
+ * Data-oriented storage for the nodes of a single search. Instead of allocating an object per
+ * node, every node is identified by an {@code int} index and its data lives in parallel primitive
+ * arrays. Nodes are keyed by their block position, packed into a {@code long} via {@link
+ * PackedPosition}, so each block is stored at most once.
+ *
+ * <p>Since every node keeps the cheapest known cost from the start, the store doubles as the best-g
+ * map of the search, and the closed flag of a node tells whether it has already been expanded.
+ * Positions that never became a node because they were rejected are remembered separately, in a
+ * {@link SectionBitSet} that lives exactly as long as the search, just like the passability of the
+ * blocks the search judges apart from its moves.
+ *
+ * <p>A {@code NodeStore} is not thread-safe and is meant to be used by exactly one search.
+ */
+public class NodeStore {
+
+  /** The parent index of nodes that do not have a parent, i.e. the start node. */
+  public static final int NO_PARENT = -1;
+
+  /** The index returned by {@link #indexOf(long)} if no node exists for the given position. */
+  public static final int NO_NODE = LongIntHashMap.NO_VALUE;
+
+  private static final int DEFAULT_CAPACITY = 256;
+
+  /** The number of cells of the cube around a node, including the node itself. */
+  private static final int CELL_COUNT = 27;
+
+  private PathEnvironment pathEnvironment;
+  private final LongIntHashMap index;
+  private final SectionBitSet rejected = new SectionBitSet();
+  private final LongIntHashMap knownPassability = new LongIntHashMap();
+  private final byte[] cellVerdicts = new byte[2 * CELL_COUNT];
+
+  private long[] positions;
+  private double[] gCosts;
+  private double[] fCosts;
+  private int[] parents;
+  private int[] depths;
+  private boolean[] closed;
+  private boolean[] inconsistent;
+
+  private int size;
+  private boolean reversed;
+
+  public NodeStore(PathEnvironment pathEnvironment) {
+    this(pathEnvironment, DEFAULT_CAPACITY);
+  }
+
+  public NodeStore(PathEnvironment pathEnvironment, int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 1);
+    this.pathEnvironment = pathEnvironment;
+    this.index = new LongIntHashMap(capacity);
+    this.positions = new long[capacity];
+    this.gCosts = new double[capacity];
+    this.fCosts = new double[capacity];
+    this.parents = new int[capacity];
+    this.depths = new int[capacity];
+    this.closed = new boolean[capacity];
+    this.inconsistent = new boolean[capacity];
+  }
+
+  /**
+   * Adds a new node for the given packed position.
+   *
+   * @param position the packed block position of the node
+   * @param parent the index of the parent node or {@link #NO_PARENT}
+   * @param gCost the accumulated cost from the start to this node
+   * @param fCost the estimated total cost of a path through this node
+   * @param depth the number of steps from the start to this node
+   * @return the index of the new node
+   * @throws IllegalStateException if a node for the position already exists
+   */
+  public int add(long position, int parent, double gCost, double fCost, int depth) {
+    if (index.containsKey(position))
+      throw new IllegalStateException("Node already exists at " + describe(position));
+
+    if (size == positions.length) grow();
+
+    int node = size++;
+    positions[node] = position;
+    gCosts[node] = gCost;
+    fCosts[node] = fCost;
+    parents[node] = parent;
+    depths[node] = depth;
+    closed[node] = false;
+    inconsistent[node] = false;
+    index.put(position, node);
+    return node;
+  }
+
+  /**
+   * Replaces the data of an existing node, typically because a cheaper route to it was found.
+   *
+   * @param node the index of the node
+   * @param parent the index of the new parent node or {@link #NO_PARENT}
+   * @param gCost the new accumulated cost from the start to this node
+   * @param fCost the new estimated total cost of a path through this node
+   * @param depth the new number of steps from the start to this node
+   */
+  public void update(int node, int parent, double gCost, double fCost, int depth) {
+    gCosts[node] = gCost;
+    fCosts[node] = fCost;
+    parents[node] = parent;
+    depths[node] = depth;
+  }
+
+  /**
+   * Returns the index of the node at the given packed position.
+   *
+   * @param position the packed block position
+   * @return the node index or {@link #NO_NODE} if there is none
+   */
+  public int indexOf(long position) {
+    return index.get(position);
+  }
+
+  public boolean contains(long position) {
+    return index.containsKey(position);
+  }
+
+  public long getPosition(int node) {
+    return positions[node];
+  }
+
+  public int getX(int node) {
+    return PackedPosition.unpackX(positions[node]);
+  }
+
+  public int getY(int node) {
+    return PackedPosition.unpackY(positions[node]);
+  }
+
+  public int getZ(int node) {
+    return PackedPosition.unpackZ(positions[node]);
+  }
+
+  public double getGCost(int node) {
+    return gCosts[node];
+  }
+
+  public double getFCost(int node) {
+    return fCosts[node];
+  }
+
+  public int getParent(int node) {
+    return parents[node];
+  }
+
+  public int getDepth(int node) {
+    return depths[node];
+  }
+
+  public boolean isClosed(int node) {
+    return closed[node];
+  }
+
+  /** Marks the node as expanded. */
+  public void close(int node) {
+    closed[node] = true;
+  }
+
+  /** Marks the node as not expanded, so it can be queued and expanded again. */
+  public void reopen(int node) {
+    closed[node] = false;
+    inconsistent[node] = false;
+  }
+
+  public boolean isInconsistent(int node) {
+    return inconsistent[node];
+  }
+
+  /**
+   * Marks an expanded node whose cost was lowered afterwards without queueing it again. Anytime
+   * searches collect these nodes and only expand them again in their next pass. Reopening the node
+   * clears the mark.
+   */
+  public void markInconsistent(int node) {
+    inconsistent[node] = true;
+  }
+
+  /** Whether the given packed position has been rejected by this search. */
+  public boolean isRejected(long position) {
+    return rejected.contains(position);
+  }
+
+  /**
+   * Remembers that the given packed position was rejected, typically because it failed the filters,
+   * so it is not validated again when another node reaches it.
+   */
+  public void markRejected(long position) {
+    rejected.add(position);
+  }
+
+  /**
+   * Returns the map in which the search remembers the passability of blocks by their packed
+   * position, apart from the positions it rejects as moves, like the blocks its jumps or lines of
+   * sight pass. The values are up to the search.
+   */
+  public LongIntHashMap getKnownPassability() {
+    return knownPassability;
+  }
+
+  /**
+   * Returns an array with two entries per cell of the cube around a node, in which the search keeps
+   * its verdicts on the cells around the node it expands. It is shared by all expansions of the
+   * search, so the search has to reset it for every expansion. The values are up to the search.
+   */
+  public byte[] getCellVerdicts() {
+    return cellVerdicts;
+  }
+
+  /**
+   * Whether the store holds the backward search of a bidirectional search. Its nodes lead from the
+   * node it started from, which is the target of the path, towards the start of the path, so the
+   * moves between them have to be validated in the opposite direction.
+   */
+  public boolean isReversed() {
+    return reversed;
+  }
+
+  /** Marks the store as holding the backward search of a bidirectional search, until cleared. */
+  public void markReversed() {
+    reversed = true;
+  }
+
+  /**
+   * Materializes the position of the given node as a {@link PathPosition}. This allocates, so it
+   * should only be used where an API demands a {@link PathPosition}.
+   */
+  public PathPosition toPathPosition(int node) {
+    return new PathPosition(pathEnvironment, getX(node), getY(node), getZ(node));
+  }
+
+  public PathEnvironment getPathEnvironment() {
+    return pathEnvironment;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Returns the number of nodes the store can hold before its arrays have to grow. */
+  public int capacity() {
+    return positions.length;
+  }
+
+  /**
+   * Removes all nodes, rejected positions and known passability while keeping the arrays, and
+   * unmarks the store as reversed.
+   */
+  public void clear() {
+    index.clear();
+    rejected.clear();
+    if (!knownPassability.isEmpty()) knownPassability.clear();
+    size = 0;
+    reversed = false;
+  }
+
+  /**
+   * Removes all nodes and rejected positions while keeping the allocated arrays, and hands the
+   * store over to a search in the given environment.
+   */
+  public void reset(PathEnvironment pathEnvironment) {
+    clear();
+    this.pathEnvironment = pathEnvironment;
+  }
+
+  private void grow() {
+    int capacity = positions.length << 1;
+    positions = Arrays.copyOf(positions, capacity);
+    gCosts = Arrays.copyOf(gCosts, capacity);
+    fCosts = Arrays.copyOf(fCosts, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    depths = Arrays.copyOf(depths, capacity);
+    closed = Arrays.copyOf(closed, capacity);
+    inconsistent = Arrays.copyOf(inconsistent, capacity);
+  }
+
+  private static String describe(long position) {
+    return "("
+        + PackedPosition.unpackX(position)
+        + ", "
+        + PackedPosition.unpackY(position)
+        + ", "
+        + PackedPosition.unpackZ(position)
+        + ")";
+  }
+}
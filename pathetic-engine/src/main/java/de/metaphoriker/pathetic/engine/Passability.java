@@ -0,0 +1,23 @@
+package de.metaphoriker.pathetic.engine;
+
+/** Tells whether a block can be part of a path. */
+@FunctionalInterface
+public interface Passability {
+
+  boolean isPassable(int x, int y, int z);
+
+  /**
+   * Whether a single move between two neighbouring blocks is possible. This follows the rules of
+   * the A* search: the target block has to be passable, a move that is diagonal in the horizontal
+   * plane needs at least one of the two blocks it cuts the corner of to be passable and must not
+   * change the height at the same time. The rule is symmetric, so every move can be taken in both
+   * directions.
+   */
+  default boolean canMove(int x, int y, int z, int dx, int dy, int dz) {
+    if (!isPassable(x + dx, y + dy, z + dz)) return false;
+    if (dx == 0 || dz == 0) return true;
+    if (dy != 0) return false;
+
+    return isPassable(x + dx, y, z) || isPassable(x, y, z + dz);
+  }
+}
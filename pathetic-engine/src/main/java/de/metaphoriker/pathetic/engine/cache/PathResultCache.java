@@ -0,0 +1,242 @@
+package de.metaphoriker.pathetic.engine.cache;
+
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidationListener;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A bounded cache of search results, keyed by the start block, the target block, their environment
+ * and a fingerprint of the filters the search was made with. Once full, the least recently used
+ * result is evicted.
+ *
+ * <p>Every result remembers the chunks its path passes through, and is evicted as soon as one of
+ * them is reported through {@link ChunkInvalidations}. A change outside of those chunks may open up
+ * a cheaper path, which the cache does not notice. Results that did not find the target are only
+ * kept for a short time, since a change anywhere may connect them.
+ *
+ * <p>A search may read a chunk before it is invalidated and finish after it, so every result is put
+ * along with the {@link #getEpoch() epoch} its search started at. Results whose path passes through
+ * a chunk that has been invalidated since are not cached.
+ */
+public class PathResultCache implements ChunkInvalidationListener {
+
+  private static final int CHUNK_SHIFT = 4;
+
+  /** The number of invalidations remembered at most before they are forgotten all at once. */
+  private static final int MAX_INVALIDATIONS = 4096;
+
+  private final int maxSize;
+  private final long failureTtlMillis;
+
+  private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The keys of the entries whose path passes through a chunk, per environment and chunk. */
+  private final Map<UUID, Map<Long, Set<QueryKey>>> keysByChunk = new HashMap<>();
+
+  /** The epoch of the latest invalidation of every chunk, per environment and chunk. */
+  private final Map<UUID, Map<Long, Long>> invalidationEpochs = new HashMap<>();
+
+  private int invalidations;
+
+  /** The number of invalidations so far. */
+  private long epoch;
+
+  /** The epoch the invalidations were last forgotten at, earlier searches are not cached. */
+  private long forgottenEpoch;
+
+  /**
+   * @param maxSize the number of results the cache holds at most
+   * @param failureTtlMillis the time in milliseconds results that did not find the target are kept
+   */
+  public PathResultCache(int maxSize, long failureTtlMillis) {
+    if (maxSize < 1) throw new IllegalArgumentException("Size must be positive: " + maxSize);
+
+    this.maxSize = maxSize;
+    this.failureTtlMillis = failureTtlMillis;
+
+    ChunkInvalidations.register(this);
+  }
+
+  /**
+   * Looks up the result of an earlier search between the blocks of the given positions. The path
+   * of the returned result starts and ends at the given positions.
+   *
+   * @return the cached result, or {@code null} if there is none
+   */
+  public synchronized PathfinderResult get(
+      PathPosition start, PathPosition target, Object filterFingerprint) {
+    QueryKey key = new QueryKey(start, target, filterFingerprint);
+    Entry entry = entries.get(key);
+    if (entry == null) return null;
+
+    if (entry.isExpired()) {
+      remove(key);
+      return null;
+    }
+
+    PathfinderResult result = entry.result;
+    return new PathfinderResultImpl(
+        result.getPathState(), new PathImpl(start, target, result.getPath()));
+  }
+
+  /** Returns the current epoch, which a search has to be started at to put its result. */
+  public synchronized long getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Caches the result of a search. Aborted searches and searches that ran past their deadline are
+   * not cached, since their result depends on when they were stopped. Neither are searches that
+   * may have read a chunk of their path before it was invalidated.
+   *
+   * @param searchEpoch the epoch the search was started at
+   */
+  public synchronized void put(
+      PathPosition start,
+      PathPosition target,
+      Object filterFingerprint,
+      PathfinderResult result,
+      long searchEpoch) {
+    if (result.getPathState() == PathState.ABORTED
+        || result.getPathState() == PathState.DEADLINE_EXCEEDED) return;
+
+    QueryKey key = new QueryKey(start, target, filterFingerprint);
+    remove(key);
+
+    long[] resultChunks = collectChunks(result);
+    if (isInvalidatedSince(key.getEnvironment().getUuid(), resultChunks, searchEpoch)) return;
+
+    long expirationTime =
+        result.getPathState() == PathState.FOUND
+            ? Long.MAX_VALUE
+            : System.currentTimeMillis() + failureTtlMillis;
+    Entry entry = new Entry(result, expirationTime, resultChunks);
+    entries.put(key, entry);
+
+    Map<Long, Set<QueryKey>> chunks =
+        keysByChunk.computeIfAbsent(key.getEnvironment().getUuid(), uuid -> new HashMap<>());
+    for (long chunk : entry.chunks) chunks.computeIfAbsent(chunk, c -> new HashSet<>()).add(key);
+
+    evictLeastRecentlyUsed();
+  }
+
+  /** Removes all cached results. */
+  public synchronized void clear() {
+    entries.clear();
+    keysByChunk.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized void onChunkInvalidated(UUID environmentUuid, int chunkX, int chunkZ) {
+    rememberInvalidation(environmentUuid, chunkKey(chunkX, chunkZ));
+
+    Map<Long, Set<QueryKey>> chunks = keysByChunk.get(environmentUuid);
+    if (chunks == null) return;
+
+    Set<QueryKey> keys = chunks.get(chunkKey(chunkX, chunkZ));
+    if (keys == null) return;
+
+    for (QueryKey key : keys.toArray(new QueryKey[0])) remove(key);
+  }
+
+  /**
+   * Remembers the epoch of an invalidation. Once too many are remembered, they are all forgotten,
+   * and the results of the searches started before are no longer cached.
+   */
+  private void rememberInvalidation(UUID environmentUuid, long chunk) {
+    epoch++;
+    if (++invalidations > MAX_INVALIDATIONS) {
+      invalidationEpochs.clear();
+      invalidations = 0;
+      forgottenEpoch = epoch;
+      return;
+    }
+
+    invalidationEpochs.computeIfAbsent(environmentUuid, uuid -> new HashMap<>()).put(chunk, epoch);
+  }
+
+  private boolean isInvalidatedSince(UUID environmentUuid, long[] chunks, long searchEpoch) {
+    if (searchEpoch < forgottenEpoch) return true;
+
+    Map<Long, Long> epochs = invalidationEpochs.get(environmentUuid);
+    if (epochs == null) return false;
+
+    for (long chunk : chunks) {
+      Long invalidationEpoch = epochs.get(chunk);
+      if (invalidationEpoch != null && invalidationEpoch > searchEpoch) return true;
+    }
+    return false;
+  }
+
+  private void evictLeastRecentlyUsed() {
+    while (entries.size() > maxSize) remove(entries.keySet().iterator().next());
+  }
+
+  private void remove(QueryKey key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) unindex(key, entry);
+  }
+
+  private void unindex(QueryKey key, Entry entry) {
+    UUID environmentUuid = key.getEnvironment().getUuid();
+    Map<Long, Set<QueryKey>> chunks = keysByChunk.get(environmentUuid);
+    if (chunks == null) return;
+
+    for (long chunk : entry.chunks) {
+      Set<QueryKey> keys = chunks.get(chunk);
+      if (keys == null) continue;
+
+      keys.remove(key);
+      if (keys.isEmpty()) chunks.remove(chunk);
+    }
+
+    if (chunks.isEmpty()) keysByChunk.remove(environmentUuid);
+  }
+
+  private static long[] collectChunks(PathfinderResult result) {
+    Set<Long> chunks = new HashSet<>();
+    for (PathPosition position : result.getPath())
+      chunks.add(
+          chunkKey(position.getFlooredX() >> CHUNK_SHIFT, position.getFlooredZ() >> CHUNK_SHIFT));
+
+    long[] packed = new long[chunks.size()];
+    int i = 0;
+    for (long chunk : chunks) packed[i++] = chunk;
+    return packed;
+  }
+
+  private static long chunkKey(int chunkX, int chunkZ) {
+    return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+  }
+
+  private static final class Entry {
+
+    private final PathfinderResult result;
+    private final long expirationTime;
+    private final long[] chunks;
+
+    private Entry(PathfinderResult result, long expirationTime, long[] chunks) {
+      this.result = result;
+      this.expirationTime = expirationTime;
+      this.chunks = chunks;
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() > expirationTime;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package de.metaphoriker.pathetic.engine.cache;
+
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.Objects;
+
+/**
+ * Identifies equivalent path queries: those between the same start and target block in the same
+ * environment, made with filters of the same fingerprint.
+ */
+final class QueryKey {
+
+  private final PathEnvironment environment;
+  private final long start;
+  private final long target;
+  private final Object filterFingerprint;
+
+  QueryKey(PathPosition start, PathPosition target, Object filterFingerprint) {
+    this.environment = start.getPathEnvironment();
+    this.start = PackedPosition.pack(start);
+    this.target = PackedPosition.pack(target);
+    this.filterFingerprint = filterFingerprint;
+  }
+
+  PathEnvironment getEnvironment() {
+    return environment;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof QueryKey)) return false;
+
+    QueryKey other = (QueryKey) o;
+    return start == other.start
+        && target == other.target
+        && environment.equals(other.environment)
+        && filterFingerprint.equals(other.filterFingerprint);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(environment, start, target, filterFingerprint);
+  }
+}
@@ -0,0 +1,141 @@
+package de.metaphoriker.pathetic.engine.cache;
+
+import de.metaphoriker.pathetic.api.pathing.PathPriority;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets equivalent path queries that are made while one of them is still being searched share that
+ * search. Queries are equivalent if they run between the same start and target block in the same
+ * environment, with filters of the same fingerprint, at the same {@link PathPriority}. Queries of
+ * different priorities never share a search, so no query waits for a search that is queued at a
+ * lower priority than its own.
+ *
+ * <p>Every query gets a stage of its own, whose path starts and ends at the positions of that
+ * query. Cancelling the stage only detaches its query. The shared search is cancelled once the
+ * stages of all its queries are.
+ */
+public class RequestCoalescer {
+
+  /** The shared searches of every priority, by {@link PathPriority} ordinal. */
+  private final List<ConcurrentHashMap<QueryKey, InFlight>> inFlightByPriority =
+      new ArrayList<>();
+
+  public RequestCoalescer() {
+    for (int i = 0; i < PathPriority.values().length; i++)
+      inFlightByPriority.add(new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Joins the search of an equivalent query that is still running, or starts a new one.
+   *
+   * @param priority the priority the search of the query is started with
+   * @param search starts the search, if there is none to join
+   * @return the stage of this query
+   */
+  public CompletionStage<PathfinderResult> coalesce(
+      PathPosition start,
+      PathPosition target,
+      Object filterFingerprint,
+      PathPriority priority,
+      Supplier<CompletionStage<PathfinderResult>> search) {
+    QueryKey key = new QueryKey(start, target, filterFingerprint);
+    ConcurrentHashMap<QueryKey, InFlight> inFlight = inFlightByPriority.get(priority.ordinal());
+
+    while (true) {
+      InFlight existing = inFlight.get(key);
+      if (existing != null) {
+        if (existing.join()) return existing.share(start, target);
+
+        inFlight.remove(key, existing);
+        continue;
+      }
+
+      InFlight created = new InFlight();
+      if (inFlight.putIfAbsent(key, created) != null) continue;
+
+      CompletableFuture<PathfinderResult> searchResult;
+      try {
+        searchResult = search.get().toCompletableFuture();
+      } catch (RuntimeException e) {
+        inFlight.remove(key, created);
+        throw e;
+      }
+
+      created.start(searchResult);
+      searchResult.whenComplete((result, throwable) -> inFlight.remove(key, created));
+      return created.share(start, target);
+    }
+  }
+
+  /** Returns the number of searches that are currently shared. */
+  public int size() {
+    int size = 0;
+    for (ConcurrentHashMap<QueryKey, InFlight> inFlight : inFlightByPriority)
+      size += inFlight.size();
+    return size;
+  }
+
+  /** A running search and the number of queries waiting for it. */
+  private static final class InFlight {
+
+    private final CompletableFuture<PathfinderResult> shared = new CompletableFuture<>();
+
+    private CompletableFuture<PathfinderResult> search;
+    private int sharers = 1;
+    private boolean abandoned;
+
+    private synchronized void start(CompletableFuture<PathfinderResult> search) {
+      this.search = search;
+      search.whenComplete(
+          (result, throwable) -> {
+            if (throwable != null) shared.completeExceptionally(throwable);
+            else shared.complete(result);
+          });
+
+      if (abandoned) search.cancel(false);
+    }
+
+    /**
+     * Adds a query to the search.
+     *
+     * @return whether the search can be joined, which is not the case once it was abandoned
+     */
+    private synchronized boolean join() {
+      if (abandoned) return false;
+
+      sharers++;
+      return true;
+    }
+
+    private synchronized void leave() {
+      if (--sharers > 0) return;
+
+      abandoned = true;
+      if (search != null) search.cancel(false);
+    }
+
+    private CompletableFuture<PathfinderResult> share(PathPosition start, PathPosition target) {
+      CompletableFuture<PathfinderResult> result =
+          shared.thenApply(
+              sharedResult ->
+                  new PathfinderResultImpl(
+                      sharedResult.getPathState(),
+                      new PathImpl(start, target, sharedResult.getPath())));
+
+      result.whenComplete(
+          (value, throwable) -> {
+            if (result.isCancelled()) leave();
+          });
+      return result;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package de.metaphoriker.pathetic.engine.factory;
+
+import de.metaphoriker.pathetic.api.factory.PathfinderFactory;
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.engine.pathfinder.JumpPointPathfinder;
+
+public class JumpPointPathfinderFactory implements PathfinderFactory {
+
+  /**
+   * Creates a new {@link JumpPointPathfinder} instance with the given configuration. The {@link
+   * NavigationPointProvider} is obtained from the provided {@link PathfinderConfiguration}.
+   *
+   * @param configuration The configuration for the pathfinder, including the navigation point
+   *     provider.
+   * @return A new, initialized {@link JumpPointPathfinder} instance.
+   */
+  @Override
+  public Pathfinder createPathfinder(PathfinderConfiguration configuration) {
+    return new JumpPointPathfinder(configuration.getProvider(), configuration);
+  }
+}
@@ -0,0 +1,384 @@
+package de.metaphoriker.pathetic.engine.flowfield;
+
+import de.metaphoriker.pathetic.api.pathing.FlowField;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidationListener;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.util.DaryIndexedHeap;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link FlowField} computed by a Dijkstra search running backwards from the target over a cubic
+ * region around it. Every block of the region stores a single byte, holding the direction of its
+ * next step and whether it is passable, next to the cost of its path to the target.
+ *
+ * <p>Once a chunk is reported through {@link ChunkInvalidations}, the blocks of the region within
+ * it whose passability was looked at are checked again. Every block whose path leads through a
+ * block that changed, or through one of the neighbours of such a block, is reset, and the search
+ * continues from the blocks around the reset ones.
+ *
+ * <p>Moves follow the rules of {@link Passability#canMove}, and every move costs its euclidean
+ * length.
+ */
+public class DijkstraFlowField implements FlowField, ChunkInvalidationListener {
+
+  private static final int CHUNK_SIZE = 16;
+
+  /** The largest radius, whose region already takes about 85 megabytes. */
+  private static final int MAX_RADIUS = 128;
+
+  private static final float UNREACHED = Float.POSITIVE_INFINITY;
+
+  /** The bits of a cell holding the index of the neighbour its next step leads to. */
+  private static final int DIRECTION_MASK = 0x1F;
+
+  /** The direction of cells that have no next step, which are the target and unreached cells. */
+  private static final int NO_DIRECTION = DIRECTION_MASK;
+
+  private static final int KNOWN = 0x20;
+  private static final int PASSABLE = 0x40;
+
+  private static final int[][] NEIGHBOURS = new int[26][];
+  private static final float[] NEIGHBOUR_COSTS = new float[26];
+
+  static {
+    int neighbour = 0;
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dz = -1; dz <= 1; dz++) {
+          if (dx == 0 && dy == 0 && dz == 0) continue;
+
+          NEIGHBOURS[neighbour] = new int[] {dx, dy, dz};
+          NEIGHBOUR_COSTS[neighbour++] = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+      }
+    }
+  }
+
+  private final PathPosition target;
+  private final Passability passability;
+  private final Passability rememberedPassability = this::isPassable;
+
+  private final int minX;
+  private final int minY;
+  private final int minZ;
+  private final int size;
+  private final int targetCell;
+
+  /** The next step and the passability of every cell. */
+  private final byte[] cells;
+
+  /** The cost of the path from every cell to the target. */
+  private final float[] costs;
+
+  private final IndexedHeap cellQueue = new DaryIndexedHeap(4);
+  private final Queue<Long> invalidatedChunks = new ConcurrentLinkedQueue<>();
+
+  private boolean computed;
+
+  /**
+   * @param target the target every step of this field leads to
+   * @param radius the distance on each axis the region extends around the target
+   * @param passability decides which blocks are passable, before they are remembered
+   * @throws IllegalArgumentException if the radius is not between 1 and 128
+   */
+  public DijkstraFlowField(PathPosition target, int radius, Passability passability) {
+    if (radius < 1 || radius > MAX_RADIUS)
+      throw new IllegalArgumentException(
+          "Radius must be between 1 and " + MAX_RADIUS + ": " + radius);
+
+    PathPosition flooredTarget = target.floor();
+    this.target = target;
+    this.passability = passability;
+    this.minX = flooredTarget.getFlooredX() - radius;
+    this.minY = flooredTarget.getFlooredY() - radius;
+    this.minZ = flooredTarget.getFlooredZ() - radius;
+    this.size = 2 * radius + 1;
+    this.targetCell = cellOf(radius, radius, radius);
+    this.cells = new byte[size * size * size];
+    this.costs = new float[cells.length];
+
+    ChunkInvalidations.register(this);
+  }
+
+  @Override
+  public PathPosition getTarget() {
+    return target;
+  }
+
+  @Override
+  public Optional<PathPosition> nextStep(PathPosition position) {
+    PathEnvironment environment = target.getPathEnvironment();
+    if (!position.getPathEnvironment().equals(environment)) return Optional.empty();
+
+    int x = position.getFlooredX();
+    int y = position.getFlooredY();
+    int z = position.getFlooredZ();
+    if (!isInRegion(x, y, z)) return Optional.empty();
+
+    if (!computed) compute();
+    else repairInvalidatedChunks();
+
+    int cell = cellOf(x - minX, y - minY, z - minZ);
+    if (cell == targetCell) return Optional.of(target.floor());
+
+    int direction = cells[cell] & DIRECTION_MASK;
+    if (direction == NO_DIRECTION) return Optional.empty();
+
+    int[] neighbour = NEIGHBOURS[direction];
+    return Optional.of(
+        new PathPosition(environment, x + neighbour[0], y + neighbour[1], z + neighbour[2]));
+  }
+
+  @Override
+  public void onChunkInvalidated(UUID environmentUuid, int chunkX, int chunkZ) {
+    if (environmentUuid.equals(target.getPathEnvironment().getUuid()))
+      invalidatedChunks.add(chunkKey(chunkX, chunkZ));
+  }
+
+  @Override
+  public void close() {
+    ChunkInvalidations.unregister(this);
+
+    invalidatedChunks.clear();
+    cellQueue.clear();
+    computed = false;
+  }
+
+  /** Computes the whole field from scratch. */
+  private void compute() {
+    invalidatedChunks.clear();
+    Arrays.fill(cells, (byte) NO_DIRECTION);
+    Arrays.fill(costs, UNREACHED);
+
+    computed = true;
+    if (!isPassable(cellX(targetCell) + minX, cellY(targetCell) + minY, cellZ(targetCell) + minZ))
+      return;
+
+    costs[targetCell] = 0;
+    cellQueue.insert(targetCell, 0);
+    propagate();
+  }
+
+  /**
+   * Checks the remembered cells of every invalidated chunk again, and resets and recomputes the
+   * cells whose path depended on one that changed.
+   */
+  private void repairInvalidatedChunks() {
+    if (invalidatedChunks.isEmpty()) return;
+
+    boolean[] dirty = new boolean[cells.length];
+    boolean anyDirty = false;
+
+    Long chunk;
+    while ((chunk = invalidatedChunks.poll()) != null) {
+      int chunkX = (int) (chunk >> 32);
+      int chunkZ = (int) (long) chunk;
+
+      int fromX = Math.max(chunkX * CHUNK_SIZE - minX, 0);
+      int toX = Math.min(chunkX * CHUNK_SIZE + CHUNK_SIZE - minX, size);
+      int fromZ = Math.max(chunkZ * CHUNK_SIZE - minZ, 0);
+      int toZ = Math.min(chunkZ * CHUNK_SIZE + CHUNK_SIZE - minZ, size);
+
+      for (int x = fromX; x < toX; x++) {
+        for (int y = 0; y < size; y++) {
+          for (int z = fromZ; z < toZ; z++) {
+            int cell = cellOf(x, y, z);
+            if ((cells[cell] & KNOWN) == 0) continue;
+
+            boolean wasPassable = (cells[cell] & PASSABLE) != 0;
+            cells[cell] &= ~(KNOWN | PASSABLE);
+            if (isPassable(x + minX, y + minY, z + minZ) == wasPassable) continue;
+
+            if (cell == targetCell) {
+              compute();
+              return;
+            }
+
+            markDirty(dirty, x, y, z);
+            anyDirty = true;
+          }
+        }
+      }
+    }
+
+    if (anyDirty) repair(dirty);
+  }
+
+  /** Marks the cell and its neighbours, whose moves may lead through or past the cell. */
+  private void markDirty(boolean[] dirty, int x, int y, int z) {
+    dirty[cellOf(x, y, z)] = true;
+    for (int[] neighbour : NEIGHBOURS) {
+      int neighbourX = x + neighbour[0];
+      int neighbourY = y + neighbour[1];
+      int neighbourZ = z + neighbour[2];
+      if (isInRegionCell(neighbourX, neighbourY, neighbourZ))
+        dirty[cellOf(neighbourX, neighbourY, neighbourZ)] = true;
+    }
+    dirty[targetCell] = false;
+  }
+
+  /**
+   * Resets every cell whose path leads through a dirty cell and continues the search from the cells
+   * around them, which still have valid costs.
+   */
+  private void repair(boolean[] dirty) {
+    boolean[] reset = collectResetCells(dirty);
+
+    for (int cell = 0; cell < cells.length; cell++) {
+      if (!reset[cell]) continue;
+
+      cells[cell] = (byte) ((cells[cell] & ~DIRECTION_MASK) | NO_DIRECTION);
+      costs[cell] = UNREACHED;
+    }
+
+    for (int cell = 0; cell < cells.length; cell++) {
+      if (!reset[cell]) continue;
+
+      int x = cellX(cell);
+      int y = cellY(cell);
+      int z = cellZ(cell);
+      for (int[] neighbour : NEIGHBOURS) {
+        int neighbourX = x + neighbour[0];
+        int neighbourY = y + neighbour[1];
+        int neighbourZ = z + neighbour[2];
+        if (!isInRegionCell(neighbourX, neighbourY, neighbourZ)) continue;
+
+        int neighbourCell = cellOf(neighbourX, neighbourY, neighbourZ);
+        if (costs[neighbourCell] == UNREACHED || cellQueue.contains(neighbourCell)) continue;
+
+        cellQueue.insert(neighbourCell, costs[neighbourCell]);
+      }
+    }
+
+    propagate();
+  }
+
+  /**
+   * Collects the cells whose chain of next steps reaches a dirty cell. Every chain is followed only
+   * until it reaches a cell whose outcome is already known.
+   */
+  private boolean[] collectResetCells(boolean[] dirty) {
+    boolean[] reset = new boolean[cells.length];
+    boolean[] resolved = new boolean[cells.length];
+    int[] chain = new int[64];
+
+    for (int cell = 0; cell < cells.length; cell++) {
+      int length = 0;
+      int current = cell;
+      boolean affected = false;
+
+      while (!resolved[current]) {
+        if (length == chain.length) chain = Arrays.copyOf(chain, length << 1);
+        chain[length++] = current;
+
+        if (dirty[current]) {
+          affected = true;
+          break;
+        }
+
+        int direction = cells[current] & DIRECTION_MASK;
+        if (direction == NO_DIRECTION) break;
+
+        int[] neighbour = NEIGHBOURS[direction];
+        current =
+            cellOf(
+                cellX(current) + neighbour[0],
+                cellY(current) + neighbour[1],
+                cellZ(current) + neighbour[2]);
+      }
+
+      if (resolved[current]) affected = reset[current];
+
+      for (int i = 0; i < length; i++) {
+        resolved[chain[i]] = true;
+        reset[chain[i]] = affected;
+      }
+    }
+
+    return reset;
+  }
+
+  /**
+   * Settles the queued cells by their cost and lowers the cost of every cell that has a cheaper
+   * move into a settled one.
+   */
+  private void propagate() {
+    while (!cellQueue.isEmpty()) {
+      int cell = cellQueue.deleteMin();
+      int x = cellX(cell) + minX;
+      int y = cellY(cell) + minY;
+      int z = cellZ(cell) + minZ;
+
+      for (int direction = 0; direction < NEIGHBOURS.length; direction++) {
+        int[] neighbour = NEIGHBOURS[direction];
+        int fromX = x - neighbour[0];
+        int fromY = y - neighbour[1];
+        int fromZ = z - neighbour[2];
+        if (!isInRegion(fromX, fromY, fromZ)) continue;
+
+        int fromCell = cellOf(fromX - minX, fromY - minY, fromZ - minZ);
+        float cost = costs[cell] + NEIGHBOUR_COSTS[direction];
+        if (cost >= costs[fromCell]) continue;
+
+        if (!isPassable(fromX, fromY, fromZ)
+            || !rememberedPassability.canMove(
+                fromX, fromY, fromZ, neighbour[0], neighbour[1], neighbour[2])) continue;
+
+        costs[fromCell] = cost;
+        cells[fromCell] = (byte) ((cells[fromCell] & ~DIRECTION_MASK) | direction);
+
+        if (cellQueue.contains(fromCell)) cellQueue.decreaseKey(fromCell, cost);
+        else cellQueue.insert(fromCell, cost);
+      }
+    }
+  }
+
+  /** Looks up the passability of a block, remembering it if the block lies within the region. */
+  private boolean isPassable(int x, int y, int z) {
+    if (!isInRegion(x, y, z)) return passability.isPassable(x, y, z);
+
+    int cell = cellOf(x - minX, y - minY, z - minZ);
+    if ((cells[cell] & KNOWN) != 0) return (cells[cell] & PASSABLE) != 0;
+
+    boolean passable = passability.isPassable(x, y, z);
+    cells[cell] |= passable ? KNOWN | PASSABLE : KNOWN;
+    return passable;
+  }
+
+  private boolean isInRegion(int x, int y, int z) {
+    return isInRegionCell(x - minX, y - minY, z - minZ);
+  }
+
+  private boolean isInRegionCell(int x, int y, int z) {
+    return x >= 0 && x < size && y >= 0 && y < size && z >= 0 && z < size;
+  }
+
+  /** Returns the index of a cell from its coordinates relative to the corner of the region. */
+  private int cellOf(int x, int y, int z) {
+    return (x * size + y) * size + z;
+  }
+
+  private int cellX(int cell) {
+    return cell / (size * size);
+  }
+
+  private int cellY(int cell) {
+    return cell / size % size;
+  }
+
+  private int cellZ(int cell) {
+    return cell % size;
+  }
+
+  private static long chunkKey(int chunkX, int chunkZ) {
+    return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+  }
+}
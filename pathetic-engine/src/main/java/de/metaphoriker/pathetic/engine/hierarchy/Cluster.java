@@ -0,0 +1,388 @@
+package de.metaphoriker.pathetic.engine.hierarchy;
+
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.util.DaryIndexedHeap;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cubic, chunk-section sized region of an environment as seen by the abstract graph. A cluster
+ * knows its entrances, the blocks through which paths may enter or leave it, the blocks on the
+ * other side of its border each entrance connects to, and the distances between its entrances when
+ * staying inside the cluster.
+ *
+ * <p>Entrances are derived from the transitions between two neighbouring clusters. All blocks of
+ * the lower cluster that can move into the higher one are grouped into connected runs, and every
+ * run contributes a single transition. Both clusters compute the transitions of their shared
+ * border the same way, so they agree on them without sharing any state.
+ *
+ * <p>A cluster is immutable once built.
+ */
+final class Cluster {
+
+  static final int SHIFT = 4;
+  static final int SIZE = 1 << SHIFT;
+
+  private static final int VOLUME = SIZE * SIZE * SIZE;
+  private static final int MASK = SIZE - 1;
+
+  private static final long NO_MOVE = Long.MIN_VALUE;
+
+  private final int clusterX;
+  private final int clusterY;
+  private final int clusterZ;
+
+  /** One bit per block of the cluster, set if the block is passable. */
+  private final long[] passable;
+
+  /** The packed positions of all entrances. */
+  private final long[] entrances;
+
+  private final LongIntHashMap entranceIndex;
+
+  /** For every entrance, the packed positions of the blocks in other clusters it connects to. */
+  private final long[][] partners;
+
+  /** The distances between all entrances, {@code Double.POSITIVE_INFINITY} if unconnected. */
+  private final double[][] distances;
+
+  private Cluster(
+      int clusterX,
+      int clusterY,
+      int clusterZ,
+      long[] passable,
+      long[] entrances,
+      long[][] partners,
+      double[][] distances) {
+    this.clusterX = clusterX;
+    this.clusterY = clusterY;
+    this.clusterZ = clusterZ;
+    this.passable = passable;
+    this.entrances = entrances;
+    this.partners = partners;
+    this.distances = distances;
+    this.entranceIndex = new LongIntHashMap(entrances.length);
+    for (int i = 0; i < entrances.length; i++) entranceIndex.put(entrances[i], i);
+  }
+
+  /** Builds the cluster at the given cluster coordinates. */
+  static Cluster build(int clusterX, int clusterY, int clusterZ, Passability passability) {
+    long[] passable = new long[VOLUME >> 6];
+    for (int local = 0; local < VOLUME; local++) {
+      if (passability.isPassable(
+          (clusterX << SHIFT) + localX(local),
+          (clusterY << SHIFT) + localY(local),
+          (clusterZ << SHIFT) + localZ(local))) passable[local >> 6] |= 1L << local;
+    }
+
+    List<Long> entrances = new ArrayList<>();
+    List<List<Long>> partners = new ArrayList<>();
+    LongIntHashMap entranceIndex = new LongIntHashMap();
+
+    for (int dx = -1; dx <= 1; dx++)
+      for (int dy = -1; dy <= 1; dy++)
+        for (int dz = -1; dz <= 1; dz++) {
+          if (dx == 0 && dy == 0 && dz == 0) continue;
+
+          int neighbourX = clusterX + dx;
+          int neighbourY = clusterY + dy;
+          int neighbourZ = clusterZ + dz;
+          boolean isLower =
+              isLower(clusterX, clusterY, clusterZ, neighbourX, neighbourY, neighbourZ);
+
+          long[][] transitions =
+              isLower
+                  ? transitions(
+                      clusterX, clusterY, clusterZ, neighbourX, neighbourY, neighbourZ, passability)
+                  : transitions(
+                      neighbourX,
+                      neighbourY,
+                      neighbourZ,
+                      clusterX,
+                      clusterY,
+                      clusterZ,
+                      passability);
+
+          for (long[] transition : transitions) {
+            long entrance = isLower ? transition[0] : transition[1];
+            long partner = isLower ? transition[1] : transition[0];
+
+            int index = entranceIndex.get(entrance);
+            if (index == LongIntHashMap.NO_VALUE) {
+              index = entrances.size();
+              entranceIndex.put(entrance, index);
+              entrances.add(entrance);
+              partners.add(new ArrayList<>());
+            }
+            partners.get(index).add(partner);
+          }
+        }
+
+    long[] entranceArray = new long[entrances.size()];
+    long[][] partnerArray = new long[entrances.size()][];
+    for (int i = 0; i < entranceArray.length; i++) {
+      entranceArray[i] = entrances.get(i);
+      partnerArray[i] = partners.get(i).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    Cluster cluster =
+        new Cluster(
+            clusterX,
+            clusterY,
+            clusterZ,
+            passable,
+            entranceArray,
+            partnerArray,
+            new double[entranceArray.length][]);
+
+    for (int i = 0; i < entranceArray.length; i++)
+      cluster.distances[i] = cluster.entranceDistances(entranceArray[i]);
+
+    return cluster;
+  }
+
+  int getClusterX() {
+    return clusterX;
+  }
+
+  int getClusterY() {
+    return clusterY;
+  }
+
+  int getClusterZ() {
+    return clusterZ;
+  }
+
+  int getEntranceCount() {
+    return entrances.length;
+  }
+
+  long getEntrance(int index) {
+    return entrances[index];
+  }
+
+  /** Returns the index of the entrance at the given packed position or a negative value. */
+  int indexOfEntrance(long position) {
+    return entranceIndex.get(position);
+  }
+
+  long[] getPartners(int index) {
+    return partners[index];
+  }
+
+  double getDistance(int from, int to) {
+    return distances[from][to];
+  }
+
+  /** Whether the packed position lies inside this cluster. */
+  boolean contains(long position) {
+    return clusterOf(PackedPosition.unpackX(position)) == clusterX
+        && clusterOf(PackedPosition.unpackY(position)) == clusterY
+        && clusterOf(PackedPosition.unpackZ(position)) == clusterZ;
+  }
+
+  /**
+   * Calculates the distances from the given block of the cluster to all entrances, moving only
+   * through the cluster. The block itself does not need to be passable.
+   */
+  double[] entranceDistances(long position) {
+    double[] blockDistances = distancesFrom(localIndex(position));
+
+    double[] entranceDistances = new double[entrances.length];
+    for (int i = 0; i < entrances.length; i++)
+      entranceDistances[i] = blockDistances[localIndex(entrances[i])];
+    return entranceDistances;
+  }
+
+  /** Dijkstra over the blocks of the cluster, starting at the given local index. */
+  private double[] distancesFrom(int source) {
+    double[] blockDistances = new double[VOLUME];
+    Arrays.fill(blockDistances, Double.POSITIVE_INFINITY);
+    blockDistances[source] = 0;
+
+    Passability clusterPassability = this::isPassableInside;
+    IndexedHeap queue = new DaryIndexedHeap(4, 256);
+    queue.insert(source, 0);
+
+    while (!queue.isEmpty()) {
+      int current = queue.deleteMin();
+      int x = (clusterX << SHIFT) + localX(current);
+      int y = (clusterY << SHIFT) + localY(current);
+      int z = (clusterZ << SHIFT) + localZ(current);
+
+      for (int dx = -1; dx <= 1; dx++)
+        for (int dy = -1; dy <= 1; dy++)
+          for (int dz = -1; dz <= 1; dz++) {
+            if (dx == 0 && dy == 0 && dz == 0) continue;
+            if (clusterOf(x + dx) != clusterX
+                || clusterOf(y + dy) != clusterY
+                || clusterOf(z + dz) != clusterZ) continue;
+            if (!clusterPassability.canMove(x, y, z, dx, dy, dz)) continue;
+
+            int next = localIndex(x + dx, y + dy, z + dz);
+            double distance =
+                blockDistances[current] + Heuristic.movementCost(x, y, z, x + dx, y + dy, z + dz);
+            if (distance >= blockDistances[next]) continue;
+
+            if (queue.contains(next)) queue.decreaseKey(next, distance);
+            else queue.insert(next, distance);
+            blockDistances[next] = distance;
+          }
+    }
+
+    return blockDistances;
+  }
+
+  /** Passability of blocks of this cluster from the bitset, everything else is not passable. */
+  private boolean isPassableInside(int x, int y, int z) {
+    if (clusterOf(x) != clusterX || clusterOf(y) != clusterY || clusterOf(z) != clusterZ)
+      return false;
+
+    int local = localIndex(x, y, z);
+    return (passable[local >> 6] & 1L << local) != 0;
+  }
+
+  /**
+   * Collects the transitions from the lower to the higher of two neighbouring clusters. Every
+   * transition is a pair of packed positions, the first in the lower and the second in the higher
+   * cluster, which a single move connects.
+   */
+  private static long[][] transitions(
+      int lowX, int lowY, int lowZ, int highX, int highY, int highZ, Passability passability) {
+    int[] rangeX = borderRange(highX - lowX);
+    int[] rangeY = borderRange(highY - lowY);
+    int[] rangeZ = borderRange(highZ - lowZ);
+
+    boolean[] border = new boolean[VOLUME];
+    long[] targets = new long[VOLUME];
+
+    for (int localX = rangeX[0]; localX <= rangeX[1]; localX++)
+      for (int localY = rangeY[0]; localY <= rangeY[1]; localY++)
+        for (int localZ = rangeZ[0]; localZ <= rangeZ[1]; localZ++) {
+          int x = (lowX << SHIFT) + localX;
+          int y = (lowY << SHIFT) + localY;
+          int z = (lowZ << SHIFT) + localZ;
+          if (!passability.isPassable(x, y, z)) continue;
+
+          long target = findMoveInto(x, y, z, highX, highY, highZ, passability);
+          if (target == NO_MOVE) continue;
+
+          int local = localIndex(localX, localY, localZ);
+          border[local] = true;
+          targets[local] = target;
+        }
+
+    List<long[]> transitions = new ArrayList<>();
+    int[] component = new int[VOLUME];
+
+    for (int local = 0; local < VOLUME; local++) {
+      if (!border[local]) continue;
+
+      int size = collectComponent(local, border, component);
+      int representative = component[size / 2];
+      transitions.add(
+          new long[] {
+            PackedPosition.pack(
+                (lowX << SHIFT) + localX(representative),
+                (lowY << SHIFT) + localY(representative),
+                (lowZ << SHIFT) + localZ(representative)),
+            targets[representative]
+          });
+    }
+
+    return transitions.toArray(new long[0][]);
+  }
+
+  private static long findMoveInto(
+      int x, int y, int z, int clusterX, int clusterY, int clusterZ, Passability passability) {
+    for (int dx = -1; dx <= 1; dx++)
+      for (int dy = -1; dy <= 1; dy++)
+        for (int dz = -1; dz <= 1; dz++) {
+          if (clusterOf(x + dx) != clusterX
+              || clusterOf(y + dy) != clusterY
+              || clusterOf(z + dz) != clusterZ) continue;
+
+          if (passability.canMove(x, y, z, dx, dy, dz))
+            return PackedPosition.pack(x + dx, y + dy, z + dz);
+        }
+    return NO_MOVE;
+  }
+
+  /**
+   * Flood-fills the connected border blocks starting at the given one, clearing them from the
+   * border on the way.
+   *
+   * @return the number of blocks written to the component array
+   */
+  private static int collectComponent(int start, boolean[] border, int[] component) {
+    int size = 0;
+    component[size++] = start;
+    border[start] = false;
+
+    for (int i = 0; i < size; i++) {
+      int current = component[i];
+      for (int dx = -1; dx <= 1; dx++)
+        for (int dy = -1; dy <= 1; dy++)
+          for (int dz = -1; dz <= 1; dz++) {
+            int x = localX(current) + dx;
+            int y = localY(current) + dy;
+            int z = localZ(current) + dz;
+            if ((x | y | z) < 0 || x >= SIZE || y >= SIZE || z >= SIZE) continue;
+
+            int next = localIndex(x, y, z);
+            if (!border[next]) continue;
+
+            border[next] = false;
+            component[size++] = next;
+          }
+    }
+
+    return size;
+  }
+
+  /** The range of local coordinates of the lower cluster that border the higher one on an axis. */
+  private static int[] borderRange(int offset) {
+    if (offset > 0) return new int[] {MASK, MASK};
+    if (offset < 0) return new int[] {0, 0};
+    return new int[] {0, MASK};
+  }
+
+  /** Whether the first cluster comes before the second one in lexicographic order. */
+  private static boolean isLower(int x1, int y1, int z1, int x2, int y2, int z2) {
+    if (x1 != x2) return x1 < x2;
+    if (y1 != y2) return y1 < y2;
+    return z1 < z2;
+  }
+
+  static int clusterOf(int coordinate) {
+    return coordinate >> SHIFT;
+  }
+
+  private int localIndex(long position) {
+    return localIndex(
+        PackedPosition.unpackX(position),
+        PackedPosition.unpackY(position),
+        PackedPosition.unpackZ(position));
+  }
+
+  private static int localIndex(int x, int y, int z) {
+    return (x & MASK) << (SHIFT * 2) | (y & MASK) << SHIFT | (z & MASK);
+  }
+
+  private static int localX(int local) {
+    return local >> (SHIFT * 2);
+  }
+
+  private static int localY(int local) {
+    return local >> SHIFT & MASK;
+  }
+
+  private static int localZ(int local) {
+    return local & MASK;
+  }
+}
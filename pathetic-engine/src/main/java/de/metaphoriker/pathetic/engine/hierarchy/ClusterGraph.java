@@ -0,0 +1,232 @@
+package de.metaphoriker.pathetic.engine.hierarchy;
+
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidationListener;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.util.DaryIndexedHeap;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The abstract graph of hierarchical pathfinding. Every environment is split into {@link Cluster}s
+ * the size of a chunk section, which are built lazily the first time a search touches them and kept
+ * until a chunk they border on is invalidated through {@link ChunkInvalidations}.
+ *
+ * <p>The nodes of the abstract graph are the entrances of the clusters. They are connected to the
+ * other entrances of their cluster by the precomputed distances inside the cluster, and to the
+ * blocks they lead to in neighbouring clusters by a single move.
+ *
+ * <p>The cached clusters only depend on the {@link Passability} handed in when they were built, so
+ * a graph must only be used with a single, position-based notion of passability.
+ */
+public class ClusterGraph implements ChunkInvalidationListener {
+
+  private final Map<UUID, Map<Long, Cluster>> clusters = new ConcurrentHashMap<>();
+
+  public ClusterGraph() {
+    ChunkInvalidations.register(this);
+  }
+
+  /** Whether both positions lie in the same cluster or in neighbouring ones. */
+  public static boolean areNeighbouringClusters(PathPosition first, PathPosition second) {
+    return Math.abs(clusterOf(first.getFlooredX()) - clusterOf(second.getFlooredX())) <= 1
+        && Math.abs(clusterOf(first.getFlooredY()) - clusterOf(second.getFlooredY())) <= 1
+        && Math.abs(clusterOf(first.getFlooredZ()) - clusterOf(second.getFlooredZ())) <= 1;
+  }
+
+  /** Whether the packed position lies in the cluster containing the other packed position. */
+  public static boolean isInClusterOf(long position, long other) {
+    return clusterOf(PackedPosition.unpackX(position)) == clusterOf(PackedPosition.unpackX(other))
+        && clusterOf(PackedPosition.unpackY(position)) == clusterOf(PackedPosition.unpackY(other))
+        && clusterOf(PackedPosition.unpackZ(position)) == clusterOf(PackedPosition.unpackZ(other));
+  }
+
+  /**
+   * Searches the abstract graph for a route between the two positions.
+   *
+   * @param passability decides which blocks clusters built during this search can pass
+   * @param maxIterations the maximum number of abstract nodes to expand
+   * @return the packed positions of the route, starting with the start and ending with the target.
+   *     Consecutive positions either lie in the same cluster or are neighbours.
+   */
+  public Optional<long[]> findRoute(
+      PathPosition start, PathPosition target, Passability passability, int maxIterations) {
+    PathEnvironment environment = start.getPathEnvironment();
+    long startPosition = PackedPosition.pack(start);
+    long targetPosition = PackedPosition.pack(target);
+
+    Cluster startCluster = getCluster(environment, startPosition, passability);
+    Cluster targetCluster = getCluster(environment, targetPosition, passability);
+    double[] startDistances = startCluster.entranceDistances(startPosition);
+    double[] targetDistances = targetCluster.entranceDistances(targetPosition);
+
+    NodeStore nodeStore = new NodeStore(environment);
+    IndexedHeap nodeQueue = new DaryIndexedHeap(4);
+
+    int startNode =
+        nodeStore.add(
+            startPosition,
+            NodeStore.NO_PARENT,
+            0,
+            estimate(startPosition, targetPosition),
+            0);
+    nodeQueue.insert(startNode, nodeStore.getFCost(startNode));
+
+    for (int iteration = 0; iteration < maxIterations && !nodeQueue.isEmpty(); iteration++) {
+      int currentNode = nodeQueue.deleteMin();
+      nodeStore.close(currentNode);
+
+      long position = nodeStore.getPosition(currentNode);
+      if (position == targetPosition) return Optional.of(traceRoute(nodeStore, currentNode));
+
+      Cluster cluster = getCluster(environment, position, passability);
+      int entrance = cluster.indexOfEntrance(position);
+
+      if (position == startPosition) {
+        for (int i = 0; i < startCluster.getEntranceCount(); i++)
+          relax(
+              nodeStore,
+              nodeQueue,
+              currentNode,
+              startCluster.getEntrance(i),
+              startDistances[i],
+              targetPosition);
+      } else if (entrance >= 0) {
+        for (int i = 0; i < cluster.getEntranceCount(); i++)
+          relax(
+              nodeStore,
+              nodeQueue,
+              currentNode,
+              cluster.getEntrance(i),
+              cluster.getDistance(entrance, i),
+              targetPosition);
+      }
+
+      if (entrance >= 0) {
+        for (long partner : cluster.getPartners(entrance))
+          relax(
+              nodeStore,
+              nodeQueue,
+              currentNode,
+              partner,
+              movementCost(position, partner),
+              targetPosition);
+      }
+
+      int targetEntrance = targetCluster.indexOfEntrance(position);
+      if (targetEntrance >= 0)
+        relax(
+            nodeStore,
+            nodeQueue,
+            currentNode,
+            targetPosition,
+            targetDistances[targetEntrance],
+            targetPosition);
+    }
+
+    return Optional.empty();
+  }
+
+  @Override
+  public void onChunkInvalidated(UUID environmentUuid, int chunkX, int chunkZ) {
+    Map<Long, Cluster> environmentClusters = clusters.get(environmentUuid);
+    if (environmentClusters == null) return;
+
+    // the transitions of the neighbouring clusters lead into the chunk, so they go stale as well
+    environmentClusters
+        .keySet()
+        .removeIf(
+            key ->
+                Math.abs(PackedPosition.unpackX(key) - chunkX) <= 1
+                    && Math.abs(PackedPosition.unpackZ(key) - chunkZ) <= 1);
+  }
+
+  /** Discards every cluster of every environment. */
+  public void clear() {
+    clusters.clear();
+  }
+
+  private Cluster getCluster(PathEnvironment environment, long position, Passability passability) {
+    int clusterX = clusterOf(PackedPosition.unpackX(position));
+    int clusterY = clusterOf(PackedPosition.unpackY(position));
+    int clusterZ = clusterOf(PackedPosition.unpackZ(position));
+
+    Map<Long, Cluster> environmentClusters =
+        clusters.computeIfAbsent(environment.getUuid(), uuid -> new ConcurrentHashMap<>());
+    long key = PackedPosition.pack(clusterX, clusterY, clusterZ);
+    Cluster cluster = environmentClusters.get(key);
+    if (cluster != null) return cluster;
+
+    // built outside the map, so a slow build never blocks searches working in other clusters
+    cluster = Cluster.build(clusterX, clusterY, clusterZ, passability);
+    Cluster existing = environmentClusters.putIfAbsent(key, cluster);
+    return existing != null ? existing : cluster;
+  }
+
+  private void relax(
+      NodeStore nodeStore,
+      IndexedHeap nodeQueue,
+      int currentNode,
+      long position,
+      double cost,
+      long targetPosition) {
+    if (cost == Double.POSITIVE_INFINITY) return;
+
+    double gCost = nodeStore.getGCost(currentNode) + cost;
+    int node = nodeStore.indexOf(position);
+
+    if (node == NodeStore.NO_NODE) {
+      node =
+          nodeStore.add(
+              position,
+              currentNode,
+              gCost,
+              gCost + estimate(position, targetPosition),
+              nodeStore.getDepth(currentNode) + 1);
+      nodeQueue.insert(node, nodeStore.getFCost(node));
+      return;
+    }
+
+    if (nodeStore.isClosed(node) || gCost >= nodeStore.getGCost(node)) return;
+
+    double fCost = gCost + estimate(position, targetPosition);
+    nodeStore.update(node, currentNode, gCost, fCost, nodeStore.getDepth(currentNode) + 1);
+    nodeQueue.decreaseKey(node, fCost);
+  }
+
+  private static long[] traceRoute(NodeStore nodeStore, int node) {
+    long[] route = new long[nodeStore.getDepth(node) + 1];
+    for (int i = route.length - 1; i >= 0; i--) {
+      route[i] = nodeStore.getPosition(node);
+      node = nodeStore.getParent(node);
+    }
+    return route;
+  }
+
+  /** The straight distance, which never overestimates and keeps the abstract search optimal. */
+  private static double estimate(long position, long targetPosition) {
+    return movementCost(position, targetPosition);
+  }
+
+  private static double movementCost(long from, long to) {
+    return Heuristic.movementCost(
+        PackedPosition.unpackX(from),
+        PackedPosition.unpackY(from),
+        PackedPosition.unpackZ(from),
+        PackedPosition.unpackX(to),
+        PackedPosition.unpackY(to),
+        PackedPosition.unpackZ(to));
+  }
+
+  private static int clusterOf(int coordinate) {
+    return Cluster.clusterOf(coordinate);
+  }
+}
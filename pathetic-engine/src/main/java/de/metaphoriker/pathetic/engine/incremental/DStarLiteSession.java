@@ -0,0 +1,484 @@
+package de.metaphoriker.pathetic.engine.incremental;
+
+import de.metaphoriker.pathetic.api.pathing.NavigationSession;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidationListener;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link NavigationSession} implementing D* Lite. The search runs backwards from the target, so
+ * its costs stay valid when the start moves, and only the keys of the queued blocks have to be
+ * corrected by the distance the start moved.
+ *
+ * <p>The passability of every block looked at is remembered per chunk. Once a chunk is reported
+ * through {@link ChunkInvalidations}, the next update checks the remembered blocks of that chunk
+ * again and only repairs the costs around the ones that changed.
+ *
+ * <p>Moves follow the rules of {@link Passability#canMove}, and every move costs its euclidean
+ * length. The heuristic weights of the configuration are not used, since the search relies on
+ * the straight distance to the start never overestimating. The iteration limit applies to each
+ * update, and the maximum length to the returned paths.
+ */
+public class DStarLiteSession implements NavigationSession, ChunkInvalidationListener {
+
+  private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+  /**
+   * Shrinks the straight distance used as estimate just enough that rounding errors can never make
+   * it overestimate a single move, which would let blocks with tied keys keep outdated costs.
+   */
+  private static final double ESTIMATE_SCALE = 1 - 1e-9;
+
+  private static final int BLOCKED = 0;
+  private static final int PASSABLE = 1;
+
+  private static final int[][] NEIGHBOURS = new int[26][];
+  private static final double[] NEIGHBOUR_COSTS = new double[26];
+
+  static {
+    int neighbour = 0;
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dz = -1; dz <= 1; dz++) {
+          if (dx == 0 && dy == 0 && dz == 0) continue;
+
+          NEIGHBOURS[neighbour] = new int[] {dx, dy, dz};
+          NEIGHBOUR_COSTS[neighbour++] = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+      }
+    }
+  }
+
+  private final PathPosition target;
+  private final long targetPosition;
+  private final Passability passability;
+  private final PathfinderConfiguration pathfinderConfiguration;
+
+  /** The passability of every block looked at, grouped by chunk. */
+  private final Map<Long, LongIntHashMap> knownPassability = new HashMap<>();
+
+  private final Passability rememberedPassability = this::isPassable;
+
+  private final Queue<Long> invalidatedChunks = new ConcurrentLinkedQueue<>();
+
+  private final LongIntHashMap nodes = new LongIntHashMap();
+  private final KeyPairHeap nodeQueue = new KeyPairHeap();
+
+  private long[] positions = new long[64];
+  private double[] gCosts = new double[64];
+
+  /** The one-step lookahead costs, the cheapest cost over all moves out of a block. */
+  private double[] rhsCosts = new double[64];
+
+  private int nodeCount;
+
+  private boolean started;
+  private long startPosition;
+
+  /** The sum of all distances the start moved, added to every key computed since. */
+  private double keyModifier;
+
+  /** The number of blocks expanded during the current update. */
+  private int iterations;
+
+  private long lastChunk;
+  private LongIntHashMap lastChunkPassability;
+
+  /**
+   * @param target the target of every path of this session
+   * @param passability decides which blocks are passable, before they are remembered
+   * @param pathfinderConfiguration the configuration providing the iteration and length limits
+   */
+  public DStarLiteSession(
+      PathPosition target,
+      Passability passability,
+      PathfinderConfiguration pathfinderConfiguration) {
+    this.target = target;
+    this.targetPosition = PackedPosition.pack(target.floor());
+    this.passability = passability;
+    this.pathfinderConfiguration = pathfinderConfiguration;
+
+    ChunkInvalidations.register(this);
+  }
+
+  @Override
+  public PathPosition getTarget() {
+    return target;
+  }
+
+  @Override
+  public PathfinderResult update(PathPosition start) {
+    if (!start.getPathEnvironment().equals(target.getPathEnvironment())
+        || start.isInSameBlock(target))
+      return new PathfinderResultImpl(
+          PathState.INITIALLY_FAILED, new PathImpl(start, target, Collections.emptyList()));
+
+    moveStart(PackedPosition.pack(start.floor()));
+    repairInvalidatedChunks();
+
+    iterations = 0;
+
+    int startNode = nodeOf(startPosition);
+    if (!computeShortestPath(startNode))
+      return new PathfinderResultImpl(
+          PathState.MAX_ITERATIONS_REACHED,
+          new PathImpl(start, target, Collections.singletonList(start.floor())));
+
+    if (gCosts[startNode] == INFINITY)
+      return new PathfinderResultImpl(
+          PathState.FAILED, new PathImpl(start, target, Collections.emptyList()));
+
+    return tracePath(start, startNode);
+  }
+
+  @Override
+  public void onChunkInvalidated(UUID environmentUuid, int chunkX, int chunkZ) {
+    if (environmentUuid.equals(target.getPathEnvironment().getUuid()))
+      invalidatedChunks.add(chunkKey(chunkX, chunkZ));
+  }
+
+  @Override
+  public void close() {
+    ChunkInvalidations.unregister(this);
+
+    knownPassability.clear();
+    invalidatedChunks.clear();
+    lastChunkPassability = null;
+    nodes.clear();
+    nodeQueue.clear();
+    nodeCount = 0;
+    started = false;
+    keyModifier = 0;
+  }
+
+  /** Corrects the keys of the queued blocks for the distance the start moved. */
+  private void moveStart(long newStartPosition) {
+    if (!started) {
+      started = true;
+      startPosition = newStartPosition;
+
+      int targetNode = nodeOf(targetPosition);
+      rhsCosts[targetNode] = 0;
+      updateQueue(targetNode);
+      return;
+    }
+
+    keyModifier += estimate(startPosition, newStartPosition);
+    startPosition = newStartPosition;
+  }
+
+  /**
+   * Looks at the remembered blocks of every invalidated chunk again. Every block that changed its
+   * passability changes the moves into it and the diagonal moves cutting its corners, all of which
+   * start at one of its neighbours.
+   */
+  private void repairInvalidatedChunks() {
+    List<Long> changedPositions = new ArrayList<>();
+
+    Long chunk;
+    while ((chunk = invalidatedChunks.poll()) != null) {
+      LongIntHashMap chunkPassability = knownPassability.remove(chunk);
+      if (chunkPassability == null) continue;
+      if (chunkPassability == lastChunkPassability) lastChunkPassability = null;
+
+      chunkPassability.forEach(
+          (position, known) -> {
+            boolean passable =
+                isPassable(
+                    PackedPosition.unpackX(position),
+                    PackedPosition.unpackY(position),
+                    PackedPosition.unpackZ(position));
+            if (passable != (known == PASSABLE)) changedPositions.add(position);
+          });
+    }
+
+    for (long position : changedPositions) {
+      int x = PackedPosition.unpackX(position);
+      int y = PackedPosition.unpackY(position);
+      int z = PackedPosition.unpackZ(position);
+
+      repairNode(position);
+      for (int[] neighbour : NEIGHBOURS)
+        repairNode(PackedPosition.pack(x + neighbour[0], y + neighbour[1], z + neighbour[2]));
+    }
+  }
+
+  private void repairNode(long position) {
+    if (position == targetPosition) return;
+
+    double rhsCost = cheapestMoveCost(position);
+    int node = nodes.get(position);
+    if (node == LongIntHashMap.NO_VALUE) {
+      if (rhsCost == INFINITY) return;
+      node = nodeOf(position);
+    }
+
+    rhsCosts[node] = rhsCost;
+    updateQueue(node);
+  }
+
+  /**
+   * Expands blocks until the given node is consistent and no queued block could still lower its
+   * cost, at which point the cost of the node is final.
+   *
+   * @return whether the search finished within the iteration limit of the current update
+   */
+  private boolean computeShortestPath(int targetNode) {
+    while (!nodeQueue.isEmpty()) {
+      if (KeyPairHeap.compare(
+                  nodeQueue.peekPrimaryKey(),
+                  nodeQueue.peekSecondaryKey(),
+                  primaryKey(targetNode),
+                  secondaryKey(targetNode))
+              >= 0
+          && isConsistent(targetNode)) break;
+
+      if (iterations++ >= pathfinderConfiguration.getMaxIterations()) return false;
+
+      int node = nodeQueue.peek();
+      double primaryKey = primaryKey(node);
+      double secondaryKey = secondaryKey(node);
+
+      if (KeyPairHeap.compare(
+              nodeQueue.peekPrimaryKey(), nodeQueue.peekSecondaryKey(), primaryKey, secondaryKey)
+          < 0) {
+        nodeQueue.insertOrUpdate(node, primaryKey, secondaryKey);
+      } else if (gCosts[node] > rhsCosts[node]) {
+        gCosts[node] = rhsCosts[node];
+        nodeQueue.remove(node);
+        lowerPredecessors(node);
+      } else {
+        double oldCost = gCosts[node];
+        gCosts[node] = INFINITY;
+        if (positions[node] != targetPosition) rhsCosts[node] = cheapestMoveCost(positions[node]);
+        updateQueue(node);
+        raisePredecessors(node, oldCost);
+      }
+    }
+
+    return true;
+  }
+
+  /** Lets every block that can move into the node take the route through it. */
+  private void lowerPredecessors(int node) {
+    long position = positions[node];
+    int x = PackedPosition.unpackX(position);
+    int y = PackedPosition.unpackY(position);
+    int z = PackedPosition.unpackZ(position);
+
+    for (int i = 0; i < NEIGHBOURS.length; i++) {
+      int[] neighbour = NEIGHBOURS[i];
+      int predecessorX = x - neighbour[0];
+      int predecessorY = y - neighbour[1];
+      int predecessorZ = z - neighbour[2];
+      long predecessorPosition = PackedPosition.pack(predecessorX, predecessorY, predecessorZ);
+      if (predecessorPosition == targetPosition) continue;
+      if (!canMove(predecessorX, predecessorY, predecessorZ, neighbour)) continue;
+
+      int predecessor = nodeOf(predecessorPosition);
+      rhsCosts[predecessor] =
+          Math.min(rhsCosts[predecessor], NEIGHBOUR_COSTS[i] + gCosts[node]);
+      updateQueue(predecessor);
+    }
+  }
+
+  /** Lets every block whose cheapest route led through the node look for another one. */
+  private void raisePredecessors(int node, double oldCost) {
+    long position = positions[node];
+    int x = PackedPosition.unpackX(position);
+    int y = PackedPosition.unpackY(position);
+    int z = PackedPosition.unpackZ(position);
+
+    for (int i = 0; i < NEIGHBOURS.length; i++) {
+      int[] neighbour = NEIGHBOURS[i];
+      int predecessorX = x - neighbour[0];
+      int predecessorY = y - neighbour[1];
+      int predecessorZ = z - neighbour[2];
+      long predecessorPosition = PackedPosition.pack(predecessorX, predecessorY, predecessorZ);
+      if (predecessorPosition == targetPosition) continue;
+
+      int predecessor = nodes.get(predecessorPosition);
+      if (predecessor == LongIntHashMap.NO_VALUE) continue;
+      if (rhsCosts[predecessor] != NEIGHBOUR_COSTS[i] + oldCost) continue;
+      if (!canMove(predecessorX, predecessorY, predecessorZ, neighbour)) continue;
+
+      rhsCosts[predecessor] = cheapestMoveCost(predecessorPosition);
+      updateQueue(predecessor);
+    }
+  }
+
+  /** Returns the cheapest cost to the target over all moves out of the block. */
+  private double cheapestMoveCost(long position) {
+    int x = PackedPosition.unpackX(position);
+    int y = PackedPosition.unpackY(position);
+    int z = PackedPosition.unpackZ(position);
+
+    double cheapestCost = INFINITY;
+    for (int i = 0; i < NEIGHBOURS.length; i++) {
+      int[] neighbour = NEIGHBOURS[i];
+      int successor =
+          nodes.get(PackedPosition.pack(x + neighbour[0], y + neighbour[1], z + neighbour[2]));
+      if (successor == LongIntHashMap.NO_VALUE) continue;
+
+      double cost = NEIGHBOUR_COSTS[i] + gCosts[successor];
+      if (cost < cheapestCost && canMove(x, y, z, neighbour)) cheapestCost = cost;
+    }
+    return cheapestCost;
+  }
+
+  /**
+   * Follows the cheapest moves from the start to the target. The search only guarantees the cost
+   * of the start to be final, so every block is made consistent before the path moves on to it.
+   */
+  private PathfinderResult tracePath(PathPosition start, int startNode) {
+    PathEnvironment environment = start.getPathEnvironment();
+    List<PathPosition> path = new ArrayList<>();
+
+    int node = startNode;
+    while (true) {
+      long position = positions[node];
+      path.add(toPathPosition(environment, position));
+      if (position == targetPosition)
+        return new PathfinderResultImpl(PathState.FOUND, new PathImpl(start, target, path));
+
+      int maxLength = pathfinderConfiguration.getMaxLength();
+      if (maxLength != 0 && path.size() > maxLength)
+        return new PathfinderResultImpl(
+            PathState.LENGTH_LIMITED, new PathImpl(start, target, path));
+
+      int successor = cheapestSuccessor(position);
+      while (successor != LongIntHashMap.NO_VALUE && !isConsistent(successor)) {
+        if (!computeShortestPath(successor))
+          return new PathfinderResultImpl(
+              PathState.MAX_ITERATIONS_REACHED, new PathImpl(start, target, path));
+        successor = cheapestSuccessor(position);
+      }
+
+      if (successor == LongIntHashMap.NO_VALUE || path.size() > nodeCount)
+        return new PathfinderResultImpl(
+            PathState.FAILED, new PathImpl(start, target, Collections.emptyList()));
+      node = successor;
+    }
+  }
+
+  private int cheapestSuccessor(long position) {
+    int x = PackedPosition.unpackX(position);
+    int y = PackedPosition.unpackY(position);
+    int z = PackedPosition.unpackZ(position);
+
+    int cheapestSuccessor = LongIntHashMap.NO_VALUE;
+    double cheapestCost = INFINITY;
+    for (int i = 0; i < NEIGHBOURS.length; i++) {
+      int[] neighbour = NEIGHBOURS[i];
+      int successor =
+          nodes.get(PackedPosition.pack(x + neighbour[0], y + neighbour[1], z + neighbour[2]));
+      if (successor == LongIntHashMap.NO_VALUE) continue;
+
+      double cost = NEIGHBOUR_COSTS[i] + gCosts[successor];
+      if (cost < cheapestCost && canMove(x, y, z, neighbour)) {
+        cheapestSuccessor = successor;
+        cheapestCost = cost;
+      }
+    }
+    return cheapestSuccessor;
+  }
+
+  private boolean isConsistent(int node) {
+    return gCosts[node] == rhsCosts[node];
+  }
+
+  private void updateQueue(int node) {
+    if (!isConsistent(node))
+      nodeQueue.insertOrUpdate(node, primaryKey(node), secondaryKey(node));
+    else nodeQueue.remove(node);
+  }
+
+  private double primaryKey(int node) {
+    return secondaryKey(node) + estimate(startPosition, positions[node]) + keyModifier;
+  }
+
+  private double secondaryKey(int node) {
+    return Math.min(gCosts[node], rhsCosts[node]);
+  }
+
+  private int nodeOf(long position) {
+    int node = nodes.get(position);
+    if (node != LongIntHashMap.NO_VALUE) return node;
+
+    if (nodeCount == positions.length) {
+      int capacity = positions.length << 1;
+      positions = Arrays.copyOf(positions, capacity);
+      gCosts = Arrays.copyOf(gCosts, capacity);
+      rhsCosts = Arrays.copyOf(rhsCosts, capacity);
+    }
+
+    node = nodeCount++;
+    positions[node] = position;
+    gCosts[node] = INFINITY;
+    rhsCosts[node] = INFINITY;
+    nodes.put(position, node);
+    return node;
+  }
+
+  private boolean canMove(int x, int y, int z, int[] neighbour) {
+    return rememberedPassability.canMove(x, y, z, neighbour[0], neighbour[1], neighbour[2]);
+  }
+
+  private boolean isPassable(int x, int y, int z) {
+    long chunk = chunkKey(x >> 4, z >> 4);
+    if (lastChunkPassability == null || lastChunk != chunk) {
+      lastChunk = chunk;
+      lastChunkPassability = knownPassability.computeIfAbsent(chunk, key -> new LongIntHashMap());
+    }
+
+    long position = PackedPosition.pack(x, y, z);
+    int known = lastChunkPassability.get(position);
+    if (known != LongIntHashMap.NO_VALUE) return known == PASSABLE;
+
+    boolean passable = passability.isPassable(x, y, z);
+    lastChunkPassability.put(position, passable ? PASSABLE : BLOCKED);
+    return passable;
+  }
+
+  private static long chunkKey(int chunkX, int chunkZ) {
+    return PackedPosition.pack(chunkX, 0, chunkZ);
+  }
+
+  /**
+   * The straight distance between both blocks. Other than {@link Heuristic#movementCost}, it uses
+   * the exact square root, since the approximation is not consistent.
+   */
+  private static double estimate(long from, long to) {
+    long dx = PackedPosition.unpackX(from) - PackedPosition.unpackX(to);
+    long dy = PackedPosition.unpackY(from) - PackedPosition.unpackY(to);
+    long dz = PackedPosition.unpackZ(from) - PackedPosition.unpackZ(to);
+    return Math.sqrt(dx * dx + dy * dy + dz * dz) * ESTIMATE_SCALE;
+  }
+
+  private static PathPosition toPathPosition(PathEnvironment environment, long position) {
+    return new PathPosition(
+        environment,
+        PackedPosition.unpackX(position),
+        PackedPosition.unpackY(position),
+        PackedPosition.unpackZ(position));
+  }
+}
@@ -0,0 +1,144 @@
+package de.metaphoriker.pathetic.engine.incremental;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap over non-negative {@code int} handles whose keys are pairs of doubles, compared
+ * lexicographically. Other than {@link de.metaphoriker.pathetic.engine.util.IndexedHeap}, the key
+ * of a contained handle may be raised as well as lowered, and any handle may be removed.
+ */
+final class KeyPairHeap {
+
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final int NOT_CONTAINED = -1;
+
+  private int[] handles = new int[DEFAULT_CAPACITY];
+  private double[] primaryKeys = new double[DEFAULT_CAPACITY];
+  private double[] secondaryKeys = new double[DEFAULT_CAPACITY];
+
+  /** The slot of every handle in the heap, or {@link #NOT_CONTAINED}. */
+  private int[] slots = new int[DEFAULT_CAPACITY];
+
+  private int size;
+
+  KeyPairHeap() {
+    Arrays.fill(slots, NOT_CONTAINED);
+  }
+
+  /** Inserts the handle, or moves it to its new place if it is already contained. */
+  void insertOrUpdate(int handle, double primaryKey, double secondaryKey) {
+    if (handle >= slots.length) growSlots(handle);
+
+    int slot = slots[handle];
+    if (slot == NOT_CONTAINED) {
+      if (size == handles.length) growHeap();
+      slot = size++;
+    }
+
+    set(slot, handle, primaryKey, secondaryKey);
+    siftDown(siftUp(slot));
+  }
+
+  /** Removes the handle if it is contained. */
+  void remove(int handle) {
+    if (!contains(handle)) return;
+
+    int slot = slots[handle];
+    slots[handle] = NOT_CONTAINED;
+    if (slot == --size) return;
+
+    set(slot, handles[size], primaryKeys[size], secondaryKeys[size]);
+    siftDown(siftUp(slot));
+  }
+
+  int peek() {
+    if (size == 0) throw new IllegalStateException("Heap is empty");
+    return handles[0];
+  }
+
+  double peekPrimaryKey() {
+    return primaryKeys[0];
+  }
+
+  double peekSecondaryKey() {
+    return secondaryKeys[0];
+  }
+
+  boolean contains(int handle) {
+    return handle < slots.length && slots[handle] != NOT_CONTAINED;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Removes all handles while keeping the allocated storage. */
+  void clear() {
+    for (int slot = 0; slot < size; slot++) slots[handles[slot]] = NOT_CONTAINED;
+    size = 0;
+  }
+
+  /** Compares two keys lexicographically. */
+  static int compare(double primary, double secondary, double otherPrimary, double otherSecondary) {
+    int comparison = Double.compare(primary, otherPrimary);
+    return comparison != 0 ? comparison : Double.compare(secondary, otherSecondary);
+  }
+
+  private int siftUp(int slot) {
+    while (slot > 0) {
+      int parent = (slot - 1) >>> 1;
+      if (compareSlots(slot, parent) >= 0) break;
+
+      swap(slot, parent);
+      slot = parent;
+    }
+    return slot;
+  }
+
+  private void siftDown(int slot) {
+    while (true) {
+      int child = (slot << 1) + 1;
+      if (child >= size) return;
+
+      if (child + 1 < size && compareSlots(child + 1, child) < 0) child++;
+      if (compareSlots(child, slot) >= 0) return;
+
+      swap(slot, child);
+      slot = child;
+    }
+  }
+
+  private int compareSlots(int slot, int other) {
+    return compare(
+        primaryKeys[slot], secondaryKeys[slot], primaryKeys[other], secondaryKeys[other]);
+  }
+
+  private void swap(int slot, int other) {
+    int handle = handles[slot];
+    double primaryKey = primaryKeys[slot];
+    double secondaryKey = secondaryKeys[slot];
+
+    set(slot, handles[other], primaryKeys[other], secondaryKeys[other]);
+    set(other, handle, primaryKey, secondaryKey);
+  }
+
+  private void set(int slot, int handle, double primaryKey, double secondaryKey) {
+    handles[slot] = handle;
+    primaryKeys[slot] = primaryKey;
+    secondaryKeys[slot] = secondaryKey;
+    slots[handle] = slot;
+  }
+
+  private void growHeap() {
+    int capacity = handles.length << 1;
+    handles = Arrays.copyOf(handles, capacity);
+    primaryKeys = Arrays.copyOf(primaryKeys, capacity);
+    secondaryKeys = Arrays.copyOf(secondaryKeys, capacity);
+  }
+
+  private void growSlots(int handle) {
+    int oldCapacity = slots.length;
+    slots = Arrays.copyOf(slots, Math.max(oldCapacity << 1, handle + 1));
+    Arrays.fill(slots, oldCapacity, slots.length, NOT_CONTAINED);
+  }
+}
@@ -3,251 +3,281 @@ package de.metaphoriker.pathetic.engine.pathfinder;
 import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
-import de.metaphoriker.pathetic.api.pathing.filter.PathValidationContext;
 import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
 import de.metaphoriker.pathetic.api.wrapper.Depth;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
-import de.metaphoriker.pathetic.api.wrapper.PathVector;
-import de.metaphoriker.pathetic.engine.Node;
-import de.metaphoriker.pathetic.engine.Offset;
-import de.metaphoriker.pathetic.engine.util.ExpiringHashMap;
-import de.metaphoriker.pathetic.engine.util.GridRegionData;
-import de.metaphoriker.pathetic.engine.util.Tuple3;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
 import java.util.*;
-import org.jheaps.tree.FibonacciHeap;
 
 public class AStarPathfinder extends AbstractPathfinder {
 
-  private static final int DEFAULT_GRID_CELL_SIZE = 12;
+  /** The number of cells of the cube around an expanded node, including the node itself. */
+  private static final int CELL_COUNT = 27;
 
-  /**
-   * The grid map used to store the regional examined positions and Bloom filters for each grid
-   * region.
-   */
-  private final Map<Tuple3<Integer>, ExpiringHashMap.Entry<GridRegionData>> gridMap =
-      new ExpiringHashMap<>();
+  private static final byte UNJUDGED = 0;
+  private static final byte VALID = 1;
+  private static final byte INVALID = 2;
 
-  private final NavigationPointProvider navigationPointProvider;
-
-  public AStarPathfinder(NavigationPointProvider navigationPointProvider, PathfinderConfiguration pathfinderConfiguration) {
-    super(pathfinderConfiguration);
-    this.navigationPointProvider = navigationPointProvider;
+  public AStarPathfinder(
+      NavigationPointProvider navigationPointProvider,
+      PathfinderConfiguration pathfinderConfiguration) {
+    super(navigationPointProvider, pathfinderConfiguration);
   }
 
   @Override
   protected void tick(
       PathPosition start,
       PathPosition target,
-      Node currentNode,
+      int currentNode,
       Depth depth,
-      FibonacciHeap<Double, Node> nodeQueue,
-      Set<PathPosition> examinedPositions,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
 
-    evaluateNewNodes(nodeQueue, examinedPositions, currentNode, filters, filterStages);
+    evaluateNewNodes(
+        start, target, currentNode, nodeStore, heuristic, nodeQueue, filters, filterStages);
     depth.increment();
   }
 
   @Override
   protected void cleanup() {
-    gridMap.clear();
+    // rejected positions are remembered by the node store of each search
   }
 
   private void evaluateNewNodes(
-      FibonacciHeap<Double, Node> nodeQueue,
-      Set<PathPosition> examinedPositions,
-      Node currentNode,
+      PathPosition start,
+      PathPosition target,
+      int currentNode,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
 
-    Collection<Node> newNodes =
-        fetchValidNeighbours(examinedPositions, currentNode, filters, filterStages);
+    int currentX = nodeStore.getX(currentNode);
+    int currentY = nodeStore.getY(currentNode);
+    int currentZ = nodeStore.getZ(currentNode);
+    PathPosition currentPosition = nodeStore.toPathPosition(currentNode);
+
+    int parentNode = selectParent(currentNode, nodeStore);
+    int parentX = nodeStore.getX(parentNode);
+    int parentY = nodeStore.getY(parentNode);
+    int parentZ = nodeStore.getZ(parentNode);
+
+    // the verdicts of the filters on the cells around the node, shared with the corner checks
+    byte[] verdicts = nodeStore.getCellVerdicts();
+    Arrays.fill(verdicts, UNJUDGED);
+    boolean reversed = nodeStore.isReversed();
+
+    for (int[] offset : neighbourOffsets) {
+      int cell = JumpDirections.cell(offset[0], offset[1], offset[2]);
+      if (isNeverPossible(cell)) continue;
+
+      int x = currentX + offset[0];
+      int y = currentY + offset[1];
+      int z = currentZ + offset[2];
+
+      long packedPosition = PackedPosition.pack(x, y, z);
+      double gCost =
+          nodeStore.getGCost(parentNode)
+              + Heuristic.movementCost(parentX, parentY, parentZ, x, y, z);
+
+      PathPosition position = new PathPosition(currentPosition.getPathEnvironment(), x, y, z);
+
+      int existingNode = nodeStore.indexOf(packedPosition);
+      if (existingNode != NodeStore.NO_NODE) {
+        if (isCheaperRoute(existingNode, gCost, nodeStore)
+            && isValidMove(
+                verdicts,
+                cell,
+                reversed,
+                start,
+                target,
+                currentPosition,
+                position,
+                filters,
+                filterStages)
+            && canCutCorners(
+                verdicts, cell, reversed, start, target, currentPosition, filters, filterStages)) {
+          improveNode(
+              existingNode,
+              parentNode,
+              gCost,
+              nodeStore.getDepth(parentNode) + 1,
+              nodeStore,
+              nodeQueue);
+        }
+        continue;
+      }
 
-    for (Node newNode : newNodes) {
-      double nodeCost = newNode.getHeuristic().get();
-      nodeQueue.insert(nodeCost, newNode);
+      if (nodeStore.isRejected(packedPosition)) continue;
+
+      if (!isValidMove(
+          verdicts,
+          cell,
+          reversed,
+          start,
+          target,
+          currentPosition,
+          position,
+          filters,
+          filterStages)) {
+        // a reversed move is judged by the expanded node, so the neighbour may still be reached
+        if (!reversed) nodeStore.markRejected(packedPosition);
+        continue;
+      }
+
+      if (!canCutCorners(
+          verdicts, cell, reversed, start, target, currentPosition, filters, filterStages))
+        continue;
+
+      int newNode =
+          nodeStore.add(
+              packedPosition,
+              parentNode,
+              gCost,
+              gCost + heuristic.estimate(x, y, z),
+              nodeStore.getDepth(parentNode) + 1);
+      nodeQueue.insert(newNode, nodeStore.getFCost(newNode));
     }
   }
 
-  private boolean isNodeValid(
-      Node currentNode,
-      Node newNode,
-      Set<PathPosition> examinedPositions,
+  /**
+   * Returns the node the neighbours of the expanded node are connected to. The neighbours are still
+   * validated as moves from the expanded node, but their cost is measured from the returned node,
+   * which becomes their parent. A* always connects them to the expanded node itself.
+   */
+  protected int selectParent(int currentNode, NodeStore nodeStore) {
+    return currentNode;
+  }
+
+  /** Whether the move between the two neighbouring positions is possible. */
+  protected boolean isNodeValid(
+      PathPosition start,
+      PathPosition target,
+      PathPosition from,
+      PathPosition to,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
 
-    if (isNodeInvalid(newNode, filters, filterStages)) return false;
+    int cell =
+        JumpDirections.cell(
+            to.getFlooredX() - from.getFlooredX(),
+            to.getFlooredY() - from.getFlooredY(),
+            to.getFlooredZ() - from.getFlooredZ());
+    if (isNeverPossible(cell)) return false;
 
-    if (!isDiagonalMove(currentNode, newNode)) return examinedPositions.add(newNode.getPosition());
+    if (isNodeInvalid(start, target, from, to, filters, filterStages)) return false;
 
-    return isReachable(currentNode, newNode, filters, filterStages)
-        && examinedPositions.add(newNode.getPosition());
-  }
-
-  private boolean isDiagonalMove(Node from, Node to) {
-    int xDifference = Math.abs(from.getPosition().getFlooredX() - to.getPosition().getFlooredX());
-    int zDifference = Math.abs(from.getPosition().getFlooredZ() - to.getPosition().getFlooredZ());
-
-    return xDifference != 0 && zDifference != 0;
+    return canCutCorners(
+        new byte[CELL_COUNT], cell, false, start, target, from, filters, filterStages);
   }
 
   /**
-   * Returns whether the diagonal jump is possible by checking if the adjacent nodes are passable or
-   * not. With adjacent nodes are the shared overlapping neighbours meant.
+   * Whether a move into the given cell is never possible, regardless of the filters, because it is
+   * diagonal in the horizontal plane and changes the height at the same time.
    */
-  private boolean isReachable(
-      Node from, Node to, List<PathFilter> filters, List<PathFilterStage> filterStages) {
-    boolean hasYDifference = from.getPosition().getFlooredY() != to.getPosition().getFlooredY();
-    PathVector[] offsets = Offset.VERTICAL_AND_HORIZONTAL.getVectors();
-
-    for (PathVector vector1 : offsets) {
-      if (vector1.getY() != 0) continue;
-
-      Node neighbour1 = createNeighbourNode(from, vector1);
-      for (PathVector vector2 : offsets) {
-        if (vector2.getY() != 0) continue;
-
-        Node neighbour2 = createNeighbourNode(to, vector2);
-        if (neighbour1.getPosition().equals(neighbour2.getPosition())) {
-
-          /*
-           * if it has a Y difference, we also need to check the nodes above or below,
-           *  depending on the Y difference
-           */
-          boolean heightDifferencePassable =
-              isHeightDifferencePassable(from, to, vector1, hasYDifference);
-
-          if (doAllFiltersPass(filters, neighbour1)
-              && doAnyFilterStagePass(filterStages, neighbour1)
-              && heightDifferencePassable) return true;
-        }
-      }
-    }
-
-    return false;
+  private static boolean isNeverPossible(int cell) {
+    int[][] corners = NeighbourOffsets.CORNERS[cell];
+    return corners != null && corners.length == 0;
   }
 
-  private boolean isHeightDifferencePassable(
-      Node from, Node to, PathVector vector1, boolean hasHeightDifference) {
-    if (!hasHeightDifference) return true;
+  /**
+   * Returns whether the move between the expanded position and the position in the given cell
+   * around it is possible, disregarding corners. A search of a {@link NodeStore#isReversed()
+   * reversed} node store moves from the position to the expanded one, and its start and target are
+   * swapped, so the filters are asked about the move the other way round. Forward moves share
+   * their verdicts with the corner checks, reversed moves have verdicts of their own.
+   */
+  private boolean isValidMove(
+      byte[] verdicts,
+      int cell,
+      boolean reversed,
+      PathPosition start,
+      PathPosition target,
+      PathPosition from,
+      PathPosition position,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    if (!reversed)
+      return isValid(verdicts, cell, false, start, target, from, position, filters, filterStages);
 
-    int yDifference = from.getPosition().getFlooredY() - to.getPosition().getFlooredY();
-    Node neighbour3 = createNeighbourNode(from, vector1.add(new PathVector(0, yDifference, 0)));
+    int move = CELL_COUNT + cell;
+    if (verdicts[move] == UNJUDGED)
+      verdicts[move] =
+          isNodeInvalid(target, start, position, from, filters, filterStages) ? INVALID : VALID;
 
-    // TODO: 15.12.2024: do we really need to check if the block is passable, or can we use the filters?
-    return navigationPointProvider.getNavigationPoint(neighbour3.getPosition()).isTraversable();
+    return verdicts[move] == VALID;
   }
 
-  private Collection<Node> fetchValidNeighbours(
-      Set<PathPosition> examinedPositions,
-      Node currentNode,
+  /**
+   * Returns whether the filters accept the position, which lies in the given cell around the
+   * expanded position, with the expanded position as parent. The verdict is remembered, so every
+   * cell is only judged once per expansion.
+   *
+   * @param reversed whether start and target are swapped, since the search is reversed
+   */
+  private boolean isValid(
+      byte[] verdicts,
+      int cell,
+      boolean reversed,
+      PathPosition start,
+      PathPosition target,
+      PathPosition from,
+      PathPosition position,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
-    Set<Node> newNodes = new HashSet<>(Offset.MERGED.getVectors().length);
-
-    for (PathVector vector : Offset.MERGED.getVectors()) {
-      Node newNode = createNeighbourNode(currentNode, vector);
-
-      if (isNodeValid(currentNode, newNode, examinedPositions, filters, filterStages)) {
-        newNodes.add(newNode);
-      }
+    if (verdicts[cell] == UNJUDGED) {
+      boolean invalid =
+          reversed
+              ? isNodeInvalid(target, start, from, position, filters, filterStages)
+              : isNodeInvalid(start, target, from, position, filters, filterStages);
+      verdicts[cell] = invalid ? INVALID : VALID;
     }
 
-    return newNodes;
-  }
-
-  private Node createNeighbourNode(Node currentNode, PathVector offset) {
-    Node newNode =
-        new Node(
-            currentNode.getPosition().add(offset),
-            currentNode.getStart(),
-            currentNode.getTarget(),
-            pathfinderConfiguration.getHeuristicWeights(),
-            currentNode.getDepth() + 1);
-    newNode.setParent(currentNode);
-    return newNode;
+    return verdicts[cell] == VALID;
   }
 
   /**
-   * Checks if the node is invalid. A node is invalid if it is outside the world bounds or is not
-   * valid according to the filters.
+   * Returns whether a move into the given cell does not cut through blocked corners. A move that is
+   * diagonal in the horizontal plane needs one of the two cells it cuts the corner of to be valid,
+   * see {@link NeighbourOffsets#CORNERS}. These cells are the same for the reversed move.
+   *
+   * @param reversed whether start and target are swapped, since the search is reversed
    */
-  private boolean isNodeInvalid(
-      Node node, List<PathFilter> filters, List<PathFilterStage> filterStages) {
-
-    int gridX = node.getPosition().getFlooredX() / DEFAULT_GRID_CELL_SIZE;
-    int gridY = node.getPosition().getFlooredY() / DEFAULT_GRID_CELL_SIZE;
-    int gridZ = node.getPosition().getFlooredZ() / DEFAULT_GRID_CELL_SIZE;
-
-    GridRegionData regionData =
-        gridMap
-            .computeIfAbsent(
-                new Tuple3<>(gridX, gridY, gridZ),
-                k -> new ExpiringHashMap.Entry<>(new GridRegionData()))
-            .getValue();
-
-    regionData.getRegionalExaminedPositions().add(node.getPosition());
-
-    if (regionData.getBloomFilter().mightContain(node.getPosition())) {
-      if (regionData.getRegionalExaminedPositions().contains(node.getPosition())) {
-        return true; // Node is invalid if already examined
+  private boolean canCutCorners(
+      byte[] verdicts,
+      int cell,
+      boolean reversed,
+      PathPosition start,
+      PathPosition target,
+      PathPosition from,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    int[][] corners = NeighbourOffsets.CORNERS[cell];
+    if (corners == null) return true;
+
+    for (int[] corner : corners) {
+      int cornerCell = JumpDirections.cell(corner[0], corner[1], corner[2]);
+      if (verdicts[cornerCell] == UNJUDGED) {
+        PathPosition position =
+            new PathPosition(
+                from.getPathEnvironment(),
+                from.getFlooredX() + corner[0],
+                from.getFlooredY() + corner[1],
+                from.getFlooredZ() + corner[2]);
+        isValid(
+            verdicts, cornerCell, reversed, start, target, from, position, filters, filterStages);
       }
-    } else {
-      regionData.getBloomFilter().put(node.getPosition());
-      regionData.getRegionalExaminedPositions().add(node.getPosition());
-    }
-
-    if (!isWithinWorldBounds(node.getPosition())) {
-      return true; // Node is invalid if out of bounds
-    }
 
-    boolean filtersPass = doAllFiltersPass(filters, node);
-    boolean stagesPass = doAnyFilterStagePass(filterStages, node);
-
-    if (!filtersPass) {
-      return true; // Node is invalid if filters fail
+      if (verdicts[cornerCell] == VALID) return true;
     }
 
-    return !stagesPass;
-  }
-
-  private boolean doAllFiltersPass(List<PathFilter> filters, Node node) {
-    for (PathFilter filter : filters) {
-      PathValidationContext context =
-          new PathValidationContext(
-              node.getPosition(),
-              node.getParent() != null ? node.getParent().getPosition() : null,
-              node.getStart(),
-              node.getTarget(),
-            navigationPointProvider);
-
-      if (!filter.filter(context)) {
-        return false;
-      }
-    }
-    return true;
-  }
-
-  private boolean doAnyFilterStagePass(List<PathFilterStage> filterStages, Node node) {
-    if (filterStages.isEmpty()) return true;
-
-    for (PathFilterStage filterStage : filterStages) {
-      if (filterStage.filter(
-          new PathValidationContext(
-              node.getPosition(),
-              node.getParent() != null ? node.getParent().getPosition() : null,
-              node.getStart(),
-              node.getTarget(),
-            navigationPointProvider))) {
-        return true;
-      }
-    }
     return false;
   }
-
-  private boolean isWithinWorldBounds(PathPosition position) {
-    return position.getPathEnvironment().getMinHeight() < position.getFlooredY()
-        && position.getFlooredY() < position.getPathEnvironment().getMaxHeight();
-  }
 }
@@ -1,33 +1,64 @@
 package de.metaphoriker.pathetic.engine.pathfinder;
 
+import de.metaphoriker.pathetic.api.pathing.FlowField;
+import de.metaphoriker.pathetic.api.pathing.NavigationSession;
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
 import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.NodeQueueType;
 import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
 import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
+import de.metaphoriker.pathetic.api.pathing.filter.PathValidationContext;
+import de.metaphoriker.pathetic.api.pathing.hook.PathImprovementContext;
 import de.metaphoriker.pathetic.api.pathing.hook.PathfinderHook;
 import de.metaphoriker.pathetic.api.pathing.hook.PathfindingContext;
+import de.metaphoriker.pathetic.api.pathing.hook.SearchStartContext;
 import de.metaphoriker.pathetic.api.pathing.result.Path;
 import de.metaphoriker.pathetic.api.pathing.result.PathState;
 import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
 import de.metaphoriker.pathetic.api.wrapper.Depth;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
 import de.metaphoriker.pathetic.api.wrapper.PathPosition;
-import de.metaphoriker.pathetic.engine.Node;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.cache.PathResultCache;
+import de.metaphoriker.pathetic.engine.cache.RequestCoalescer;
+import de.metaphoriker.pathetic.engine.flowfield.DijkstraFlowField;
+import de.metaphoriker.pathetic.engine.incremental.DStarLiteSession;
 import de.metaphoriker.pathetic.engine.result.PathImpl;
 import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import de.metaphoriker.pathetic.engine.util.DaryIndexedHeap;
 import de.metaphoriker.pathetic.engine.util.ErrorLogger;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import org.jheaps.tree.FibonacciHeap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The AbstractPathfinder class provides a skeletal implementation of the Pathfinder interface and
@@ -44,20 +75,58 @@ abstract class AbstractPathfinder implements Pathfinder {
   protected static final Set<PathPosition> EMPTY_LINKED_HASHSET =
       Collections.unmodifiableSet(new LinkedHashSet<>(0));
 
-  private static final ExecutorService PATHING_EXECUTOR = Executors.newWorkStealingPool();
+  private static final int BLOCKED = 0;
+  private static final int PASSABLE = 1;
 
-  static {
-    Runtime.getRuntime().addShutdownHook(new Thread(PATHING_EXECUTOR::shutdown));
-  }
+  /** The amount the inflation of an anytime search is lowered by after each pass. */
+  private static final double INFLATION_STEP = 0.5;
+
+  private final Set<PathfinderHook> pathfinderHooks = new CopyOnWriteArraySet<>();
+
+  /** The contexts of all requests that have not completed yet. */
+  private final Set<SearchContext> runningRequests = ConcurrentHashMap.newKeySet();
 
-  private final Set<PathfinderHook> pathfinderHooks = new HashSet<>();
+  /** The cache of search results, or {@code null} if it is disabled by the configuration. */
+  private final PathResultCache pathCache;
 
+  /** Lets equivalent requests share the search of the one that is already running. */
+  private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+  /** The sliced searches in the order they were started, the first one is proceeded with next. */
+  private final Queue<SlicedSearch<?>> slicedSearches = new ConcurrentLinkedQueue<>();
+
+  protected final NavigationPointProvider navigationPointProvider;
   protected final PathfinderConfiguration pathfinderConfiguration;
 
-  private volatile boolean aborted;
+  /** The offsets of the neighbours a node is expanded to, chosen by the configuration. */
+  protected final int[][] neighbourOffsets;
+
+  /** The executor asynchronous searches run on. */
+  private final Executor executor;
+
+  /** The scheduler queueing asynchronous searches, or {@code null} if it is disabled. */
+  private final FairScheduler scheduler;
 
-  protected AbstractPathfinder(PathfinderConfiguration pathfinderConfiguration) {
+  protected AbstractPathfinder(
+      NavigationPointProvider navigationPointProvider,
+      PathfinderConfiguration pathfinderConfiguration) {
+    this.navigationPointProvider = navigationPointProvider;
     this.pathfinderConfiguration = pathfinderConfiguration;
+    this.neighbourOffsets = NeighbourOffsets.of(pathfinderConfiguration.getNeighbourStrategy());
+    this.executor =
+        pathfinderConfiguration.getExecutor() != null
+            ? pathfinderConfiguration.getExecutor()
+            : SharedExecutor.INSTANCE;
+    this.scheduler =
+        pathfinderConfiguration.getMaxConcurrentSearches() > 0
+            ? new FairScheduler(executor, pathfinderConfiguration.getMaxConcurrentSearches())
+            : null;
+    this.pathCache =
+        pathfinderConfiguration.getPathCacheSize() > 0
+            ? new PathResultCache(
+                pathfinderConfiguration.getPathCacheSize(),
+                pathfinderConfiguration.getPathCacheFailureTtlMillis())
+            : null;
   }
 
   @Override
@@ -72,6 +141,28 @@ abstract class AbstractPathfinder implements Pathfinder {
       PathPosition target,
       List<PathFilter> sharedFilters,
       List<PathFilterStage> filterStages) {
+    return findPath(start, target, sharedFilters, filterStages, null);
+  }
+
+  @Override
+  public CompletionStage<PathfinderResult> findPath(
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages,
+      Object filterFingerprint) {
+    return findPath(
+        start, target, sharedFilters, filterStages, filterFingerprint, PathRequestTag.DEFAULT);
+  }
+
+  @Override
+  public CompletionStage<PathfinderResult> findPath(
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages,
+      Object filterFingerprint,
+      PathRequestTag requestTag) {
     if (sharedFilters == null) sharedFilters = Collections.emptyList();
     if (filterStages == null) filterStages = Collections.emptyList();
 
@@ -81,13 +172,182 @@ abstract class AbstractPathfinder implements Pathfinder {
               PathState.INITIALLY_FAILED, new PathImpl(start, target, EMPTY_LINKED_HASHSET)));
     }
 
-    return initiatePathing(start, target, sharedFilters, filterStages);
+    List<PathFilter> filters = sharedFilters;
+    List<PathFilterStage> stages = filterStages;
+
+    if (filterFingerprint == null)
+      return track(
+          requestTag, context -> initiatePathing(context, start, target, filters, stages));
+
+    if (pathCache != null) {
+      PathfinderResult cachedResult = pathCache.get(start, target, filterFingerprint);
+      if (cachedResult != null) return CompletableFuture.completedFuture(cachedResult);
+    }
+
+    return requestCoalescer.coalesce(
+        start,
+        target,
+        filterFingerprint,
+        requestTag.getPriority(),
+        () -> {
+          long cacheEpoch = pathCache != null ? pathCache.getEpoch() : 0;
+          return track(
+              requestTag,
+              context ->
+                  initiatePathing(context, start, target, filters, stages)
+                      .thenApply(
+                          result -> {
+                            if (pathCache != null)
+                              pathCache.put(start, target, filterFingerprint, result, cacheEpoch);
+                            return result;
+                          }));
+        });
+  }
+
+  @Override
+  public CompletionStage<Map<PathPosition, PathfinderResult>> findPaths(
+      PathPosition start, Collection<PathPosition> targets, List<PathFilter> filters) {
+    return findPaths(start, targets, filters, null);
+  }
+
+  @Override
+  public CompletionStage<Map<PathPosition, PathfinderResult>> findPaths(
+      PathPosition start,
+      Collection<PathPosition> targets,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages) {
+    List<PathFilter> filters = sharedFilters == null ? Collections.emptyList() : sharedFilters;
+    List<PathFilterStage> stages = filterStages == null ? Collections.emptyList() : filterStages;
+
+    return track(
+        PathRequestTag.DEFAULT,
+        context -> initiateMultiTargetPathing(context, start, targets, filters, stages));
+  }
+
+  private CompletionStage<Map<PathPosition, PathfinderResult>> initiateMultiTargetPathing(
+      SearchContext context,
+      PathPosition start,
+      Collection<PathPosition> targets,
+      List<PathFilter> filters,
+      List<PathFilterStage> stages) {
+    if (pathfinderConfiguration.isAsync())
+      return supplyAsync(
+          context,
+          false,
+          () ->
+              executeMultiTargetPathingAndCleanupFilters(context, start, targets, filters, stages),
+          throwable -> handleMultiTargetException(start, targets, throwable));
+
+    if (isSliced()) {
+      SlicedSearch<Map<PathPosition, PathfinderResult>> slicedSearch =
+          new SlicedSearch<>(
+              context,
+              () -> new MultiTargetSearch(context, start, targets, filters, stages),
+              state -> pathlessResults(state, start, targets),
+              filters,
+              stages);
+      slicedSearches.add(slicedSearch);
+      return slicedSearch.result;
+    }
+
+    try {
+      return CompletableFuture.completedFuture(
+          executeMultiTargetPathingAndCleanupFilters(context, start, targets, filters, stages));
+    } catch (Exception e) {
+      throw ErrorLogger.logFatalError("Failed to find paths sync", e);
+    }
+  }
+
+  /**
+   * Starts a request with its own context, which is aborted if the returned future is cancelled.
+   * The context is kept until the request has completed, so {@link #abort()} can reach it.
+   */
+  private <T> CompletionStage<T> track(
+      PathRequestTag requestTag, Function<SearchContext, CompletionStage<T>> request) {
+    SearchContext context =
+        new SearchContext(requestTag, pathfinderConfiguration.getRequestDeadlineNanos());
+    runningRequests.add(context);
+
+    CompletableFuture<T> result;
+    try {
+      result = request.apply(context).toCompletableFuture();
+    } catch (RuntimeException e) {
+      runningRequests.remove(context);
+      throw e;
+    }
+
+    result.whenComplete(
+        (value, throwable) -> {
+          runningRequests.remove(context);
+          if (result.isCancelled()) context.abort();
+        });
+    return result;
+  }
+
+  @Override
+  public NavigationSession openSession(
+      PathPosition target, List<PathFilter> sharedFilters, List<PathFilterStage> filterStages) {
+    Passability passability = createTargetPassability(target, sharedFilters, filterStages);
+    return new DStarLiteSession(target, passability, pathfinderConfiguration);
+  }
+
+  @Override
+  public FlowField createFlowField(
+      PathPosition target,
+      int radius,
+      List<PathFilter> sharedFilters,
+      List<PathFilterStage> filterStages) {
+    return new DijkstraFlowField(
+        target, radius, createTargetPassability(target, sharedFilters, filterStages));
+  }
+
+  /**
+   * Creates the passability of searches that run towards a target without a fixed start, which
+   * evaluates the filters with the target as start and target, and every position as its own
+   * parent.
+   */
+  private Passability createTargetPassability(
+      PathPosition target, List<PathFilter> sharedFilters, List<PathFilterStage> filterStages) {
+    List<PathFilter> filters = sharedFilters == null ? Collections.emptyList() : sharedFilters;
+    List<PathFilterStage> stages = filterStages == null ? Collections.emptyList() : filterStages;
+
+    PathPosition flooredTarget = target.floor();
+    PathEnvironment environment = flooredTarget.getPathEnvironment();
+    return (x, y, z) -> {
+      PathPosition position = new PathPosition(environment, x, y, z);
+      return !isNodeInvalid(flooredTarget, flooredTarget, position, position, filters, stages);
+    };
+  }
+
+  @Override
+  public void resumeSearches() {
+    SearchSlice slice =
+        SearchSlice.of(
+            pathfinderConfiguration.getTickBudgetMicros(),
+            pathfinderConfiguration.getTickBudgetExpansions());
+
+    // every search is visited once, so searches waiting for loads are not proceeded with in a loop
+    int unvisited = slicedSearches.size();
+    SlicedSearch<?> slicedSearch;
+    while (unvisited-- > 0 && (slicedSearch = slicedSearches.peek()) != null) {
+      if (!slicedSearch.proceed(slice)) {
+        if (slice.isUsedUp()) return;
+
+        // all nodes of the search wait for loads, the searches behind it go first meanwhile
+        slicedSearches.poll();
+        slicedSearches.add(slicedSearch);
+        continue;
+      }
+      slicedSearches.poll();
+    }
+
+    if (pathfinderConfiguration.isReuseSearchMemory()) SearchArena.current().trimIfIdle();
   }
 
   /** Give the pathfinder the final shot */
   @Override
   public void abort() {
-    this.aborted = true;
+    runningRequests.forEach(SearchContext::abort);
   }
 
   @Override
@@ -108,184 +368,1441 @@ abstract class AbstractPathfinder implements Pathfinder {
   }
 
   private CompletionStage<PathfinderResult> initiatePathing(
+      SearchContext context,
       PathPosition start,
       PathPosition target,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
-    return pathfinderConfiguration.isAsync()
-        ? CompletableFuture.supplyAsync(
-                () -> executePathingAndCleanupFilters(start, target, filters, filterStages),
-                PATHING_EXECUTOR)
-            .exceptionally(throwable -> handleException(start, target, throwable))
-        : initiateSyncPathing(start, target, filters, filterStages);
+    if (pathfinderConfiguration.isAsync())
+      return initiateAsyncPathing(context, start, target, filters, filterStages);
+
+    if (isSliced()) return initiateSlicedPathing(context, start, target, filters, filterStages);
+
+    return initiateSyncPathing(context, start, target, filters, filterStages);
   }
 
-  private PathfinderResult executePathing(
+  /**
+   * Runs a search on the executor. Whenever all nodes it has left wait for navigation points to
+   * load, the search hands its thread back, and is continued on the executor once one of the loads
+   * has completed. It is handed back to the executor from a thread of the pathfinders rather than
+   * the one that completed the load, since an executor that runs rejected searches on the calling
+   * thread would otherwise run it on, e.g., the main thread.
+   */
+  private CompletionStage<PathfinderResult> initiateAsyncPathing(
+      SearchContext context,
       PathPosition start,
       PathPosition target,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
+    SlicedSearch<PathfinderResult> slicedSearch =
+        new SlicedSearch<>(
+            context,
+            () -> createSearch(context, start, target, filters, filterStages),
+            state -> pathlessResult(state, start, target),
+            filters,
+            filterStages);
+    proceedAsync(slicedSearch);
+    return slicedSearch.result;
+  }
+
+  private void proceedAsync(SlicedSearch<?> slicedSearch) {
+    supplyAsync(
+            slicedSearch.context,
+            true,
+            () -> slicedSearch.proceed(SearchSlice.untilBlocked()),
+            throwable -> {
+              slicedSearch.fail(throwable);
+              return true;
+            })
+        .whenComplete(
+            (finished, throwable) -> {
+              if (throwable instanceof CancellationException) slicedSearch.skip();
+              else if (throwable != null) slicedSearch.reject(throwable);
+              else if (!finished)
+                awaitResumption(slicedSearch)
+                    .thenRunAsync(() -> proceedAsync(slicedSearch), ResumptionExecutor.INSTANCE);
+            });
+  }
+
+  /**
+   * Returns a stage that completes once a search that has handed back its thread can be proceeded
+   * with: once one of its loads has completed, its request has been aborted, or the deadline of its
+   * request has passed.
+   */
+  private CompletableFuture<?> awaitResumption(SlicedSearch<?> slicedSearch) {
+    SearchContext context = slicedSearch.context;
+    CompletableFuture<Object> resumption =
+        CompletableFuture.anyOf(
+            slicedSearch.awaitLoad(), context.whenAborted().toCompletableFuture());
+
+    long remainingNanos = context.getRemainingNanos();
+    if (remainingNanos != Long.MAX_VALUE) {
+      ScheduledFuture<?> timeout =
+          DeadlineTimer.INSTANCE.schedule(
+              () -> resumption.complete(null), remainingNanos, TimeUnit.NANOSECONDS);
+      resumption.whenComplete((value, throwable) -> timeout.cancel(false));
+    }
+    return resumption;
+  }
+
+  /**
+   * Queues a synchronous search that is proceeded with on every {@link #resumeSearches()} until it
+   * has finished. Searches run one after another, so a search only starts once all earlier ones
+   * have finished or wait for navigation points to load.
+   */
+  private CompletionStage<PathfinderResult> initiateSlicedPathing(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    SlicedSearch<PathfinderResult> slicedSearch =
+        new SlicedSearch<>(
+            context,
+            () -> createSearch(context, start, target, filters, filterStages),
+            state -> pathlessResult(state, start, target),
+            filters,
+            filterStages);
+    slicedSearches.add(slicedSearch);
+    return slicedSearch.result;
+  }
+
+  /**
+   * Runs a complete search on the calling thread. Subclasses may override this to split a search
+   * into several smaller ones.
+   */
+  protected PathfinderResult executePathing(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    Search search = null;
     try {
-      Node startNode = createStartNode(start, target);
-      FibonacciHeap<Double, Node> nodeQueue = new FibonacciHeap<>();
-      nodeQueue.insert(startNode.getFCost(), startNode);
+      search = newSearch(context, start, target, filters, filterStages);
+      return search.proceed(SearchSlice.unlimited());
+    } catch (Exception e) {
+      throw ErrorLogger.logFatalErrorWithStacktrace("Failed to find path", e);
+    } finally {
+      if (search != null) search.releaseMemory();
+    }
+  }
 
-      Set<PathPosition> examinedPositions = new HashSet<>();
-      Depth depth = Depth.of(1);
-      Node fallbackNode = startNode;
+  /**
+   * Creates the search a sliced search proceeds with on every server tick. Subclasses that override
+   * {@link #executePathing} have to override this as well, otherwise their sliced searches skip
+   * the override.
+   */
+  protected Search createSearch(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    return newSearch(context, start, target, filters, filterStages);
+  }
 
-      while (!nodeQueue.isEmpty()
-          && depth.getValue() <= pathfinderConfiguration.getMaxIterations()) {
+  private Search newSearch(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    PathPosition flooredStart = start.floor();
+    PathPosition flooredTarget = target.floor();
 
-        pathfinderHooks.forEach(hook -> hook.onPathfindingStep(new PathfindingContext(depth)));
+    if (isAnytime())
+      return new AnytimeSearch(context, flooredStart, flooredTarget, filters, filterStages);
 
-        if (isAborted()) return abortedPathing(fallbackNode);
+    if (pathfinderConfiguration.isBidirectional())
+      return new BidirectionalSearch(context, flooredStart, flooredTarget, filters, filterStages);
 
-        Node currentNode = nodeQueue.deleteMin().getValue();
-        fallbackNode = currentNode;
+    return new UnidirectionalSearch(context, flooredStart, flooredTarget, filters, filterStages);
+  }
 
-        if (hasReachedLengthLimit(currentNode)) {
-          return new PathfinderResultImpl(PathState.LENGTH_LIMITED, fetchRetracedPath(currentNode));
-        }
+  private Heuristic createInflatedHeuristic(
+      PathPosition start, PathPosition target, double inflation) {
+    return new Heuristic(start, target, pathfinderConfiguration.getHeuristicWeights(), inflation);
+  }
 
-        if (currentNode.isTarget()) {
-          return new PathfinderResultImpl(PathState.FOUND, fetchRetracedPath(currentNode));
-        }
+  /**
+   * Returns how far the cost of the path to the target is at most away from the cheapest one. No
+   * path can be cheaper than the lowest uninflated estimate among the nodes still to be expanded.
+   */
+  private double suboptimalityBound(
+      NodeStore nodeStore, IndexedHeap nodeQueue, int targetNode, double inflation) {
+    double lowestEstimate = Double.POSITIVE_INFINITY;
+    for (int node = 0; node < nodeStore.size(); node++) {
+      if (nodeQueue.contains(node) || nodeStore.isInconsistent(node))
+        lowestEstimate = Math.min(lowestEstimate, uninflatedFCost(nodeStore, node, inflation));
+    }
 
-        tick(
-            start, target, currentNode, depth, nodeQueue, examinedPositions, filters, filterStages);
-      }
+    double bound = uninflatedFCost(nodeStore, targetNode, inflation) / lowestEstimate;
+    return Math.max(1, Math.min(inflation, bound));
+  }
 
-      aborted = false; // just in case
+  private static double uninflatedFCost(NodeStore nodeStore, int node, double inflation) {
+    double gCost = nodeStore.getGCost(node);
+    return gCost + (nodeStore.getFCost(node) - gCost) / inflation;
+  }
 
-      return backupPathfindingOrFailure(depth, start, target, fallbackNode);
-    } catch (Exception e) {
-      throw ErrorLogger.logFatalErrorWithStacktrace("Failed to find path", e);
+  /**
+   * Prepares the next pass of an anytime search. The heuristic part of every node is scaled to the
+   * lowered inflation, the nodes set aside during the last pass are queued again, and all other
+   * expanded nodes are reopened so the next pass may expand them once more.
+   */
+  private void requeueForNextPass(NodeStore nodeStore, IndexedHeap nodeQueue, double scale) {
+    for (int node = 0; node < nodeStore.size(); node++) {
+      double gCost = nodeStore.getGCost(node);
+      double fCost = gCost + (nodeStore.getFCost(node) - gCost) * scale;
+      nodeStore.update(node, nodeStore.getParent(node), gCost, fCost, nodeStore.getDepth(node));
+
+      if (nodeQueue.contains(node)) {
+        nodeQueue.decreaseKey(node, Math.min(fCost, nodeQueue.getKey(node)));
+      } else if (nodeStore.isInconsistent(node)) {
+        nodeStore.reopen(node);
+        nodeQueue.insert(node, fCost);
+      } else {
+        nodeStore.reopen(node);
+      }
     }
   }
 
-  private PathfinderResult abortedPathing(Node fallbackNode) {
-    aborted = false;
-    return new PathfinderResultImpl(PathState.ABORTED, fetchRetracedPath(fallbackNode));
+  private Frontier createFrontier(PathPosition start, PathPosition target) {
+    Heuristic heuristic =
+        new Heuristic(start, target, pathfinderConfiguration.getHeuristicWeights());
+    SearchArena.Memory memory = acquireMemory(start.getPathEnvironment());
+
+    int startNode = createStartNode(memory.nodeStore, heuristic, start);
+    memory.nodeQueue.insert(startNode, memory.nodeStore.getFCost(startNode));
+
+    return new Frontier(start, target, heuristic, memory, startNode);
+  }
+
+  private PathfinderResult abortedPathing(
+      NodeStore nodeStore, int fallbackNode, PathPosition start, PathPosition target) {
+    return new PathfinderResultImpl(
+        PathState.ABORTED, fetchRetracedPath(nodeStore, fallbackNode, start, target));
   }
 
-  private boolean isAborted() {
-    return aborted;
+  private PathfinderResult deadlineExceeded(
+      NodeStore nodeStore, int fallbackNode, PathPosition start, PathPosition target) {
+    return new PathfinderResultImpl(
+        PathState.DEADLINE_EXCEEDED, fetchRetracedPath(nodeStore, fallbackNode, start, target));
+  }
+
+  private FrontierPrefetcher createPrefetcher(PathEnvironment environment) {
+    return new FrontierPrefetcher(
+        navigationPointProvider, environment, pathfinderConfiguration.getPrefetchDistance());
+  }
+
+  private boolean isSliced() {
+    return pathfinderConfiguration.getTickBudgetMicros() > 0
+        || pathfinderConfiguration.getTickBudgetExpansions() > 0;
+  }
+
+  private boolean isAnytime() {
+    return pathfinderConfiguration.getAnytimeBudgetMillis() > 0;
+  }
+
+  /**
+   * Runs a search on the executor, queued by the fair scheduler if it is enabled. If the executor
+   * rejects it, the returned stage completes exceptionally with the {@link
+   * RejectedExecutionException}, so callers can back off.
+   *
+   * @param skipIfAborted whether the search is skipped if its request is aborted while it is
+   *     queued, which cancels the returned stage. Otherwise, it is only skipped once the returned
+   *     stage is cancelled.
+   * @param failureHandler creates the result of a search that has thrown
+   */
+  private <T> CompletableFuture<T> supplyAsync(
+      SearchContext context,
+      boolean skipIfAborted,
+      Supplier<T> search,
+      Function<Throwable, T> failureHandler) {
+    if (scheduler != null)
+      return scheduler.submit(
+          context.getRequestTag(),
+          skipIfAborted ? context.whenAborted().toCompletableFuture() : null,
+          () -> {
+            try {
+              return search.get();
+            } catch (RuntimeException e) {
+              return failureHandler.apply(e);
+            }
+          });
+
+    try {
+      return CompletableFuture.supplyAsync(search, executor).exceptionally(failureHandler);
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<T> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(e);
+      return rejected;
+    }
   }
 
   private CompletionStage<PathfinderResult> initiateSyncPathing(
+      SearchContext context,
       PathPosition start,
       PathPosition target,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
     try {
       return CompletableFuture.completedFuture(
-          executePathingAndCleanupFilters(start, target, filters, filterStages));
+          executePathingAndCleanupFilters(context, start, target, filters, filterStages));
     } catch (Exception e) {
       throw ErrorLogger.logFatalError("Failed to find path sync", e);
     }
   }
 
   private PathfinderResult executePathingAndCleanupFilters(
+      SearchContext context,
       PathPosition start,
       PathPosition target,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages) {
-    PathfinderResult pathfinderResult = executePathing(start, target, filters, filterStages);
+    notifySearchStarted(context);
+    PathfinderResult pathfinderResult =
+        executePathing(context, start, target, filters, filterStages);
+    cleanupFilters(filters, filterStages);
+    return pathfinderResult;
+  }
+
+  private void notifySearchStarted(SearchContext context) {
+    if (pathfinderHooks.isEmpty()) return;
+
+    SearchStartContext searchStartContext =
+        new SearchStartContext(context.getRequestTag(), context.getAgeNanos());
+    pathfinderHooks.forEach(hook -> hook.onSearchStarted(searchStartContext));
+  }
+
+  private void cleanupFilters(List<PathFilter> filters, List<PathFilterStage> filterStages) {
     filters.forEach(PathFilter::cleanup);
     filterStages.forEach(PathFilterStage::cleanup);
     cleanup();
-    return pathfinderResult;
   }
 
-  private PathfinderResult handleException(
-      PathPosition start, PathPosition target, Throwable throwable) {
-    ErrorLogger.logFatalError("Failed to find path async", throwable);
-    return new PathfinderResultImpl(
-        PathState.FAILED, new PathImpl(start, target, EMPTY_LINKED_HASHSET));
+  private Map<PathPosition, PathfinderResult> executeMultiTargetPathingAndCleanupFilters(
+      SearchContext context,
+      PathPosition start,
+      Collection<PathPosition> targets,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    notifySearchStarted(context);
+    Map<PathPosition, PathfinderResult> results;
+    MultiTargetSearch search = null;
+    try {
+      search = new MultiTargetSearch(context, start, targets, filters, filterStages);
+      results = search.proceed(SearchSlice.unlimited());
+    } catch (Exception e) {
+      throw ErrorLogger.logFatalErrorWithStacktrace("Failed to find paths", e);
+    } finally {
+      if (search != null) search.releaseMemory();
+    }
+
+    cleanupFilters(filters, filterStages);
+    return results;
+  }
+
+  private Map<PathPosition, PathfinderResult> handleMultiTargetException(
+      PathPosition start, Collection<PathPosition> targets, Throwable throwable) {
+    ErrorLogger.logFatalError("Failed to find paths async", throwable);
+    return pathlessResults(PathState.FAILED, start, targets);
+  }
+
+  private static Map<PathPosition, PathfinderResult> pathlessResults(
+      PathState state, PathPosition start, Collection<PathPosition> targets) {
+    Map<PathPosition, PathfinderResult> results = new LinkedHashMap<>();
+    for (PathPosition target : targets) results.put(target, pathlessResult(state, start, target));
+    return results;
+  }
+
+  private static PathfinderResult failedResult(PathPosition start, PathPosition target) {
+    return pathlessResult(PathState.FAILED, start, target);
+  }
+
+  private static PathfinderResult pathlessResult(
+      PathState state, PathPosition start, PathPosition target) {
+    return new PathfinderResultImpl(state, new PathImpl(start, target, EMPTY_LINKED_HASHSET));
+  }
+
+  /**
+   * Provides the node store and open list of a search, taken from the arena of the calling thread
+   * if search memory is reused.
+   */
+  private SearchArena.Memory acquireMemory(PathEnvironment pathEnvironment) {
+    NodeQueueType nodeQueueType = pathfinderConfiguration.getNodeQueueType();
+    int arity = nodeQueueType == NodeQueueType.BINARY_HEAP ? 2 : 4;
+
+    if (pathfinderConfiguration.isReuseSearchMemory())
+      return SearchArena.current().acquire(pathEnvironment, arity);
+
+    return new SearchArena.Memory(new NodeStore(pathEnvironment), new DaryIndexedHeap(arity));
+  }
+
+  private void releaseMemory(SearchArena.Memory memory) {
+    if (pathfinderConfiguration.isReuseSearchMemory()) SearchArena.current().release(memory);
   }
 
-  private Node createStartNode(PathPosition start, PathPosition target) {
-    return new Node(
-        start.floor(),
-        start.floor(),
-        target.floor(),
-        pathfinderConfiguration.getHeuristicWeights(),
-        0);
+  private int createStartNode(NodeStore nodeStore, Heuristic heuristic, PathPosition start) {
+    double heuristicCost =
+        heuristic.estimate(start.getFlooredX(), start.getFlooredY(), start.getFlooredZ());
+    return nodeStore.add(PackedPosition.pack(start), NodeStore.NO_PARENT, 0, heuristicCost, 0);
   }
 
-  private boolean hasReachedLengthLimit(Node currentNode) {
+  private boolean hasReachedLengthLimit(NodeStore nodeStore, int currentNode) {
     return pathfinderConfiguration.getMaxLength() != 0
-        && currentNode.getDepth() > pathfinderConfiguration.getMaxLength();
+        && nodeStore.getDepth(currentNode) > pathfinderConfiguration.getMaxLength();
   }
 
   /** If the pathfinder has failed to find a path, it will try to still give a result. */
   private PathfinderResult backupPathfindingOrFailure(
-      Depth depth, PathPosition start, PathPosition target, Node fallbackNode) {
+      Depth depth, NodeStore nodeStore, int fallbackNode, PathPosition start, PathPosition target) {
 
-    Optional<PathfinderResult> maxIterationsResult = maxIterationsReached(depth, fallbackNode);
+    Optional<PathfinderResult> maxIterationsResult =
+        maxIterationsReached(depth, nodeStore, fallbackNode, start, target);
     if (maxIterationsResult.isPresent()) {
       return maxIterationsResult.get();
     }
 
-    Optional<PathfinderResult> fallbackResult = fallback(fallbackNode);
+    Optional<PathfinderResult> fallbackResult = fallback(nodeStore, fallbackNode, start, target);
     return fallbackResult.orElseGet(
         () ->
             new PathfinderResultImpl(
                 PathState.FAILED, new PathImpl(start, target, EMPTY_LINKED_HASHSET)));
   }
 
-  private Optional<PathfinderResult> maxIterationsReached(Depth depth, Node fallbackNode) {
+  private Optional<PathfinderResult> maxIterationsReached(
+      Depth depth, NodeStore nodeStore, int fallbackNode, PathPosition start, PathPosition target) {
     if (depth.getValue() > pathfinderConfiguration.getMaxIterations())
       return Optional.of(
           new PathfinderResultImpl(
-              PathState.MAX_ITERATIONS_REACHED, fetchRetracedPath(fallbackNode)));
+              PathState.MAX_ITERATIONS_REACHED,
+              fetchRetracedPath(nodeStore, fallbackNode, start, target)));
     return Optional.empty();
   }
 
-  private Optional<PathfinderResult> fallback(Node fallbackNode) {
+  private Optional<PathfinderResult> fallback(
+      NodeStore nodeStore, int fallbackNode, PathPosition start, PathPosition target) {
     if (pathfinderConfiguration.isFallback())
       return Optional.of(
-          new PathfinderResultImpl(PathState.FALLBACK, fetchRetracedPath(fallbackNode)));
+          new PathfinderResultImpl(
+              PathState.FALLBACK, fetchRetracedPath(nodeStore, fallbackNode, start, target)));
     return Optional.empty();
   }
 
-  private Path fetchRetracedPath(Node node) {
-    if (node.getParent() == null)
-      return new PathImpl(
-          node.getStart(), node.getTarget(), Collections.singletonList(node.getPosition()));
+  private Path fetchRetracedPath(
+      NodeStore nodeStore, int node, PathPosition start, PathPosition target) {
+    if (nodeStore.getParent(node) == NodeStore.NO_PARENT)
+      return new PathImpl(start, target, Collections.singletonList(nodeStore.toPathPosition(node)));
 
-    List<PathPosition> path = tracePathFromNode(node);
-    return new PathImpl(node.getStart(), node.getTarget(), path);
+    List<PathPosition> path = tracePathFromNode(nodeStore, node);
+    return new PathImpl(start, target, path);
   }
 
-  private List<PathPosition> tracePathFromNode(Node endNode) {
-    List<PathPosition> path = new ArrayList<>();
-    Node currentNode = endNode;
+  /**
+   * Joins the forward path to the meeting position with the backward path from it to the target.
+   * Both nodes lie on the same position.
+   */
+  private Path fetchJoinedPath(
+      NodeStore forwardStore,
+      int forwardNode,
+      NodeStore backwardStore,
+      int backwardNode,
+      PathPosition start,
+      PathPosition target) {
+    List<PathPosition> path = tracePathFromNode(forwardStore, forwardNode);
+    List<PathPosition> remainingPath = traceToRoot(backwardStore, backwardNode);
 
-    while (currentNode != null) {
-      path.add(currentNode.getPosition());
-      currentNode = currentNode.getParent();
-    }
+    path.addAll(remainingPath.subList(1, remainingPath.size()));
+    return new PathImpl(start, target, path);
+  }
 
+  private List<PathPosition> tracePathFromNode(NodeStore nodeStore, int endNode) {
+    List<PathPosition> path = traceToRoot(nodeStore, endNode);
     Collections.reverse(path); // Reverse the path to get the correct order
     return path;
   }
 
+  /** Collects the positions from the given node back to the node its search started from. */
+  private List<PathPosition> traceToRoot(NodeStore nodeStore, int node) {
+    List<PathPosition> path = new ArrayList<>(nodeStore.getDepth(node) + 1);
+    int currentNode = node;
+
+    while (currentNode != NodeStore.NO_PARENT) {
+      path.add(nodeStore.toPathPosition(currentNode));
+
+      int parentNode = nodeStore.getParent(currentNode);
+      if (parentNode != NodeStore.NO_PARENT)
+        appendIntermediatePositions(path, nodeStore, currentNode, parentNode);
+
+      currentNode = parentNode;
+    }
+
+    return path;
+  }
+
+  /**
+   * Appends the positions that lie between a node and its parent, walking from the node towards the
+   * parent and excluding both. Pathfinders whose nodes are always adjacent to their parent do not
+   * need to override this.
+   */
+  protected void appendIntermediatePositions(
+      List<PathPosition> path, NodeStore nodeStore, int node, int parentNode) {}
+
+  /**
+   * Called for every node taken from the open list, before it is compared against the target or
+   * expanded, and for the node of the opposite search a bidirectional search meets. Pathfinders
+   * that connect nodes to parents they have not validated yet can correct the node here.
+   *
+   * @param start the floored start position of the search the node belongs to
+   * @param target the floored target position of the search the node belongs to
+   */
+  protected void settleNode(
+      PathPosition start,
+      PathPosition target,
+      int node,
+      NodeStore nodeStore,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {}
+
+  /**
+   * Whether the given cost undercuts the best known cost of a node. Nodes that have already been
+   * expanded are only reconsidered if reopening is enabled or the search is an anytime search,
+   * otherwise the heuristic is trusted to be consistent and their first route to be the cheapest.
+   */
+  protected boolean isCheaperRoute(int node, double gCost, NodeStore nodeStore) {
+    if (nodeStore.isClosed(node)
+        && !pathfinderConfiguration.isReopenClosedNodes()
+        && !isAnytime()) return false;
+    return gCost < nodeStore.getGCost(node);
+  }
+
+  /**
+   * Re-parents a node onto a cheaper route. A queued node has its priority lowered, an expanded one
+   * is reopened and queued again. An anytime search marks an expanded node as inconsistent instead,
+   * it is queued again in the next pass.
+   *
+   * @param depth the number of steps from the start to the node along the new route
+   */
+  protected void improveNode(
+      int node,
+      int newParent,
+      double gCost,
+      int depth,
+      NodeStore nodeStore,
+      IndexedHeap nodeQueue) {
+    double heuristicCost = nodeStore.getFCost(node) - nodeStore.getGCost(node);
+    double fCost = gCost + heuristicCost;
+
+    nodeStore.update(node, newParent, gCost, fCost, depth);
+
+    if (nodeQueue.contains(node)) {
+      nodeQueue.decreaseKey(node, fCost);
+    } else if (isAnytime() && nodeStore.isClosed(node)) {
+      nodeStore.markInconsistent(node);
+    } else {
+      nodeStore.reopen(node);
+      nodeQueue.insert(node, fCost);
+    }
+  }
+
+  /**
+   * Checks if the node is invalid. A node is invalid if it is outside the world bounds or is not
+   * valid according to the filters.
+   */
+  protected boolean isNodeInvalid(
+      PathPosition start,
+      PathPosition target,
+      PathPosition parent,
+      PathPosition position,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+
+    if (!isWithinWorldBounds(position)) {
+      return true; // Node is invalid if out of bounds
+    }
+
+    boolean filtersPass = doAllFiltersPass(filters, start, target, parent, position);
+    boolean stagesPass = doAnyFilterStagePass(filterStages, start, target, parent, position);
+
+    if (!filtersPass) {
+      return true; // Node is invalid if filters fail
+    }
+
+    return !stagesPass;
+  }
+
+  /**
+   * Creates a passability backed by the filters and filter stages. The position itself is handed to
+   * the filters as its parent, and every outcome is remembered in the given map.
+   */
+  protected Passability createPassability(
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages,
+      LongIntHashMap knownPassability) {
+    PathEnvironment environment = start.getPathEnvironment();
+
+    return (x, y, z) -> {
+      long packedPosition = PackedPosition.pack(x, y, z);
+      int known = knownPassability.get(packedPosition);
+      if (known != LongIntHashMap.NO_VALUE) return known == PASSABLE;
+
+      PathPosition position = new PathPosition(environment, x, y, z);
+      boolean passable = !isNodeInvalid(start, target, position, position, filters, filterStages);
+
+      knownPassability.put(packedPosition, passable ? PASSABLE : BLOCKED);
+      return passable;
+    };
+  }
+
+  protected boolean doAllFiltersPass(
+      List<PathFilter> filters,
+      PathPosition start,
+      PathPosition target,
+      PathPosition parent,
+      PathPosition position) {
+    for (PathFilter filter : filters) {
+      PathValidationContext context =
+          new PathValidationContext(position, parent, start, target, navigationPointProvider);
+
+      if (!filter.filter(context)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected boolean doAnyFilterStagePass(
+      List<PathFilterStage> filterStages,
+      PathPosition start,
+      PathPosition target,
+      PathPosition parent,
+      PathPosition position) {
+    if (filterStages.isEmpty()) return true;
+
+    for (PathFilterStage filterStage : filterStages) {
+      if (filterStage.filter(
+          new PathValidationContext(position, parent, start, target, navigationPointProvider))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected boolean isWithinWorldBounds(PathPosition position) {
+    return position.getPathEnvironment().getMinHeight() < position.getFlooredY()
+        && position.getFlooredY() < position.getPathEnvironment().getMaxHeight();
+  }
   /**
    * @deprecated Will be realized in a better way in the future
    */
   @Deprecated
   protected abstract void cleanup();
 
-  /** The tick method is called to tick the pathfinding algorithm. */
+  /**
+   * Expands a node of a multi-target search. Such a search heads for no particular target, so the
+   * start is handed to the filters as target. By default the node is ticked with the start as
+   * target, pathfinders that skip positions on their way towards the target have to override this
+   * and reach every neighbour instead.
+   */
+  protected void tickWithoutTarget(
+      PathPosition start,
+      int currentNode,
+      Depth depth,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    tick(start, start, currentNode, depth, nodeStore, heuristic, nodeQueue, filters, filterStages);
+  }
+
+  /**
+   * The tick method is called to tick the pathfinding algorithm.
+   *
+   * @param start the floored start position
+   * @param target the floored target position
+   * @param currentNode the index of the node that is being expanded
+   * @param nodeStore the store holding every node of the current search
+   */
   protected abstract void tick(
       PathPosition start,
       PathPosition target,
-      Node currentNode,
+      int currentNode,
       Depth depth,
-      FibonacciHeap<Double, Node> nodeQueue,
-      Set<PathPosition> examinedPositions,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
       List<PathFilter> filters,
       List<PathFilterStage> filterStages);
+
+  /**
+   * The state of a single search, which can be suspended between two expansions and proceeded with
+   * later on. This is what allows a synchronous search to be spread over several server ticks.
+   */
+  protected abstract class Search implements Resumable<PathfinderResult> {
+
+    @Override
+    public abstract PathfinderResult proceed(SearchSlice slice);
+  }
+
+  /**
+   * A computation that can be suspended between two expansions.
+   *
+   * @param <T> the type of its result
+   */
+  interface Resumable<T> {
+
+    /**
+     * Expands nodes until the computation has finished or the slice is used up.
+     *
+     * @return the result, or {@code null} if the computation was suspended
+     */
+    T proceed(SearchSlice slice);
+
+    /**
+     * Hands back the memory of the computation once it has finished or failed. It must not be
+     * proceeded with afterwards.
+     */
+    default void releaseMemory() {}
+
+    /**
+     * Returns the stage the computation waits for after it has suspended with its slice left, since
+     * all of its nodes wait for navigation points to load.
+     */
+    default CompletableFuture<Void> awaitLoad() {
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * A search from the start towards the target. If its slice lets it suspend, nodes whose
+   * neighbourhood is still loading are parked until it has loaded, instead of blocking the thread.
+   */
+  private final class UnidirectionalSearch extends Search {
+
+    private final SearchContext context;
+    private final PathPosition start;
+    private final PathPosition target;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+
+    private final long targetPosition;
+    private final Heuristic heuristic;
+    private final SearchArena.Memory memory;
+    private final NodeStore nodeStore;
+    private final IndexedHeap nodeQueue;
+    private final Depth depth = Depth.of(1);
+    private final FrontierPrefetcher prefetcher;
+    private final ParkedNodes parkedNodes;
+
+    private int fallbackNode;
+
+    private UnidirectionalSearch(
+        SearchContext context,
+        PathPosition start,
+        PathPosition target,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.context = context;
+      this.start = start;
+      this.target = target;
+      this.filters = filters;
+      this.filterStages = filterStages;
+      this.targetPosition = PackedPosition.pack(target);
+      this.heuristic = new Heuristic(start, target, pathfinderConfiguration.getHeuristicWeights());
+      this.memory = acquireMemory(start.getPathEnvironment());
+      this.nodeStore = memory.nodeStore;
+      this.nodeQueue = memory.nodeQueue;
+      this.prefetcher = createPrefetcher(start.getPathEnvironment());
+      this.parkedNodes = new ParkedNodes(navigationPointProvider, start.getPathEnvironment());
+
+      this.fallbackNode = createStartNode(nodeStore, heuristic, start);
+      nodeQueue.insert(fallbackNode, nodeStore.getFCost(fallbackNode));
+    }
+
+    @Override
+    public PathfinderResult proceed(SearchSlice slice) {
+      while ((!nodeQueue.isEmpty() || !parkedNodes.isEmpty())
+          && depth.getValue() <= pathfinderConfiguration.getMaxIterations()) {
+
+        parkedNodes.requeueLoaded(nodeStore, nodeQueue);
+        if (nodeQueue.isEmpty()) {
+          // every node left waits for a load, which must not outlast the request
+          if (context.isAborted()) return abortedPathing(nodeStore, fallbackNode, start, target);
+          if (context.checkDeadline())
+            return deadlineExceeded(nodeStore, fallbackNode, start, target);
+          return null;
+        }
+
+        if (!slice.claimExpansion()) return null;
+
+        pathfinderHooks.forEach(hook -> hook.onPathfindingStep(new PathfindingContext(depth)));
+
+        if (context.isAborted()) return abortedPathing(nodeStore, fallbackNode, start, target);
+        if (context.isPastDeadline())
+          return deadlineExceeded(nodeStore, fallbackNode, start, target);
+
+        int currentNode = nodeQueue.deleteMin();
+        if (slice.isSuspendable()) {
+          ParkedNodes.Neighbourhood neighbourhood = parkedNodes.check(nodeStore, currentNode);
+          if (neighbourhood != ParkedNodes.Neighbourhood.AVAILABLE) {
+            // a node that cannot be expanded is given up, parking counts as an iteration
+            if (neighbourhood == ParkedNodes.Neighbourhood.UNAVAILABLE)
+              nodeStore.close(currentNode);
+            depth.increment();
+            continue;
+          }
+        }
+
+        nodeStore.close(currentNode);
+        prefetcher.prefetchAround(nodeStore, currentNode);
+        settleNode(start, target, currentNode, nodeStore, filters, filterStages);
+        fallbackNode = currentNode;
+
+        if (hasReachedLengthLimit(nodeStore, currentNode)) {
+          return new PathfinderResultImpl(
+              PathState.LENGTH_LIMITED, fetchRetracedPath(nodeStore, currentNode, start, target));
+        }
+
+        if (nodeStore.getPosition(currentNode) == targetPosition) {
+          return new PathfinderResultImpl(
+              PathState.FOUND, fetchRetracedPath(nodeStore, currentNode, start, target));
+        }
+
+        tick(
+            start,
+            target,
+            currentNode,
+            depth,
+            nodeStore,
+            heuristic,
+            nodeQueue,
+            filters,
+            filterStages);
+      }
+
+      return backupPathfindingOrFailure(depth, nodeStore, fallbackNode, start, target);
+    }
+
+    @Override
+    public void releaseMemory() {
+      AbstractPathfinder.this.releaseMemory(memory);
+    }
+
+    @Override
+    public CompletableFuture<Void> awaitLoad() {
+      return parkedNodes.awaitLoad();
+    }
+  }
+
+  /**
+   * A forward search from the start and a backward search from the target, always expanding the
+   * smaller frontier. The backward search is ticked with start and target swapped, so it runs just
+   * like a forward search towards the start, but its node store is {@link NodeStore#isReversed()
+   * reversed}, so its moves are validated in the direction of travel.
+   *
+   * <p>Whenever one of them expands a position the other one has already reached, the path through
+   * that position is a candidate. Since every frontier bounds the cost of the paths it has not
+   * found yet by its lowest estimate, the cheapest candidate is returned once either of these
+   * estimates reaches its cost.
+   */
+  private final class BidirectionalSearch extends Search {
+
+    private final SearchContext context;
+    private final PathPosition start;
+    private final PathPosition target;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+
+    private final Frontier forward;
+    private final Frontier backward;
+    private final Depth depth = Depth.of(1);
+    private final FrontierPrefetcher prefetcher;
+
+    private int fallbackNode;
+
+    /** The cost of the cheapest path found through a meeting position, and its nodes. */
+    private double meetingCost = Double.POSITIVE_INFINITY;
+
+    private int forwardMeetingNode = NodeStore.NO_NODE;
+    private int backwardMeetingNode = NodeStore.NO_NODE;
+
+    private BidirectionalSearch(
+        SearchContext context,
+        PathPosition start,
+        PathPosition target,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.context = context;
+      this.start = start;
+      this.target = target;
+      this.filters = filters;
+      this.filterStages = filterStages;
+      this.forward = createFrontier(start, target);
+      this.backward = createFrontier(target, start);
+      this.backward.nodeStore.markReversed();
+      this.prefetcher = createPrefetcher(start.getPathEnvironment());
+      this.fallbackNode = forward.startNode;
+    }
+
+    @Override
+    public PathfinderResult proceed(SearchSlice slice) {
+      while (!forward.nodeQueue.isEmpty()
+          && !backward.nodeQueue.isEmpty()
+          && depth.getValue() <= pathfinderConfiguration.getMaxIterations()) {
+
+        if (Math.max(forward.nodeQueue.peekKey(), backward.nodeQueue.peekKey()) >= meetingCost)
+          return meetingResult();
+
+        if (!slice.claimExpansion()) return null;
+
+        pathfinderHooks.forEach(hook -> hook.onPathfindingStep(new PathfindingContext(depth)));
+
+        if (context.isAborted()) {
+          if (hasMet()) return meetingResult();
+          return abortedPathing(forward.nodeStore, fallbackNode, start, target);
+        }
+        if (context.isPastDeadline()) {
+          if (hasMet()) return meetingResult();
+          return deadlineExceeded(forward.nodeStore, fallbackNode, start, target);
+        }
+
+        boolean expandForward = forward.nodeQueue.size() <= backward.nodeQueue.size();
+        Frontier frontier = expandForward ? forward : backward;
+        Frontier opposite = expandForward ? backward : forward;
+
+        int currentNode = frontier.nodeQueue.deleteMin();
+        frontier.nodeStore.close(currentNode);
+        prefetcher.prefetchAround(frontier.nodeStore, currentNode);
+        settleNode(
+            frontier.start,
+            frontier.target,
+            currentNode,
+            frontier.nodeStore,
+            filters,
+            filterStages);
+        if (expandForward) fallbackNode = currentNode;
+
+        int meetingNode = opposite.nodeStore.indexOf(frontier.nodeStore.getPosition(currentNode));
+        if (meetingNode != NodeStore.NO_NODE) {
+          settleNode(
+              opposite.start,
+              opposite.target,
+              meetingNode,
+              opposite.nodeStore,
+              filters,
+              filterStages);
+          int forwardNode = expandForward ? currentNode : meetingNode;
+          int backwardNode = expandForward ? meetingNode : currentNode;
+          double cost =
+              forward.nodeStore.getGCost(forwardNode) + backward.nodeStore.getGCost(backwardNode);
+          if (cost < meetingCost) {
+            meetingCost = cost;
+            forwardMeetingNode = forwardNode;
+            backwardMeetingNode = backwardNode;
+          }
+        }
+
+        if (hasReachedLengthLimit(frontier.nodeStore, currentNode)) {
+          if (hasMet()) continue; // keep the path found so far instead of a longer one
+
+          return new PathfinderResultImpl(
+              PathState.LENGTH_LIMITED,
+              fetchRetracedPath(forward.nodeStore, fallbackNode, start, target));
+        }
+
+        tick(
+            frontier.start,
+            frontier.target,
+            currentNode,
+            depth,
+            frontier.nodeStore,
+            frontier.heuristic,
+            frontier.nodeQueue,
+            filters,
+            filterStages);
+      }
+
+      if (hasMet()) return meetingResult();
+      return backupPathfindingOrFailure(depth, forward.nodeStore, fallbackNode, start, target);
+    }
+
+    private boolean hasMet() {
+      return forwardMeetingNode != NodeStore.NO_NODE;
+    }
+
+    private PathfinderResult meetingResult() {
+      return new PathfinderResultImpl(
+          PathState.FOUND,
+          fetchJoinedPath(
+              forward.nodeStore,
+              forwardMeetingNode,
+              backward.nodeStore,
+              backwardMeetingNode,
+              start,
+              target));
+    }
+
+    @Override
+    public void releaseMemory() {
+      AbstractPathfinder.this.releaseMemory(forward.memory);
+      AbstractPathfinder.this.releaseMemory(backward.memory);
+    }
+  }
+
+  /**
+   * An anytime repairing A* search. Each pass expands the nodes by their cost plus the inflated
+   * heuristic until the target is the cheapest queued node. Nodes that become cheaper after their
+   * expansion are set aside instead of being expanded again in the same pass, and are queued once
+   * the next pass has lowered the inflation, so every pass continues the search of the previous
+   * one. Passes are made until the budget runs out or the path cannot get any cheaper.
+   */
+  private final class AnytimeSearch extends Search {
+
+    private final SearchContext context;
+    private final PathPosition start;
+    private final PathPosition target;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+
+    private final long deadline;
+    private final long targetPosition;
+    private final SearchArena.Memory memory;
+    private final NodeStore nodeStore;
+    private final IndexedHeap nodeQueue;
+    private final Depth depth = Depth.of(1);
+    private final FrontierPrefetcher prefetcher;
+
+    private double inflation;
+    private Heuristic heuristic;
+    private int fallbackNode;
+    private PathfinderResult bestResult;
+
+    private AnytimeSearch(
+        SearchContext context,
+        PathPosition start,
+        PathPosition target,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.context = context;
+      this.start = start;
+      this.target = target;
+      this.filters = filters;
+      this.filterStages = filterStages;
+      this.deadline =
+          System.nanoTime()
+              + TimeUnit.MILLISECONDS.toNanos(pathfinderConfiguration.getAnytimeBudgetMillis());
+      this.targetPosition = PackedPosition.pack(target);
+      this.memory = acquireMemory(start.getPathEnvironment());
+      this.nodeStore = memory.nodeStore;
+      this.nodeQueue = memory.nodeQueue;
+      this.prefetcher = createPrefetcher(start.getPathEnvironment());
+
+      this.inflation = Math.max(1, pathfinderConfiguration.getAnytimeInflation());
+      this.heuristic = createInflatedHeuristic(start, target, inflation);
+      this.fallbackNode = createStartNode(nodeStore, heuristic, start);
+      nodeQueue.insert(fallbackNode, nodeStore.getFCost(fallbackNode));
+    }
+
+    @Override
+    public PathfinderResult proceed(SearchSlice slice) {
+      while (depth.getValue() <= pathfinderConfiguration.getMaxIterations()) {
+        int targetNode = nodeStore.indexOf(targetPosition);
+        if (targetNode != NodeStore.NO_NODE
+            && (nodeQueue.isEmpty() || nodeStore.getFCost(targetNode) <= nodeQueue.peekKey())) {
+          double bound = suboptimalityBound(nodeStore, nodeQueue, targetNode, inflation);
+          bestResult =
+              new PathfinderResultImpl(
+                  PathState.FOUND, fetchRetracedPath(nodeStore, targetNode, start, target));
+
+          PathImprovementContext improvement = new PathImprovementContext(bestResult, bound);
+          pathfinderHooks.forEach(hook -> hook.onPathImproved(improvement));
+
+          if (bound <= 1 || System.nanoTime() >= deadline) return bestResult;
+
+          double loweredInflation = Math.max(1, Math.min(bound, inflation - INFLATION_STEP));
+          heuristic = createInflatedHeuristic(start, target, loweredInflation);
+          requeueForNextPass(nodeStore, nodeQueue, loweredInflation / inflation);
+          inflation = loweredInflation;
+          continue;
+        }
+
+        if (nodeQueue.isEmpty()) break;
+        if (bestResult != null && System.nanoTime() >= deadline) return bestResult;
+
+        if (!slice.claimExpansion()) return null;
+
+        pathfinderHooks.forEach(hook -> hook.onPathfindingStep(new PathfindingContext(depth)));
+
+        if (context.isAborted()) {
+          if (bestResult == null) return abortedPathing(nodeStore, fallbackNode, start, target);
+          return bestResult;
+        }
+        if (context.isPastDeadline()) {
+          if (bestResult == null) return deadlineExceeded(nodeStore, fallbackNode, start, target);
+          return bestResult;
+        }
+
+        int currentNode = nodeQueue.deleteMin();
+        nodeStore.close(currentNode);
+        prefetcher.prefetchAround(nodeStore, currentNode);
+        settleNode(start, target, currentNode, nodeStore, filters, filterStages);
+        if (bestResult == null) fallbackNode = currentNode;
+
+        if (hasReachedLengthLimit(nodeStore, currentNode)) {
+          if (bestResult != null) continue; // no cheaper path can lead through this node
+
+          return new PathfinderResultImpl(
+              PathState.LENGTH_LIMITED, fetchRetracedPath(nodeStore, currentNode, start, target));
+        }
+
+        tick(
+            start,
+            target,
+            currentNode,
+            depth,
+            nodeStore,
+            heuristic,
+            nodeQueue,
+            filters,
+            filterStages);
+      }
+
+      if (bestResult != null) return bestResult;
+      return backupPathfindingOrFailure(depth, nodeStore, fallbackNode, start, target);
+    }
+
+    @Override
+    public void releaseMemory() {
+      AbstractPathfinder.this.releaseMemory(memory);
+    }
+  }
+
+  /**
+   * A Dijkstra search from the start that settles all targets at once. Its heuristic is inflated by
+   * 0, so nodes are expanded by their cost alone and every target is settled on its cheapest path.
+   * The search ends once all targets are settled.
+   */
+  private final class MultiTargetSearch implements Resumable<Map<PathPosition, PathfinderResult>> {
+
+    private static final int UNSETTLED = 0;
+    private static final int SETTLED = 1;
+
+    private final SearchContext context;
+    private final PathPosition start;
+    private final Collection<PathPosition> targets;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+
+    /** The state of every distinct target position that is searched for. */
+    private final LongIntHashMap targetPositions = new LongIntHashMap();
+
+    private final Heuristic heuristic;
+    private final SearchArena.Memory memory;
+    private final NodeStore nodeStore;
+    private final IndexedHeap nodeQueue;
+    private final Depth depth = Depth.of(1);
+    private final FrontierPrefetcher prefetcher;
+
+    private int unsettledTargets;
+
+    private MultiTargetSearch(
+        SearchContext context,
+        PathPosition start,
+        Collection<PathPosition> targets,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.context = context;
+      this.start = start.floor();
+      this.targets = targets;
+      this.filters = filters;
+      this.filterStages = filterStages;
+      this.heuristic =
+          new Heuristic(this.start, this.start, pathfinderConfiguration.getHeuristicWeights(), 0);
+      this.memory = acquireMemory(this.start.getPathEnvironment());
+      this.nodeStore = memory.nodeStore;
+      this.nodeQueue = memory.nodeQueue;
+      this.prefetcher = createPrefetcher(this.start.getPathEnvironment());
+
+      for (PathPosition target : targets) {
+        if (shouldSkipPathing(start, target)) continue;
+
+        long targetPosition = PackedPosition.pack(target.floor());
+        if (targetPositions.containsKey(targetPosition)) continue;
+
+        targetPositions.put(targetPosition, UNSETTLED);
+        unsettledTargets++;
+      }
+
+      int startNode = createStartNode(nodeStore, heuristic, this.start);
+      nodeQueue.insert(startNode, nodeStore.getFCost(startNode));
+    }
+
+    @Override
+    public Map<PathPosition, PathfinderResult> proceed(SearchSlice slice) {
+      while (unsettledTargets > 0
+          && !nodeQueue.isEmpty()
+          && depth.getValue() <= pathfinderConfiguration.getMaxIterations()) {
+
+        if (!slice.claimExpansion()) return null;
+
+        pathfinderHooks.forEach(hook -> hook.onPathfindingStep(new PathfindingContext(depth)));
+
+        if (context.isAborted()) return collectResults(PathState.ABORTED);
+        if (context.isPastDeadline()) return collectResults(PathState.DEADLINE_EXCEEDED);
+
+        int currentNode = nodeQueue.deleteMin();
+        nodeStore.close(currentNode);
+        prefetcher.prefetchAround(nodeStore, currentNode);
+        settleNode(start, start, currentNode, nodeStore, filters, filterStages);
+
+        long position = nodeStore.getPosition(currentNode);
+        if (targetPositions.get(position) == UNSETTLED) {
+          targetPositions.put(position, SETTLED);
+          unsettledTargets--;
+        }
+
+        if (hasReachedLengthLimit(nodeStore, currentNode)) continue;
+
+        tickWithoutTarget(
+            start, currentNode, depth, nodeStore, heuristic, nodeQueue, filters, filterStages);
+      }
+
+      if (depth.getValue() > pathfinderConfiguration.getMaxIterations())
+        return collectResults(PathState.MAX_ITERATIONS_REACHED);
+      if (pathfinderConfiguration.isFallback()) return collectResults(PathState.FALLBACK);
+      return collectResults(PathState.FAILED);
+    }
+
+    @Override
+    public void releaseMemory() {
+      AbstractPathfinder.this.releaseMemory(memory);
+    }
+
+    /**
+     * Collects the result of every target in the order they were given. Targets that have not been
+     * settled end with the given state and the path to the expanded node closest to them.
+     */
+    private Map<PathPosition, PathfinderResult> collectResults(PathState unsettledState) {
+      Map<PathPosition, PathfinderResult> results = new LinkedHashMap<>();
+
+      for (PathPosition target : targets) {
+        if (shouldSkipPathing(start, target)) {
+          results.put(
+              target,
+              new PathfinderResultImpl(
+                  PathState.INITIALLY_FAILED, new PathImpl(start, target, EMPTY_LINKED_HASHSET)));
+          continue;
+        }
+
+        PathPosition flooredTarget = target.floor();
+        long targetPosition = PackedPosition.pack(flooredTarget);
+
+        if (targetPositions.get(targetPosition) == SETTLED) {
+          int targetNode = nodeStore.indexOf(targetPosition);
+          PathState pathState =
+              hasReachedLengthLimit(nodeStore, targetNode)
+                  ? PathState.LENGTH_LIMITED
+                  : PathState.FOUND;
+          results.put(
+              target,
+              new PathfinderResultImpl(
+                  pathState, fetchRetracedPath(nodeStore, targetNode, start, flooredTarget)));
+        } else if (unsettledState == PathState.FAILED) {
+          results.put(target, failedResult(start, flooredTarget));
+        } else {
+          int closestNode = closestExpandedNode(flooredTarget);
+          results.put(
+              target,
+              new PathfinderResultImpl(
+                  unsettledState, fetchRetracedPath(nodeStore, closestNode, start, flooredTarget)));
+        }
+      }
+
+      return results;
+    }
+
+    private int closestExpandedNode(PathPosition target) {
+      int closestNode = 0;
+      long closestDistance = Long.MAX_VALUE;
+
+      for (int node = 0; node < nodeStore.size(); node++) {
+        if (!nodeStore.isClosed(node)) continue;
+
+        long dx = nodeStore.getX(node) - target.getFlooredX();
+        long dy = nodeStore.getY(node) - target.getFlooredY();
+        long dz = nodeStore.getZ(node) - target.getFlooredZ();
+        long distance = dx * dx + dy * dy + dz * dz;
+
+        if (distance < closestDistance) {
+          closestNode = node;
+          closestDistance = distance;
+        }
+      }
+
+      return closestNode;
+    }
+  }
+
+  /**
+   * A search that is proceeded with slice by slice. In the synchronous mode, it is proceeded with
+   * on every server tick. In the asynchronous mode, it runs on the executor until all of its nodes
+   * wait for navigation points to load, and is proceeded with again once one of them has loaded.
+   *
+   * @param <T> the type of the result of the search
+   */
+  private final class SlicedSearch<T> {
+
+    private final SearchContext context;
+    private final Supplier<? extends Resumable<T>> searchFactory;
+    private final Function<PathState, T> pathlessResult;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    private Resumable<T> search;
+
+    /**
+     * @param searchFactory creates the search on its first slice
+     * @param pathlessResult creates the result of a search that ended without a path, with the
+     *     given state
+     */
+    private SlicedSearch(
+        SearchContext context,
+        Supplier<? extends Resumable<T>> searchFactory,
+        Function<PathState, T> pathlessResult,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.context = context;
+      this.searchFactory = searchFactory;
+      this.pathlessResult = pathlessResult;
+      this.filters = filters;
+      this.filterStages = filterStages;
+    }
+
+    /**
+     * Proceeds with the search.
+     *
+     * @return whether the search has finished and its result has been completed
+     */
+    private boolean proceed(SearchSlice slice) {
+      try {
+        if (search == null) {
+          notifySearchStarted(context);
+          search = searchFactory.get();
+        }
+
+        T searchResult = search.proceed(slice);
+        if (searchResult == null) return false;
+
+        result.complete(searchResult);
+      } catch (Exception e) {
+        ErrorLogger.logFatalError("Failed to find path", e);
+        result.complete(pathlessResult.apply(PathState.FAILED));
+      }
+
+      finish();
+      return true;
+    }
+
+    /** Completes the search with its failed result, since proceeding with it has thrown. */
+    private void fail(Throwable throwable) {
+      ErrorLogger.logFatalError("Failed to find path async", throwable);
+      result.complete(pathlessResult.apply(PathState.FAILED));
+      finish();
+    }
+
+    /** Completes the search exceptionally, since the executor has rejected it. */
+    private void reject(Throwable throwable) {
+      result.completeExceptionally(throwable);
+      finish();
+    }
+
+    /** Completes the search that has been skipped while it was queued, since it was aborted. */
+    private void skip() {
+      result.complete(pathlessResult.apply(PathState.ABORTED));
+      finish();
+    }
+
+    private CompletableFuture<Void> awaitLoad() {
+      return search != null ? search.awaitLoad() : CompletableFuture.completedFuture(null);
+    }
+
+    private void finish() {
+      if (search != null) search.releaseMemory();
+      cleanupFilters(filters, filterStages);
+    }
+  }
+
+  /**
+   * The work-stealing pool asynchronous searches of all pathfinders without an executor of their
+   * own run on. It is only created along with the first of these pathfinders.
+   */
+  private static final class SharedExecutor {
+
+    private static final ExecutorService INSTANCE = Executors.newWorkStealingPool();
+
+    static {
+      Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::shutdown));
+    }
+  }
+
+  /**
+   * Hands the searches whose loads have completed back to the executor of their pathfinder. Its
+   * threads are only created on demand, since they only run searches themselves if that executor
+   * runs rejected searches on the calling thread.
+   */
+  private static final class ResumptionExecutor {
+
+    private static final ExecutorService INSTANCE =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread = new Thread(runnable, "pathetic-resumption");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Wakes up the searches waiting for loads once the deadline of their request has passed. */
+  private static final class DeadlineTimer {
+
+    private static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "pathetic-deadline");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** One direction of a bidirectional search. */
+  private static final class Frontier {
+
+    private final PathPosition start;
+    private final PathPosition target;
+    private final Heuristic heuristic;
+    private final SearchArena.Memory memory;
+    private final NodeStore nodeStore;
+    private final IndexedHeap nodeQueue;
+    private final int startNode;
+
+    private Frontier(
+        PathPosition start,
+        PathPosition target,
+        Heuristic heuristic,
+        SearchArena.Memory memory,
+        int startNode) {
+      this.start = start;
+      this.target = target;
+      this.heuristic = heuristic;
+      this.memory = memory;
+      this.nodeStore = memory.nodeStore;
+      this.nodeQueue = memory.nodeQueue;
+      this.startNode = startNode;
+    }
+  }
 }
@@ -0,0 +1,184 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.PathPriority;
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Queues searches in front of an executor and hands at most a fixed number of them to it at once.
+ * Whenever a search finishes, the next one is picked by weighted round-robin over the priority
+ * classes, and within the class round-robin over the owners that have searches waiting. A flood of
+ * requests from one owner therefore only delays that owner, and a request of a higher class waits
+ * for at most the searches already running.
+ *
+ * <p>Searches whose future has completed while they were waiting, because it was cancelled, or
+ * whose request has been given up in the meantime, are skipped.
+ */
+final class FairScheduler {
+
+  /** The number of searches every class may start per round, by {@link PathPriority} ordinal. */
+  private static final int[] WEIGHTS = {16, 4, 1};
+
+  private final Executor executor;
+  private final int maxConcurrentSearches;
+
+  /** The waiting searches of every class, guarded by this scheduler. */
+  private final PriorityClass[] classes = new PriorityClass[WEIGHTS.length];
+
+  /** The searches every class may still start in the current round. */
+  private final int[] credits = WEIGHTS.clone();
+
+  private int running;
+
+  FairScheduler(Executor executor, int maxConcurrentSearches) {
+    this.executor = executor;
+    this.maxConcurrentSearches = maxConcurrentSearches;
+    for (int i = 0; i < classes.length; i++) classes[i] = new PriorityClass();
+  }
+
+  /**
+   * Queues the search of a request.
+   *
+   * @return the future of the result, which completes exceptionally with a {@link
+   *     RejectedExecutionException} if the executor rejects the search
+   */
+  <T> CompletableFuture<T> submit(PathRequestTag requestTag, Supplier<T> search) {
+    return submit(requestTag, null, search);
+  }
+
+  /**
+   * Queues the search of a request that may be given up without cancelling the returned future,
+   * like a request that is aborted. If that happens while the search is waiting, the search is
+   * skipped and its future is cancelled.
+   *
+   * @param givenUp completes once the request is given up, or {@code null} if the search is only
+   *     skipped once the returned future is cancelled
+   * @return the future of the result, which completes exceptionally with a {@link
+   *     RejectedExecutionException} if the executor rejects the search
+   */
+  <T> CompletableFuture<T> submit(
+      PathRequestTag requestTag, CompletableFuture<?> givenUp, Supplier<T> search) {
+    Task<T> task = new Task<>(search, givenUp);
+    synchronized (this) {
+      classes[requestTag.getPriority().ordinal()].enqueue(requestTag.getOwner(), task);
+    }
+
+    dispatch();
+    return task.result;
+  }
+
+  /** Hands waiting searches to the executor until all slots are taken or none are left. */
+  private void dispatch() {
+    while (true) {
+      Task<?> task;
+      synchronized (this) {
+        if (running >= maxConcurrentSearches) return;
+
+        task = next();
+        if (task == null) return;
+        running++;
+      }
+
+      try {
+        executor.execute(() -> run(task));
+      } catch (RejectedExecutionException e) {
+        synchronized (this) {
+          running--;
+        }
+        task.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private void run(Task<?> task) {
+    try {
+      task.run();
+    } finally {
+      synchronized (this) {
+        running--;
+      }
+      dispatch();
+    }
+  }
+
+  /** Takes the next search to start, starting a new round once no class with credits has any. */
+  private Task<?> next() {
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < classes.length; i++) {
+        if (credits[i] == 0 || classes[i].isEmpty()) continue;
+
+        credits[i]--;
+        return classes[i].poll();
+      }
+
+      System.arraycopy(WEIGHTS, 0, credits, 0, WEIGHTS.length);
+    }
+    return null;
+  }
+
+  /** The waiting searches of one priority class, queued per owner. */
+  private static final class PriorityClass {
+
+    private final Map<Object, ArrayDeque<Task<?>>> queues = new HashMap<>();
+
+    /** The owners with waiting searches, in the order they take turns. */
+    private final ArrayDeque<Object> owners = new ArrayDeque<>();
+
+    private void enqueue(Object owner, Task<?> task) {
+      ArrayDeque<Task<?>> queue = queues.get(owner);
+      if (queue == null) {
+        queue = new ArrayDeque<>();
+        queues.put(owner, queue);
+        owners.add(owner);
+      }
+      queue.add(task);
+    }
+
+    /** Takes the next search of the owner whose turn it is, and moves the owner to the back. */
+    private Task<?> poll() {
+      Object owner = owners.poll();
+      ArrayDeque<Task<?>> queue = queues.get(owner);
+      Task<?> task = queue.poll();
+
+      if (queue.isEmpty()) queues.remove(owner);
+      else owners.add(owner);
+      return task;
+    }
+
+    private boolean isEmpty() {
+      return owners.isEmpty();
+    }
+  }
+
+  private static final class Task<T> {
+
+    private final Supplier<T> search;
+    private final CompletableFuture<?> givenUp;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    private Task(Supplier<T> search, CompletableFuture<?> givenUp) {
+      this.search = search;
+      this.givenUp = givenUp;
+    }
+
+    private void run() {
+      if (result.isDone()) return;
+      if (givenUp != null && givenUp.isDone()) {
+        result.cancel(false);
+        return;
+      }
+
+      try {
+        result.complete(search.get());
+      } catch (Throwable throwable) {
+        result.completeExceptionally(throwable);
+      }
+    }
+  }
+}
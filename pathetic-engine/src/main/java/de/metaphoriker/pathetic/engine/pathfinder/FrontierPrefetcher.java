@@ -0,0 +1,93 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Asks the provider to prefetch the chunks the frontier of a search is about to reach. Whenever the
+ * search expands a node, the chunks within the prefetch distance of it that have not been asked for
+ * yet are handed to the provider in one batch, so their first read does not have to wait for them
+ * to load. Chunks the provider already has available are left out of the batch.
+ */
+final class FrontierPrefetcher {
+
+  private static final int CHUNK_SHIFT = 4;
+  private static final int REQUESTED = 1;
+
+  private final NavigationPointProvider navigationPointProvider;
+  private final PathEnvironment environment;
+  private final int distance;
+
+  /**
+   * The chunks that have been asked for or were available, or {@code null} if prefetching is
+   * disabled.
+   */
+  private final LongIntHashMap requestedChunks;
+
+  /**
+   * The chunk bounds of the last node, whose chunks have all been asked for already. They start out
+   * empty, so the first node is never skipped.
+   */
+  private int lastMinChunkX = 1;
+  private int lastMaxChunkX = 0;
+  private int lastMinChunkZ;
+  private int lastMaxChunkZ;
+
+  /** @param distance the prefetch distance in blocks, or 0 to prefetch nothing */
+  FrontierPrefetcher(
+      NavigationPointProvider navigationPointProvider, PathEnvironment environment, int distance) {
+    this.navigationPointProvider = navigationPointProvider;
+    this.environment = environment;
+    this.distance = distance;
+    this.requestedChunks = distance > 0 ? new LongIntHashMap() : null;
+  }
+
+  /** Asks for the chunks within the prefetch distance of an expanded node. */
+  void prefetchAround(NodeStore nodeStore, int node) {
+    if (requestedChunks == null) return;
+
+    int x = nodeStore.getX(node);
+    int z = nodeStore.getZ(node);
+    int minChunkX = (x - distance) >> CHUNK_SHIFT;
+    int maxChunkX = (x + distance) >> CHUNK_SHIFT;
+    int minChunkZ = (z - distance) >> CHUNK_SHIFT;
+    int maxChunkZ = (z + distance) >> CHUNK_SHIFT;
+
+    // consecutive nodes tend to lie close together and share their chunks
+    if (minChunkX == lastMinChunkX
+        && maxChunkX == lastMaxChunkX
+        && minChunkZ == lastMinChunkZ
+        && maxChunkZ == lastMaxChunkZ) return;
+
+    lastMinChunkX = minChunkX;
+    lastMaxChunkX = maxChunkX;
+    lastMinChunkZ = minChunkZ;
+    lastMaxChunkZ = maxChunkZ;
+
+    List<PathPosition> batch = null;
+    for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+      for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+        long chunk = (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+        if (requestedChunks.containsKey(chunk)) continue;
+
+        requestedChunks.put(chunk, REQUESTED);
+        if (navigationPointProvider.isChunkAvailable(environment, chunkX, chunkZ)) continue;
+
+        if (batch == null) batch = new ArrayList<>();
+        batch.add(
+            new PathPosition(
+                environment,
+                chunkX << CHUNK_SHIFT,
+                nodeStore.getY(node),
+                chunkZ << CHUNK_SHIFT));
+      }
+    }
+
+    if (batch != null) navigationPointProvider.prefetch(batch);
+  }
+}
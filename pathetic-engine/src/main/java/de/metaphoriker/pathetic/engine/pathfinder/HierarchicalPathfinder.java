@@ -0,0 +1,153 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.hierarchy.ClusterGraph;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A pathfinder for long routes. It first searches a route through the {@link ClusterGraph}, which
+ * splits the environment into chunk-section sized clusters, and then refines the route with the
+ * regular A* search one cluster at a time. Every refining search is confined to a single cluster,
+ * so the iteration limit applies to each of them instead of to the whole route.
+ *
+ * <p>Routes between positions in the same or neighbouring clusters are searched with A* directly.
+ *
+ * <p>The abstract graph is cached by this pathfinder and kept up to date through {@link
+ * de.metaphoriker.pathetic.api.provider.ChunkInvalidations}. It is built from the outcome of the
+ * filters and filter stages per position, so a pathfinder should always be used with the same
+ * filters, and these should not depend on the parent, start or target of the validated position.
+ */
+public class HierarchicalPathfinder extends AStarPathfinder {
+
+  private final ClusterGraph clusterGraph = new ClusterGraph();
+
+  public HierarchicalPathfinder(
+      NavigationPointProvider navigationPointProvider,
+      PathfinderConfiguration pathfinderConfiguration) {
+    super(navigationPointProvider, pathfinderConfiguration);
+  }
+
+  @Override
+  protected PathfinderResult executePathing(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    PathPosition flooredStart = start.floor();
+    PathPosition flooredTarget = target.floor();
+
+    if (ClusterGraph.areNeighbouringClusters(flooredStart, flooredTarget))
+      return super.executePathing(context, start, target, filters, filterStages);
+
+    Optional<long[]> route =
+        clusterGraph.findRoute(
+            flooredStart,
+            flooredTarget,
+            createPassability(
+                flooredStart, flooredTarget, filters, filterStages, new LongIntHashMap()),
+            pathfinderConfiguration.getMaxIterations());
+
+    if (!route.isPresent())
+      return super.executePathing(context, start, target, filters, filterStages);
+
+    return refineRoute(context, route.get(), start, target, filters, filterStages);
+  }
+
+  /**
+   * A sliced hierarchical search is not split up, the abstract route and the refinement of all its
+   * segments run within the first slice.
+   */
+  @Override
+  protected Search createSearch(
+      SearchContext context,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    return new Search() {
+      @Override
+      public PathfinderResult proceed(SearchSlice slice) {
+        return executePathing(context, start, target, filters, filterStages);
+      }
+    };
+  }
+
+  /**
+   * Walks along the abstract route. Consecutive route positions in the same cluster are connected
+   * by an A* search confined to that cluster, all others are neighbours already.
+   */
+  private PathfinderResult refineRoute(
+      SearchContext context,
+      long[] route,
+      PathPosition start,
+      PathPosition target,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    PathEnvironment environment = start.getPathEnvironment();
+    List<PathPosition> positions = new ArrayList<>();
+    positions.add(toPathPosition(environment, route[0]));
+
+    for (int i = 1; i < route.length; i++) {
+      long from = route[i - 1];
+      long to = route[i];
+
+      if (!ClusterGraph.isInClusterOf(to, from)) {
+        positions.add(toPathPosition(environment, to));
+        continue;
+      }
+
+      List<PathFilter> segmentFilters = new ArrayList<>(filters);
+      segmentFilters.add(
+          validation ->
+              ClusterGraph.isInClusterOf(PackedPosition.pack(validation.getPosition()), from));
+
+      PathfinderResult segment =
+          super.executePathing(
+              context,
+              toPathPosition(environment, from),
+              toPathPosition(environment, to),
+              segmentFilters,
+              filterStages);
+
+      appendSegment(positions, segment);
+
+      if (segment.getPathState() != PathState.FOUND)
+        return new PathfinderResultImpl(
+            segment.getPathState(), new PathImpl(start, target, positions));
+    }
+
+    return new PathfinderResultImpl(PathState.FOUND, new PathImpl(start, target, positions));
+  }
+
+  private static void appendSegment(List<PathPosition> positions, PathfinderResult segment) {
+    PathPosition last = positions.get(positions.size() - 1);
+    for (PathPosition position : segment.getPath()) {
+      if (position.isInSameBlock(last)) continue;
+
+      positions.add(position);
+      last = position;
+    }
+  }
+
+  private static PathPosition toPathPosition(PathEnvironment environment, long position) {
+    return new PathPosition(
+        environment,
+        PackedPosition.unpackX(position),
+        PackedPosition.unpackY(position),
+        PackedPosition.unpackZ(position));
+  }
+}
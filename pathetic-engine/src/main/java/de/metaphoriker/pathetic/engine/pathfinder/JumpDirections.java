@@ -0,0 +1,238 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed pruning tables for 3D Jump Point Search over the 26-connected grid.
+ *
+ * <p>A node {@code x} is entered in direction {@code d} from its predecessor {@code p = x - d}. The
+ * natural neighbours of {@code x} are {@code d} itself and, for diagonal directions, every
+ * direction made up of a subset of the components of {@code d}. Any other neighbour {@code n = x +
+ * e} may be pruned if another path from {@code p} to {@code n} exists that stays inside the 3x3x3
+ * cube around {@code x}, avoids {@code x} and is not longer than {@code p -> x -> n}. Instead of
+ * writing these rules down by hand, all such paths are enumerated once and stored as bit masks over
+ * the cube, including the cells a diagonal move cuts through. Only moves a search can make count,
+ * so no path moves diagonally in the horizontal plane and changes the height at once. While
+ * searching, {@code n} is pruned as soon as one of its paths is entirely free; if none is, {@code
+ * n} is a forced neighbour.
+ *
+ * <p>The cube cells are indexed by {@code (dx + 1) * 9 + (dy + 1) * 3 + (dz + 1)}, the centre is
+ * {@link #CENTER}.
+ */
+final class JumpDirections {
+
+  static final int COUNT = 26;
+  static final int CENTER = 13;
+
+  private static final int CELL_COUNT = 27;
+  private static final double EPSILON = 1e-9;
+
+  /** The offsets of all 26 directions, indexed by direction. */
+  static final int[][] OFFSETS = new int[COUNT][];
+
+  /** The euclidean length of every direction. */
+  static final double[] LENGTHS = new double[COUNT];
+
+  /** The cube cell of every direction. */
+  static final int[] CELLS = new int[COUNT];
+
+  /**
+   * For every direction, the natural neighbours except the direction itself. These are the
+   * directions a diagonal jump has to look into at every step.
+   */
+  static final int[][] SUB_DIRECTIONS = new int[COUNT][];
+
+  /**
+   * For every direction, the mask of all cells whose passability is needed to find forced
+   * neighbours.
+   */
+  static final int[] RELEVANT_CELLS = new int[COUNT];
+
+  private static final int[][] CELL_OFFSETS = new int[CELL_COUNT][];
+  private static final int[][] CORNERS = new int[CELL_COUNT][CELL_COUNT];
+
+  private static final boolean[][] NATURAL = new boolean[COUNT][COUNT];
+
+  /**
+   * For every direction and non-natural neighbour, the cell masks of the paths that justify pruning
+   * the neighbour, or {@code null} for the predecessor.
+   */
+  private static final int[][][] JUSTIFICATIONS = new int[COUNT][COUNT][];
+
+  static {
+    for (int cell = 0; cell < CELL_COUNT; cell++) {
+      CELL_OFFSETS[cell] = new int[] {cell / 9 - 1, cell / 3 % 3 - 1, cell % 3 - 1};
+    }
+
+    for (int from = 0; from < CELL_COUNT; from++) {
+      for (int to = 0; to < CELL_COUNT; to++) CORNERS[from][to] = computeCorners(from, to);
+    }
+
+    int direction = 0;
+    for (int cell = 0; cell < CELL_COUNT; cell++) {
+      if (cell == CENTER) continue;
+
+      int[] offset = CELL_OFFSETS[cell];
+      OFFSETS[direction] = offset;
+      LENGTHS[direction] =
+          Math.sqrt(offset[0] * offset[0] + offset[1] * offset[1] + offset[2] * offset[2]);
+      CELLS[direction++] = cell;
+    }
+
+    for (int d = 0; d < COUNT; d++) computeTables(d);
+  }
+
+  private JumpDirections() {
+    throw new AssertionError("JumpDirections is a utility class and should not be instantiated");
+  }
+
+  /** Returns the direction of the given offset, each component being -1, 0 or 1 but not all 0. */
+  static int of(int dx, int dy, int dz) {
+    int cell = cell(dx, dy, dz);
+    return cell < CENTER ? cell : cell - 1;
+  }
+
+  /** Returns the cube cell of the given offset, each component being -1, 0 or 1. */
+  static int cell(int dx, int dy, int dz) {
+    return (dx + 1) * 9 + (dy + 1) * 3 + (dz + 1);
+  }
+
+  /**
+   * Whether the neighbour in direction {@code e} has to be considered when the current node was
+   * entered in direction {@code d}.
+   *
+   * @param blockedCells the cube cells around the current node that are not passable
+   */
+  static boolean isRelevant(int d, int e, int blockedCells) {
+    if (NATURAL[d][e]) return true;
+
+    int[] justifications = JUSTIFICATIONS[d][e];
+    // the way back to the predecessor, or a move that is never possible
+    if (justifications == null) return false;
+    if ((blockedCells & 1 << CELLS[e]) != 0) return false;
+
+    for (int justification : justifications) {
+      if ((justification & blockedCells) == 0) return false;
+    }
+    return true;
+  }
+
+  /** Whether a node entered in direction {@code d} has at least one forced neighbour. */
+  static boolean hasForcedNeighbour(int d, int blockedCells) {
+    if ((blockedCells & RELEVANT_CELLS[d]) == 0) return false;
+
+    for (int e = 0; e < COUNT; e++) {
+      if (!NATURAL[d][e] && isRelevant(d, e, blockedCells)) return true;
+    }
+    return false;
+  }
+
+  private static void computeTables(int d) {
+    int[] offset = OFFSETS[d];
+    int predecessor = cell(-offset[0], -offset[1], -offset[2]);
+
+    int subDirectionCount = 0;
+    int[] subDirections = new int[COUNT];
+
+    for (int e = 0; e < COUNT; e++) {
+      if (CELLS[e] == predecessor || !isMove(OFFSETS[e][0], OFFSETS[e][1], OFFSETS[e][2])) continue;
+
+      if (isComponentOf(OFFSETS[e], offset)) {
+        NATURAL[d][e] = true;
+        if (e != d) subDirections[subDirectionCount++] = e;
+        continue;
+      }
+
+      int[] paths = collectPaths(predecessor, CELLS[e], LENGTHS[d] + LENGTHS[e] + EPSILON);
+      JUSTIFICATIONS[d][e] = paths;
+      RELEVANT_CELLS[d] |= 1 << CELLS[e];
+      for (int path : paths) RELEVANT_CELLS[d] |= path;
+    }
+
+    SUB_DIRECTIONS[d] = Arrays.copyOf(subDirections, subDirectionCount);
+  }
+
+  /** Whether a search can move by the offset, which is not diagonal in all three dimensions. */
+  private static boolean isMove(int dx, int dy, int dz) {
+    return dx == 0 || dy == 0 || dz == 0;
+  }
+
+  /** Whether every non-zero component of {@code e} equals the same component of {@code d}. */
+  private static boolean isComponentOf(int[] e, int[] d) {
+    for (int i = 0; i < 3; i++) {
+      if (e[i] != 0 && e[i] != d[i]) return false;
+    }
+    return true;
+  }
+
+  /** Collects the cell masks of all simple paths inside the cube that do not exceed the bound. */
+  private static int[] collectPaths(int from, int to, double bound) {
+    PathCollector collector = new PathCollector(to, bound);
+    collector.visit(from, 0, 1 << from | 1 << CENTER, 0);
+    return Arrays.copyOf(collector.paths, collector.count);
+  }
+
+  /** The cells a move cuts through, i.e. its bounding box without both ends and the centre. */
+  private static int computeCorners(int fromCell, int toCell) {
+    int[] from = CELL_OFFSETS[fromCell];
+    int[] to = CELL_OFFSETS[toCell];
+
+    int mask = 0;
+    for (int x = Math.min(from[0], to[0]); x <= Math.max(from[0], to[0]); x++)
+      for (int y = Math.min(from[1], to[1]); y <= Math.max(from[1], to[1]); y++)
+        for (int z = Math.min(from[2], to[2]); z <= Math.max(from[2], to[2]); z++)
+          mask |= 1 << cell(x, y, z);
+
+    return mask & ~(1 << fromCell | 1 << toCell | 1 << CENTER);
+  }
+
+  private static final class PathCollector {
+
+    private final int target;
+    private final double bound;
+
+    private int[] paths = new int[8];
+    private int count;
+
+    private PathCollector(int target, double bound) {
+      this.target = target;
+      this.bound = bound;
+    }
+
+    /**
+     * @param cell the cell the path currently ends in
+     * @param cost the length of the path so far
+     * @param visited the cells already on the path, plus the centre
+     * @param mask the cells that have to be passable for the path to exist
+     */
+    private void visit(int cell, double cost, int visited, int mask) {
+      int[] position = CELL_OFFSETS[cell];
+
+      for (int next = 0; next < CELL_COUNT; next++) {
+        if ((visited & 1 << next) != 0) continue;
+
+        int[] step = CELL_OFFSETS[next];
+        int dx = step[0] - position[0];
+        int dy = step[1] - position[1];
+        int dz = step[2] - position[2];
+        if (Math.abs(dx) > 1 || Math.abs(dy) > 1 || Math.abs(dz) > 1) continue;
+        if (!isMove(dx, dy, dz)) continue;
+
+        double nextCost = cost + Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (nextCost > bound) continue;
+
+        if (next == target) {
+          add(mask | CORNERS[cell][next]);
+          continue;
+        }
+
+        visit(next, nextCost, visited | 1 << next, mask | CORNERS[cell][next] | 1 << next);
+      }
+    }
+
+    private void add(int path) {
+      if (count == paths.length) paths = Arrays.copyOf(paths, count << 1);
+      paths[count++] = path;
+    }
+  }
+}
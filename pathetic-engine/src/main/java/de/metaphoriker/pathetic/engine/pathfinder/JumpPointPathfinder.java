@@ -0,0 +1,306 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.Depth;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.List;
+
+/**
+ * A pathfinder implementing 3D Jump Point Search over the 26-connected grid. Instead of queueing
+ * every neighbour of a node, it jumps along each direction until it reaches a node that has a
+ * forced neighbour (see {@link JumpDirections}), the target, or a node from which a straight jump
+ * does. Only these jump points enter the open list, which removes most of the symmetric nodes A*
+ * expands in open terrain.
+ *
+ * <p>Every block a jump passes is validated by the filters and filter stages, with the block the
+ * jump came from as parent. Since a block is usually looked at several times per search, the
+ * outcome is remembered per block for the rest of the search, in the node store of the search. The
+ * pruning of jumps relies on blocks being passable or not regardless of the direction they are
+ * reached from as well, so the filters should not depend on the parent of the validated position.
+ *
+ * <p>Jumps are capped at {@link #MAX_JUMP_DISTANCE} blocks and additionally stop where they cross
+ * the target on one of their axes. Such nodes are expanded into every direction, which keeps the
+ * search from running off into unbounded open terrain and lets it turn towards the target.
+ */
+public class JumpPointPathfinder extends AbstractPathfinder {
+
+  /** The maximum number of blocks a single jump covers. */
+  private static final int MAX_JUMP_DISTANCE = 16;
+
+  private static final int NO_DIRECTION = -1;
+  private static final int NO_JUMP = 0;
+
+  private static final int BLOCKED = 0;
+  private static final int PASSABLE = 1;
+
+  public JumpPointPathfinder(
+      NavigationPointProvider navigationPointProvider,
+      PathfinderConfiguration pathfinderConfiguration) {
+    super(navigationPointProvider, pathfinderConfiguration);
+  }
+
+  @Override
+  protected void tick(
+      PathPosition start,
+      PathPosition target,
+      int currentNode,
+      Depth depth,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+
+    JumpSearch search = new JumpSearch(start, target, nodeStore, filters, filterStages);
+    evaluateJumpPoints(search, currentNode, nodeStore, heuristic, nodeQueue, MAX_JUMP_DISTANCE);
+    depth.increment();
+  }
+
+  /**
+   * Jumps only stop at the target of a search, so a search without target jumps a single block at
+   * a time. Every node is then expanded into every direction, and all neighbours are reached.
+   */
+  @Override
+  protected void tickWithoutTarget(
+      PathPosition start,
+      int currentNode,
+      Depth depth,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+
+    JumpSearch search = new JumpSearch(start, start, nodeStore, filters, filterStages);
+    evaluateJumpPoints(search, currentNode, nodeStore, heuristic, nodeQueue, 1);
+    depth.increment();
+  }
+
+  @Override
+  protected void cleanup() {
+    // the passability of jumped blocks is remembered by the node store of each search
+  }
+
+  @Override
+  protected void appendIntermediatePositions(
+      List<PathPosition> path, NodeStore nodeStore, int node, int parentNode) {
+    int x = nodeStore.getX(node);
+    int y = nodeStore.getY(node);
+    int z = nodeStore.getZ(node);
+
+    int dx = Integer.signum(nodeStore.getX(parentNode) - x);
+    int dy = Integer.signum(nodeStore.getY(parentNode) - y);
+    int dz = Integer.signum(nodeStore.getZ(parentNode) - z);
+    int steps = distance(nodeStore, node, parentNode);
+
+    for (int step = 1; step < steps; step++) {
+      path.add(
+          new PathPosition(
+              nodeStore.getPathEnvironment(), x + dx * step, y + dy * step, z + dz * step));
+    }
+  }
+
+  private void evaluateJumpPoints(
+      JumpSearch search,
+      int currentNode,
+      NodeStore nodeStore,
+      Heuristic heuristic,
+      IndexedHeap nodeQueue,
+      int maxJumpDistance) {
+
+    int x = nodeStore.getX(currentNode);
+    int y = nodeStore.getY(currentNode);
+    int z = nodeStore.getZ(currentNode);
+
+    int direction = arrivalDirection(search, currentNode, nodeStore, maxJumpDistance);
+    int blockedCells =
+        direction == NO_DIRECTION
+            ? 0
+            : search.blockedCells(x, y, z, JumpDirections.RELEVANT_CELLS[direction]);
+
+    for (int e = 0; e < JumpDirections.COUNT; e++) {
+      if (direction != NO_DIRECTION && !JumpDirections.isRelevant(direction, e, blockedCells))
+        continue;
+
+      int steps = search.jump(x, y, z, e, maxJumpDistance, true);
+      if (steps == NO_JUMP) continue;
+
+      int[] offset = JumpDirections.OFFSETS[e];
+      int jumpX = x + offset[0] * steps;
+      int jumpY = y + offset[1] * steps;
+      int jumpZ = z + offset[2] * steps;
+
+      long packedPosition = PackedPosition.pack(jumpX, jumpY, jumpZ);
+      double gCost = nodeStore.getGCost(currentNode) + steps * JumpDirections.LENGTHS[e];
+      int nodeDepth = nodeStore.getDepth(currentNode) + steps;
+
+      int existingNode = nodeStore.indexOf(packedPosition);
+      if (existingNode != NodeStore.NO_NODE) {
+        if (isCheaperRoute(existingNode, gCost, nodeStore))
+          improveNode(existingNode, currentNode, gCost, nodeDepth, nodeStore, nodeQueue);
+        continue;
+      }
+
+      int newNode =
+          nodeStore.add(
+              packedPosition,
+              currentNode,
+              gCost,
+              gCost + heuristic.estimate(jumpX, jumpY, jumpZ),
+              nodeDepth);
+      nodeQueue.insert(newNode, nodeStore.getFCost(newNode));
+    }
+  }
+
+  /**
+   * Returns the direction the node was reached in, or {@link #NO_DIRECTION} if it has to be
+   * expanded into every direction. That is the case for the start node, for nodes at the end of a
+   * capped jump and for nodes that cross the target on one of the axes they were reached along.
+   */
+  private int arrivalDirection(
+      JumpSearch search, int node, NodeStore nodeStore, int maxJumpDistance) {
+    int parentNode = nodeStore.getParent(node);
+    if (parentNode == NodeStore.NO_PARENT) return NO_DIRECTION;
+    if (distance(nodeStore, node, parentNode) >= maxJumpDistance) return NO_DIRECTION;
+
+    int x = nodeStore.getX(node);
+    int y = nodeStore.getY(node);
+    int z = nodeStore.getZ(node);
+
+    int dx = Integer.signum(x - nodeStore.getX(parentNode));
+    int dy = Integer.signum(y - nodeStore.getY(parentNode));
+    int dz = Integer.signum(z - nodeStore.getZ(parentNode));
+    if (search.crossesTarget(x, y, z, dx, dy, dz)) return NO_DIRECTION;
+
+    return JumpDirections.of(dx, dy, dz);
+  }
+
+  /** The number of moves between a node and its parent, which always lie on one jump line. */
+  private static int distance(NodeStore nodeStore, int node, int parentNode) {
+    int dx = Math.abs(nodeStore.getX(node) - nodeStore.getX(parentNode));
+    int dy = Math.abs(nodeStore.getY(node) - nodeStore.getY(parentNode));
+    int dz = Math.abs(nodeStore.getZ(node) - nodeStore.getZ(parentNode));
+    return Math.max(dx, Math.max(dy, dz));
+  }
+
+  /** The state shared by all jumps of a single expansion. */
+  private final class JumpSearch {
+
+    private final PathPosition start;
+    private final PathPosition target;
+    private final PathEnvironment pathEnvironment;
+    private final List<PathFilter> filters;
+    private final List<PathFilterStage> filterStages;
+    private final LongIntHashMap knownPassability;
+
+    private final int targetX;
+    private final int targetY;
+    private final int targetZ;
+
+    private JumpSearch(
+        PathPosition start,
+        PathPosition target,
+        NodeStore nodeStore,
+        List<PathFilter> filters,
+        List<PathFilterStage> filterStages) {
+      this.start = start;
+      this.target = target;
+      this.pathEnvironment = nodeStore.getPathEnvironment();
+      this.filters = filters;
+      this.filterStages = filterStages;
+      this.knownPassability = nodeStore.getKnownPassability();
+      this.targetX = target.getFlooredX();
+      this.targetY = target.getFlooredY();
+      this.targetZ = target.getFlooredZ();
+    }
+
+    /**
+     * Jumps from the given block into the given direction.
+     *
+     * @param maxDistance the number of moves the jump may make at most. A diagonal jump only
+     *     grants the jumps looking ahead from its blocks the distance it has left itself.
+     * @param topLevel whether this jump is made from a node, as opposed to a jump looking ahead
+     *     from a block on a diagonal jump. Only the former ends at the jump distance cap.
+     * @return the number of moves to the jump point or {@link #NO_JUMP} if there is none
+     */
+    private int jump(int x, int y, int z, int direction, int maxDistance, boolean topLevel) {
+      int[] offset = JumpDirections.OFFSETS[direction];
+
+      for (int steps = 1; steps <= maxDistance; steps++) {
+        if (!canMove(x, y, z, offset)) return NO_JUMP;
+
+        x += offset[0];
+        y += offset[1];
+        z += offset[2];
+
+        if (x == targetX && y == targetY && z == targetZ) return steps;
+        if (crossesTarget(x, y, z, offset[0], offset[1], offset[2])) return steps;
+
+        int blockedCells = blockedCells(x, y, z, JumpDirections.RELEVANT_CELLS[direction]);
+        if (JumpDirections.hasForcedNeighbour(direction, blockedCells)) return steps;
+
+        for (int subDirection : JumpDirections.SUB_DIRECTIONS[direction]) {
+          if (jump(x, y, z, subDirection, maxDistance - steps, false) != NO_JUMP) return steps;
+        }
+      }
+
+      return topLevel ? maxDistance : NO_JUMP;
+    }
+
+    /** Whether the block shares a coordinate with the target on an axis the jump moves along. */
+    private boolean crossesTarget(int x, int y, int z, int dx, int dy, int dz) {
+      return (dx != 0 && x == targetX) || (dy != 0 && y == targetY) || (dz != 0 && z == targetZ);
+    }
+
+    /**
+     * Returns whether the move is possible, following {@link
+     * de.metaphoriker.pathetic.engine.Passability#canMove}: moves that are diagonal in the
+     * horizontal plane must not change the height, and need at least one of the two blocks they cut
+     * the corner of to be passable.
+     */
+    private boolean canMove(int x, int y, int z, int[] offset) {
+      boolean diagonal = offset[0] != 0 && offset[2] != 0;
+      if (diagonal && offset[1] != 0) return false;
+      if (!isPassable(x + offset[0], y + offset[1], z + offset[2], x, y, z)) return false;
+      if (!diagonal) return true;
+
+      return isPassable(x + offset[0], y, z, x, y, z) || isPassable(x, y, z + offset[2], x, y, z);
+    }
+
+    /** Returns the mask of the cube cells around the block, out of the given ones, are blocked. */
+    private int blockedCells(int x, int y, int z, int cells) {
+      int blockedCells = 0;
+      for (int e = 0; e < JumpDirections.COUNT; e++) {
+        int cell = JumpDirections.CELLS[e];
+        if ((cells & 1 << cell) == 0) continue;
+
+        int[] offset = JumpDirections.OFFSETS[e];
+        if (!isPassable(x + offset[0], y + offset[1], z + offset[2], x, y, z))
+          blockedCells |= 1 << cell;
+      }
+      return blockedCells;
+    }
+
+    private boolean isPassable(int x, int y, int z, int parentX, int parentY, int parentZ) {
+      long packedPosition = PackedPosition.pack(x, y, z);
+      int known = knownPassability.get(packedPosition);
+      if (known != LongIntHashMap.NO_VALUE) return known == PASSABLE;
+
+      PathPosition position = new PathPosition(pathEnvironment, x, y, z);
+      PathPosition parent = new PathPosition(pathEnvironment, parentX, parentY, parentZ);
+      boolean passable = !isNodeInvalid(start, target, parent, position, filters, filterStages);
+
+      knownPassability.put(packedPosition, passable ? PASSABLE : BLOCKED);
+      return passable;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Heuristic;
+import de.metaphoriker.pathetic.engine.LineOfSight;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.List;
+
+/**
+ * An any-angle pathfinder implementing Lazy Theta*. It expands the same neighbours as A*, but
+ * connects them to the parent of the expanded node instead of the node itself, assuming there is a
+ * line of sight between both. The assumption is only checked once a node is taken from the open
+ * list: without a {@link LineOfSight line of sight} the node falls back to the cheapest of its
+ * expanded neighbours, just like in A*.
+ *
+ * <p>Consecutive positions of the resulting paths are therefore usually not adjacent, but the
+ * corners of the route. The straight lines between them only pass through blocks that passed the
+ * filters and filter stages, validated with the block itself as parent. Since the lines of a
+ * search cross the same blocks over and over again, the outcome is remembered per block for the
+ * rest of the search, in the node store of the search.
+ */
+public class LazyThetaStarPathfinder extends AStarPathfinder {
+
+  public LazyThetaStarPathfinder(
+      NavigationPointProvider navigationPointProvider,
+      PathfinderConfiguration pathfinderConfiguration) {
+    super(navigationPointProvider, pathfinderConfiguration);
+  }
+
+  @Override
+  protected int selectParent(int currentNode, NodeStore nodeStore) {
+    int parentNode = nodeStore.getParent(currentNode);
+    return parentNode == NodeStore.NO_PARENT ? currentNode : parentNode;
+  }
+
+  @Override
+  protected void settleNode(
+      PathPosition start,
+      PathPosition target,
+      int node,
+      NodeStore nodeStore,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    int parentNode = nodeStore.getParent(node);
+    if (parentNode == NodeStore.NO_PARENT) return;
+
+    // a reversed search has start and target swapped, the filters are handed those of the path
+    PathPosition pathStart = nodeStore.isReversed() ? target : start;
+    PathPosition pathTarget = nodeStore.isReversed() ? start : target;
+    Passability linePassability =
+        createPassability(
+            pathStart, pathTarget, filters, filterStages, nodeStore.getKnownPassability());
+    if (LineOfSight.between(
+        linePassability,
+        nodeStore.getX(parentNode),
+        nodeStore.getY(parentNode),
+        nodeStore.getZ(parentNode),
+        nodeStore.getX(node),
+        nodeStore.getY(node),
+        nodeStore.getZ(node))) return;
+
+    reparentToNeighbour(pathStart, pathTarget, node, nodeStore, filters, filterStages);
+  }
+
+  /**
+   * Connects the node to the expanded neighbour it can be reached from most cheaply. The neighbour
+   * the node was generated from is always among them, so the node is never left without a parent.
+   * In a reversed search, the path leads from the node to the neighbour, so that move is validated.
+   *
+   * @param start the start of the path, regardless of the direction of the search
+   * @param target the target of the path, regardless of the direction of the search
+   */
+  private void reparentToNeighbour(
+      PathPosition start,
+      PathPosition target,
+      int node,
+      NodeStore nodeStore,
+      List<PathFilter> filters,
+      List<PathFilterStage> filterStages) {
+    int x = nodeStore.getX(node);
+    int y = nodeStore.getY(node);
+    int z = nodeStore.getZ(node);
+    PathPosition position = nodeStore.toPathPosition(node);
+
+    int bestNeighbour = NodeStore.NO_NODE;
+    double bestGCost = Double.POSITIVE_INFINITY;
+
+    for (int[] offset : neighbourOffsets) {
+      int neighbourX = x + offset[0];
+      int neighbourY = y + offset[1];
+      int neighbourZ = z + offset[2];
+
+      int neighbour = nodeStore.indexOf(PackedPosition.pack(neighbourX, neighbourY, neighbourZ));
+      if (neighbour == NodeStore.NO_NODE || neighbour == node || !nodeStore.isClosed(neighbour))
+        continue;
+
+      double gCost =
+          nodeStore.getGCost(neighbour)
+              + Heuristic.movementCost(neighbourX, neighbourY, neighbourZ, x, y, z);
+      if (gCost >= bestGCost) continue;
+
+      if (isDescendant(neighbour, node, nodeStore)) continue;
+
+      PathPosition neighbourPosition = nodeStore.toPathPosition(neighbour);
+      boolean valid =
+          nodeStore.isReversed()
+              ? isNodeValid(start, target, position, neighbourPosition, filters, filterStages)
+              : isNodeValid(start, target, neighbourPosition, position, filters, filterStages);
+      if (!valid) continue;
+
+      bestNeighbour = neighbour;
+      bestGCost = gCost;
+    }
+
+    if (bestNeighbour == NodeStore.NO_NODE) return;
+
+    double heuristicCost = nodeStore.getFCost(node) - nodeStore.getGCost(node);
+    nodeStore.update(
+        node,
+        bestNeighbour,
+        bestGCost,
+        bestGCost + heuristicCost,
+        nodeStore.getDepth(bestNeighbour) + 1);
+  }
+
+  /** Whether the node was reached through the given ancestor, which happens to reopened nodes. */
+  private static boolean isDescendant(int node, int ancestor, NodeStore nodeStore) {
+    for (int current = node; current != NodeStore.NO_PARENT; current = nodeStore.getParent(current))
+      if (current == ancestor) return true;
+    return false;
+  }
+}
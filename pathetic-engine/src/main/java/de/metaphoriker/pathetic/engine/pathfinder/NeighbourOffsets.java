@@ -0,0 +1,95 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.NeighbourStrategy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed offsets of the neighbours of a block, one table per {@link NeighbourStrategy}. Every
+ * table holds each neighbour exactly once and never the block itself. Moves that are diagonal in
+ * the horizontal plane and change the height at the same time are never possible, so they are left
+ * out of every table.
+ *
+ * <p>The neighbours at the height of the block come first, followed by the ones above and the ones
+ * below it, so moves that keep the height are tried first.
+ *
+ * <p>Next to them, {@link #CORNERS} holds the cells a diagonal move cuts the corner of, indexed by
+ * the cube cell of the move as in {@link JumpDirections#cell}.
+ */
+final class NeighbourOffsets {
+
+  private static final int[][] FACES = collect(NeighbourStrategy.FACES);
+  private static final int[][] FACES_AND_EDGES = collect(NeighbourStrategy.FACES_AND_EDGES);
+  private static final int[][] ALL = collect(NeighbourStrategy.ALL);
+  private static final int[][] WALKER = collect(NeighbourStrategy.WALKER);
+
+  /**
+   * For every move, the offsets of the cells at the height of the block a diagonal move cuts the
+   * corner of, at least one of which has to be passable. Moves that are diagonal in the horizontal
+   * plane and change the height at the same time have no such cells and are never possible. Moves
+   * that are not diagonal in the horizontal plane map to {@code null}.
+   */
+  static final int[][][] CORNERS = new int[27][][];
+
+  static {
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dz = -1; dz <= 1; dz++) {
+          if (dx == 0 || dz == 0) continue;
+
+          CORNERS[JumpDirections.cell(dx, dy, dz)] =
+              dy == 0 ? new int[][] {{dx, 0, 0}, {0, 0, dz}} : new int[0][];
+        }
+      }
+    }
+  }
+
+  private NeighbourOffsets() {
+    throw new AssertionError("NeighbourOffsets is a utility class and should not be instantiated");
+  }
+
+  /**
+   * Returns the offsets of the neighbours of the given strategy. The returned table is shared and
+   * must not be modified.
+   */
+  static int[][] of(NeighbourStrategy strategy) {
+    switch (strategy) {
+      case FACES:
+        return FACES;
+      case FACES_AND_EDGES:
+        return FACES_AND_EDGES;
+      case WALKER:
+        return WALKER;
+      default:
+        return ALL;
+    }
+  }
+
+  private static int[][] collect(NeighbourStrategy strategy) {
+    List<int[]> offsets = new ArrayList<>();
+    for (int dy : new int[] {0, 1, -1}) {
+      for (int dx = -1; dx <= 1; dx++) {
+        for (int dz = -1; dz <= 1; dz++) {
+          if (isNeighbour(strategy, dx, dy, dz)) offsets.add(new int[] {dx, dy, dz});
+        }
+      }
+    }
+    return offsets.toArray(new int[0][]);
+  }
+
+  private static boolean isNeighbour(NeighbourStrategy strategy, int dx, int dy, int dz) {
+    int changedAxes = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+    if (changedAxes == 0 || changedAxes == 3) return false;
+
+    switch (strategy) {
+      case FACES:
+        return changedAxes == 1;
+      case FACES_AND_EDGES:
+        return changedAxes <= 2;
+      case WALKER:
+        return dx != 0 || dz != 0;
+      default:
+        return true;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.IndexedHeap;
+import de.metaphoriker.pathetic.engine.util.LongIntHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The nodes a search has set aside instead of expanding them, because the chunks around them are
+ * still loading. Once its load completes, a node is queued again with its cost, so the search keeps
+ * expanding other nodes in the meantime.
+ *
+ * <p>Every chunk is asked for and loaded at most once per search, all nodes waiting for it share
+ * its load. Nodes next to a chunk whose load has failed are not expanded at all.
+ *
+ * <p>Loads complete on whatever thread the provider loads on, everything else is only called by
+ * the thread running the search.
+ */
+final class ParkedNodes {
+
+  /** The state of the chunks around a node. */
+  enum Neighbourhood {
+    AVAILABLE,
+    /** One of the chunks is loading, the node has been parked until it has loaded. */
+    LOADING,
+    /** One of the chunks has failed to load, the node cannot be expanded. */
+    UNAVAILABLE
+  }
+
+  private static final int CHUNK_SHIFT = 4;
+
+  private static final int AVAILABLE = 1;
+  private static final int FAILED = 2;
+
+  private final NavigationPointProvider navigationPointProvider;
+  private final PathEnvironment environment;
+
+  /** The chunks known to be available or to have failed to load. */
+  private final LongIntHashMap chunkStates = new LongIntHashMap();
+
+  /** The loads of the chunks that have not been resolved yet, by chunk. */
+  private final Map<Long, CompletableFuture<Void>> pendingLoads = new HashMap<>();
+
+  /** The parked nodes whose load has completed, filled by the threads completing the loads. */
+  private final Queue<Integer> loadedNodes = new ConcurrentLinkedQueue<>();
+
+  /** Completed as soon as a node is loaded, replaced whenever the search waits for the next one. */
+  private volatile CompletableFuture<Void> nodeLoaded = new CompletableFuture<>();
+
+  private int parked;
+
+  ParkedNodes(NavigationPointProvider navigationPointProvider, PathEnvironment environment) {
+    this.navigationPointProvider = navigationPointProvider;
+    this.environment = environment;
+  }
+
+  /**
+   * Checks the chunks of the horizontal area around a node, and parks the node if one of them is
+   * still loading.
+   */
+  Neighbourhood check(NodeStore nodeStore, int node) {
+    int x = nodeStore.getX(node);
+    int z = nodeStore.getZ(node);
+
+    for (int chunkX = (x - 1) >> CHUNK_SHIFT; chunkX <= (x + 1) >> CHUNK_SHIFT; chunkX++) {
+      for (int chunkZ = (z - 1) >> CHUNK_SHIFT; chunkZ <= (z + 1) >> CHUNK_SHIFT; chunkZ++) {
+        long chunk = (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+        int state = chunkStates.get(chunk);
+        if (state == AVAILABLE) continue;
+        if (state == FAILED) return Neighbourhood.UNAVAILABLE;
+
+        CompletableFuture<Void> load = pendingLoads.get(chunk);
+        if (load == null) {
+          if (navigationPointProvider.isChunkAvailable(environment, chunkX, chunkZ)) {
+            chunkStates.put(chunk, AVAILABLE);
+            continue;
+          }
+
+          load = loadChunk(chunkX, chunkZ);
+          pendingLoads.put(chunk, load);
+        }
+
+        if (!load.isDone()) {
+          park(node, load);
+          return Neighbourhood.LOADING;
+        }
+
+        pendingLoads.remove(chunk);
+        if (load.isCompletedExceptionally()) {
+          chunkStates.put(chunk, FAILED);
+          return Neighbourhood.UNAVAILABLE;
+        }
+        chunkStates.put(chunk, AVAILABLE);
+      }
+    }
+    return Neighbourhood.AVAILABLE;
+  }
+
+  private CompletableFuture<Void> loadChunk(int chunkX, int chunkZ) {
+    CompletableFuture<Void> load = new CompletableFuture<>();
+    try {
+      navigationPointProvider
+          .loadChunkAsync(environment, chunkX, chunkZ)
+          .whenComplete(
+              (value, throwable) -> {
+                if (throwable != null) load.completeExceptionally(throwable);
+                else load.complete(null);
+              });
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+    }
+    return load;
+  }
+
+  private void park(int node, CompletableFuture<Void> load) {
+    parked++;
+    load.whenComplete(
+        (value, throwable) -> {
+          loadedNodes.add(node);
+          nodeLoaded.complete(null);
+        });
+  }
+
+  /**
+   * Queues the nodes whose load has completed again. Nodes that have been queued or expanded in the
+   * meantime, because the search reached them on another route, are left as they are.
+   */
+  void requeueLoaded(NodeStore nodeStore, IndexedHeap nodeQueue) {
+    if (parked == 0) return;
+
+    Integer node;
+    while ((node = loadedNodes.poll()) != null) {
+      parked--;
+      if (nodeQueue.contains(node) || nodeStore.isClosed(node)) continue;
+
+      nodeQueue.insert(node, nodeStore.getFCost(node));
+    }
+  }
+
+  boolean isEmpty() {
+    return parked == 0;
+  }
+
+  /** Returns a stage that completes once a parked node can be queued again. */
+  CompletableFuture<Void> awaitLoad() {
+    CompletableFuture<Void> awaited = new CompletableFuture<>();
+    nodeLoaded = awaited;
+    if (!loadedNodes.isEmpty()) awaited.complete(null);
+    return awaited;
+  }
+}
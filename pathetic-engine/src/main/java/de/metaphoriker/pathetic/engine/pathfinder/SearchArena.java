@@ -0,0 +1,110 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.DaryIndexedHeap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the node stores and open lists of finished searches per thread, so the next search on the
+ * same thread resets and reuses them instead of allocating its own. Pathing threads run one search
+ * at a time, which leaves the memory of a single search, or of both directions of a bidirectional
+ * one, in use at steady state.
+ *
+ * <p>The arena follows the size of recent searches. Memory that has grown far beyond it, because of
+ * a single large search, is dropped when it is handed back, so later searches are not stuck with
+ * clearing oversized arrays. Once a thread has not searched for a minute, all of its memory is
+ * dropped the next time the arena is used or {@link #trimIfIdle() trimmed}. Idle threads of the
+ * pathing executor terminate by themselves, and their arena with them.
+ *
+ * <p>An arena is confined to its thread and must not be shared.
+ */
+final class SearchArena {
+
+  private static final ThreadLocal<SearchArena> ARENAS = ThreadLocal.withInitial(SearchArena::new);
+
+  private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final int MIN_CAPACITY = 256;
+  private static final int MAX_POOLED = 4;
+
+  /** How many times larger than recent searches memory may be to still be kept. */
+  private static final int SHRINK_FACTOR = 8;
+
+  /** The weight of the latest search in the moving average of the search size. */
+  private static final double SIZE_SMOOTHING = 0.125;
+
+  private final Memory[] pool = new Memory[MAX_POOLED];
+  private int pooled;
+
+  private double averageSize = MIN_CAPACITY;
+  private long lastUsed = System.nanoTime();
+
+  private SearchArena() {}
+
+  /** Returns the arena of the calling thread. */
+  static SearchArena current() {
+    return ARENAS.get();
+  }
+
+  /**
+   * Hands out memory for a search in the given environment, reusing memory handed back earlier if
+   * there is any with an open list of the given arity.
+   */
+  Memory acquire(PathEnvironment pathEnvironment, int arity) {
+    trimIfIdle();
+    lastUsed = System.nanoTime();
+
+    for (int i = 0; i < pooled; i++) {
+      Memory memory = pool[i];
+      if (memory.nodeQueue.getArity() != arity) continue;
+
+      pool[i] = pool[--pooled];
+      pool[pooled] = null;
+
+      memory.nodeStore.reset(pathEnvironment);
+      memory.nodeQueue.clear();
+      return memory;
+    }
+
+    int capacity = Math.max(MIN_CAPACITY, (int) (averageSize * 2));
+    return new Memory(
+        new NodeStore(pathEnvironment, capacity), new DaryIndexedHeap(arity, capacity));
+  }
+
+  /**
+   * Takes back memory from a finished search. The search must not use it afterwards, as it is
+   * handed out to the next search on this thread.
+   */
+  void release(Memory memory) {
+    lastUsed = System.nanoTime();
+
+    int size = memory.nodeStore.size();
+    averageSize += (size - averageSize) * SIZE_SMOOTHING;
+
+    if (pooled == MAX_POOLED) return;
+    if (memory.nodeStore.capacity() > SHRINK_FACTOR * Math.max(averageSize, MIN_CAPACITY)) return;
+
+    pool[pooled++] = memory;
+  }
+
+  /** Drops all memory if this thread has not searched for a while. */
+  void trimIfIdle() {
+    if (pooled == 0 || System.nanoTime() - lastUsed < IDLE_NANOS) return;
+
+    for (int i = 0; i < pooled; i++) pool[i] = null;
+    pooled = 0;
+    averageSize = MIN_CAPACITY;
+  }
+
+  /** The node store and open list of a single search, or of one direction of it. */
+  static final class Memory {
+
+    final NodeStore nodeStore;
+    final DaryIndexedHeap nodeQueue;
+
+    Memory(NodeStore nodeStore, DaryIndexedHeap nodeQueue) {
+      this.nodeStore = nodeStore;
+      this.nodeQueue = nodeQueue;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The state of a single path request, shared by every search it runs, like the segment searches of
+ * a hierarchical one. Each request has its own context, so aborting one leaves all other requests
+ * of the same pathfinder running.
+ */
+final class SearchContext {
+
+  /** The number of calls of {@link #isPastDeadline()} the clock is read once per, a power of 2. */
+  private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+  private final PathRequestTag requestTag;
+  private final long requestedAt = System.nanoTime();
+
+  /** The time in nanoseconds the request may take, or 0 if it has no deadline. */
+  private final long deadlineNanos;
+
+  /** Completed once the request is aborted. */
+  private final CompletableFuture<Void> abortion = new CompletableFuture<>();
+
+  /** Only used by the thread running the searches of the request. */
+  private int deadlineChecks;
+
+  private boolean pastDeadline;
+
+  SearchContext(PathRequestTag requestTag, long deadlineNanos) {
+    this.requestTag = requestTag;
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  PathRequestTag getRequestTag() {
+    return requestTag;
+  }
+
+  /** Returns the time in nanoseconds since the request was made. */
+  long getAgeNanos() {
+    return System.nanoTime() - requestedAt;
+  }
+
+  /** Makes the searches of the request stop at their next expansion. */
+  void abort() {
+    abortion.complete(null);
+  }
+
+  boolean isAborted() {
+    return abortion.isDone();
+  }
+
+  /** Returns a stage that completes once the request is aborted. */
+  CompletionStage<Void> whenAborted() {
+    return abortion;
+  }
+
+  /**
+   * Whether the request has run past its deadline. Called once per expansion, this only reads the
+   * clock every {@value #DEADLINE_CHECK_INTERVAL} calls, and keeps answering {@code true} once the
+   * deadline has passed, so later searches of the request stop right away.
+   */
+  boolean isPastDeadline() {
+    if (deadlineNanos <= 0 || pastDeadline) return pastDeadline;
+    if ((deadlineChecks++ & DEADLINE_CHECK_INTERVAL - 1) != 0) return false;
+
+    return checkDeadline();
+  }
+
+  /**
+   * Whether the request has run past its deadline, reading the clock on every call. Meant for the
+   * rare points at which a search would otherwise wait, like before it hands back its thread.
+   */
+  boolean checkDeadline() {
+    if (deadlineNanos > 0 && !pastDeadline) pastDeadline = getAgeNanos() >= deadlineNanos;
+    return pastDeadline;
+  }
+
+  /**
+   * Returns the time in nanoseconds left until the deadline, which is negative once it has passed,
+   * or {@link Long#MAX_VALUE} if the request has no deadline.
+   */
+  long getRemainingNanos() {
+    return deadlineNanos > 0 ? deadlineNanos - getAgeNanos() : Long.MAX_VALUE;
+  }
+}
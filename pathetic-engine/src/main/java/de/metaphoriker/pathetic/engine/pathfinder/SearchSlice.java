@@ -0,0 +1,83 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The share of a server tick a search may use before it is suspended. A search claims an expansion
+ * from its slice before every expansion and suspends once the slice is used up. All searches
+ * resumed within the same tick share one slice.
+ */
+public final class SearchSlice {
+
+  private static final long UNLIMITED = -1;
+
+  private final boolean timed;
+  private final long deadline;
+  private final boolean suspendable;
+
+  private long remainingExpansions;
+
+  private SearchSlice(
+      boolean timed, long deadline, long remainingExpansions, boolean suspendable) {
+    this.timed = timed;
+    this.deadline = deadline;
+    this.remainingExpansions = remainingExpansions;
+    this.suspendable = suspendable;
+  }
+
+  /**
+   * Creates a slice starting now.
+   *
+   * @param maxMicros the time the slice lasts, or 0 if it is not limited in time
+   * @param maxExpansions the number of expansions in the slice, or 0 if they are not limited
+   */
+  static SearchSlice of(long maxMicros, int maxExpansions) {
+    return new SearchSlice(
+        maxMicros > 0,
+        System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxMicros),
+        maxExpansions > 0 ? maxExpansions : UNLIMITED,
+        true);
+  }
+
+  /** Creates a slice a search never gets suspended by, it blocks for loads instead. */
+  static SearchSlice unlimited() {
+    return new SearchSlice(false, 0, UNLIMITED, false);
+  }
+
+  /**
+   * Creates a slice that is not limited, but lets a search suspend while every node it has left
+   * waits for navigation points to load.
+   */
+  static SearchSlice untilBlocked() {
+    return new SearchSlice(false, 0, UNLIMITED, true);
+  }
+
+  /**
+   * Claims the next expansion of the slice.
+   *
+   * @return whether the slice had an expansion left, otherwise the search has to suspend
+   */
+  public boolean claimExpansion() {
+    if (remainingExpansions == 0) return false;
+    if (timed && System.nanoTime() - deadline >= 0) return false;
+
+    if (remainingExpansions != UNLIMITED) remainingExpansions--;
+    return true;
+  }
+
+  /**
+   * Whether the slice has no expansion left, so a search that suspended did so because of the
+   * slice rather than because it waits for loads.
+   */
+  boolean isUsedUp() {
+    return remainingExpansions == 0 || timed && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * Whether a search may set nodes aside while the navigation points around them load, and
+   * suspend once all of its nodes wait for a load. Otherwise, it blocks until they have loaded.
+   */
+  boolean isSuspendable() {
+    return suspendable;
+  }
+}
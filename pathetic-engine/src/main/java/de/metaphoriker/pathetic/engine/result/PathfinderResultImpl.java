@@ -23,7 +23,8 @@ public class PathfinderResultImpl implements PathfinderResult {
   public boolean hasFailed() {
     return pathState == PathState.FAILED
         || pathState == PathState.LENGTH_LIMITED
-        || pathState == PathState.MAX_ITERATIONS_REACHED;
+        || pathState == PathState.MAX_ITERATIONS_REACHED
+        || pathState == PathState.DEADLINE_EXCEEDED;
   }
 
   @Override
@@ -0,0 +1,169 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * An array-backed d-ary {@link IndexedHeap}. Handles and keys are kept in parallel primitive
+ * arrays, and a position table maps each handle to its slot in the heap, which gives {@code
+ * O(log n)} decrease-key without any per-insert allocation.
+ *
+ * <p>An arity of 2 results in a classic binary heap. An arity of 4 halves the height of the tree
+ * and keeps all children of a slot within one cache line, which usually makes it the faster choice.
+ */
+public class DaryIndexedHeap implements IndexedHeap {
+
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final int NOT_CONTAINED = -1;
+
+  private final int arity;
+
+  private int[] handles;
+  private double[] keys;
+
+  /** The slot of every handle in the heap, or {@link #NOT_CONTAINED}. */
+  private int[] slots;
+
+  private int size;
+
+  public DaryIndexedHeap(int arity) {
+    this(arity, DEFAULT_CAPACITY);
+  }
+
+  public DaryIndexedHeap(int arity, int initialCapacity) {
+    if (arity < 2) throw new IllegalArgumentException("Arity must be at least 2: " + arity);
+
+    int capacity = Math.max(initialCapacity, 1);
+    this.arity = arity;
+    this.handles = new int[capacity];
+    this.keys = new double[capacity];
+    this.slots = new int[capacity];
+    Arrays.fill(slots, NOT_CONTAINED);
+  }
+
+  @Override
+  public void insert(int handle, double key) {
+    if (handle < 0) throw new IllegalArgumentException("Handle must not be negative: " + handle);
+    if (contains(handle)) throw new IllegalStateException("Handle already contained: " + handle);
+
+    if (size == handles.length) growHeap();
+    if (handle >= slots.length) growSlots(handle);
+
+    siftUp(size++, handle, key);
+  }
+
+  @Override
+  public void decreaseKey(int handle, double key) {
+    if (!contains(handle)) throw new IllegalStateException("Handle not contained: " + handle);
+
+    int slot = slots[handle];
+    if (key > keys[slot])
+      throw new IllegalStateException("Key of handle " + handle + " would increase");
+
+    siftUp(slot, handle, key);
+  }
+
+  @Override
+  public int deleteMin() {
+    if (size == 0) throw new IllegalStateException("Heap is empty");
+
+    int min = handles[0];
+    slots[min] = NOT_CONTAINED;
+
+    if (--size > 0) siftDown(0, handles[size], keys[size]);
+    return min;
+  }
+
+  @Override
+  public int peek() {
+    if (size == 0) throw new IllegalStateException("Heap is empty");
+    return handles[0];
+  }
+
+  @Override
+  public double peekKey() {
+    if (size == 0) throw new IllegalStateException("Heap is empty");
+    return keys[0];
+  }
+
+  @Override
+  public boolean contains(int handle) {
+    return handle >= 0 && handle < slots.length && slots[handle] != NOT_CONTAINED;
+  }
+
+  @Override
+  public double getKey(int handle) {
+    if (!contains(handle)) throw new IllegalStateException("Handle not contained: " + handle);
+    return keys[slots[handle]];
+  }
+
+  public int getArity() {
+    return arity;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) slots[handles[i]] = NOT_CONTAINED;
+    size = 0;
+  }
+
+  /** Moves the hole at the given slot up until the handle can be placed there. */
+  private void siftUp(int slot, int handle, double key) {
+    while (slot > 0) {
+      int parent = (slot - 1) / arity;
+      if (keys[parent] <= key) break;
+
+      place(slot, handles[parent], keys[parent]);
+      slot = parent;
+    }
+    place(slot, handle, key);
+  }
+
+  /** Moves the hole at the given slot down until the handle can be placed there. */
+  private void siftDown(int slot, int handle, double key) {
+    while (true) {
+      int firstChild = slot * arity + 1;
+      if (firstChild >= size) break;
+
+      int lastChild = Math.min(firstChild + arity, size);
+      int minChild = firstChild;
+      for (int child = firstChild + 1; child < lastChild; child++) {
+        if (keys[child] < keys[minChild]) minChild = child;
+      }
+
+      if (key <= keys[minChild]) break;
+
+      place(slot, handles[minChild], keys[minChild]);
+      slot = minChild;
+    }
+    place(slot, handle, key);
+  }
+
+  private void place(int slot, int handle, double key) {
+    handles[slot] = handle;
+    keys[slot] = key;
+    slots[handle] = slot;
+  }
+
+  private void growHeap() {
+    int capacity = handles.length << 1;
+    handles = Arrays.copyOf(handles, capacity);
+    keys = Arrays.copyOf(keys, capacity);
+  }
+
+  private void growSlots(int handle) {
+    int oldLength = slots.length;
+    int capacity = Math.max(oldLength << 1, handle + 1);
+    slots = Arrays.copyOf(slots, capacity);
+    Arrays.fill(slots, oldLength, capacity, NOT_CONTAINED);
+  }
+}
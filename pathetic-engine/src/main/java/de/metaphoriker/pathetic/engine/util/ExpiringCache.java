@@ -0,0 +1,356 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrent cache whose entries expire a fixed time after they were written or last read, and
+ * which holds at most a maximum number of entries.
+ *
+ * <p>Expiration is driven by a hierarchical timer wheel with four levels of 64 buckets each. The
+ * buckets of the first level span one second, every further level spans 64 buckets of the level
+ * below, so the wheel covers about six months. Whenever the cache is used, the buckets whose time
+ * has passed since the last use are processed: their expired entries are removed and all others
+ * move to the bucket of their current expiration time. Each entry is thereby only touched a
+ * constant number of times per level, instead of the whole cache being scanned at once.
+ *
+ * <p>Reads never block. They refresh the expiration time of an entry without moving it in the
+ * wheel, which is caught up with once its old bucket is processed, and they only process buckets
+ * if no other thread is doing so already.
+ *
+ * <p>Once the maximum size is exceeded, the entry expiring first is evicted. For entries expiring
+ * after access, that is the least recently used one.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ExpiringCache<K, V> {
+
+  private static final long TICK_MILLIS = 1000;
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+  private static final int LEVELS = 4;
+  private static final int BUCKET_BITS = 6;
+  private static final int BUCKETS = 1 << BUCKET_BITS;
+  private static final int BUCKET_MASK = BUCKETS - 1;
+
+  /** When the expiration time of an entry is refreshed. */
+  public enum ExpirationPolicy {
+
+    /** Entries expire a fixed time after they were put into the cache. */
+    AFTER_WRITE,
+
+    /** Entries expire a fixed time after they were last read or put into the cache. */
+    AFTER_ACCESS
+  }
+
+  private final ConcurrentHashMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock wheelLock = new ReentrantLock();
+
+  /** The sentinels of the buckets of every level, guarded by {@link #wheelLock}. */
+  private final Node<K, V>[][] wheel;
+
+  private final long expirationNanos;
+  private final ExpirationPolicy policy;
+  private final int maximumSize;
+  private final LongSupplier nanoTime;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * The tick up to which all buckets have been processed. Only written while holding {@link
+   * #wheelLock}, but read without it to skip locking while no bucket is due.
+   */
+  private volatile long currentTick;
+
+  /**
+   * @param expirationTime the time after which entries expire
+   * @param unit the unit of the expiration time
+   * @param policy whether reads refresh the expiration time
+   * @param maximumSize the number of entries the cache holds at most
+   */
+  public ExpiringCache(
+      long expirationTime, TimeUnit unit, ExpirationPolicy policy, int maximumSize) {
+    this(expirationTime, unit, policy, maximumSize, System::nanoTime);
+  }
+
+  ExpiringCache(
+      long expirationTime,
+      TimeUnit unit,
+      ExpirationPolicy policy,
+      int maximumSize,
+      LongSupplier nanoTime) {
+    if (expirationTime <= 0)
+      throw new IllegalArgumentException("Expiration time must be positive: " + expirationTime);
+    if (maximumSize < 1)
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+    this.expirationNanos = unit.toNanos(expirationTime);
+    this.policy = policy;
+    this.maximumSize = maximumSize;
+    this.nanoTime = nanoTime;
+    this.currentTick = tickOf(nanoTime.getAsLong());
+
+    this.wheel = createWheel();
+  }
+
+  /** Creates the buckets of every level, each with its sentinel. */
+  @SuppressWarnings("unchecked")
+  private static <K, V> Node<K, V>[][] createWheel() {
+    Node<K, V>[][] wheel = (Node<K, V>[][]) new Node<?, ?>[LEVELS][BUCKETS];
+    for (Node<K, V>[] buckets : wheel) {
+      for (int bucket = 0; bucket < BUCKETS; bucket++) buckets[bucket] = Node.sentinel();
+    }
+    return wheel;
+  }
+
+  /**
+   * Returns the value of the given key, refreshing its expiration time under {@link
+   * ExpirationPolicy#AFTER_ACCESS}.
+   *
+   * @return the value, or {@code null} if there is none or it has expired
+   */
+  public V get(K key) {
+    long now = nanoTime.getAsLong();
+    Node<K, V> node = entries.get(key);
+
+    if (node == null || node.expiresAt - now <= 0) {
+      misses.increment();
+      tryAdvance(now);
+      return null;
+    }
+
+    if (policy == ExpirationPolicy.AFTER_ACCESS) node.expiresAt = now + expirationNanos;
+    hits.increment();
+    tryAdvance(now);
+    return node.value;
+  }
+
+  /** Whether the cache holds a value for the given key that has not expired, without reading it. */
+  public boolean containsKey(K key) {
+    Node<K, V> node = entries.get(key);
+    return node != null && node.expiresAt - nanoTime.getAsLong() > 0;
+  }
+
+  /** Puts the value for the given key, replacing any previous one. */
+  public void put(K key, V value) {
+    long now = nanoTime.getAsLong();
+    Node<K, V> node = new Node<>(key, value, now + expirationNanos);
+
+    wheelLock.lock();
+    try {
+      advance(now);
+
+      Node<K, V> previous = entries.put(key, node);
+      if (previous != null) previous.unlink();
+      schedule(node);
+
+      while (entries.size() > maximumSize) evictFirstExpiring();
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /** Removes the value of the given key. */
+  public void remove(K key) {
+    wheelLock.lock();
+    try {
+      Node<K, V> node = entries.remove(key);
+      if (node != null) node.unlink();
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /** Removes all values. */
+  public void clear() {
+    wheelLock.lock();
+    try {
+      for (Node<K, V> node : entries.values()) node.unlink();
+      entries.clear();
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /** Removes all expired values whose bucket is due, blocking until the wheel is free. */
+  public void cleanUp() {
+    wheelLock.lock();
+    try {
+      advance(nanoTime.getAsLong());
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /** Returns the number of values, including expired ones that have not been removed yet. */
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Returns the number of values removed to stay within the maximum size. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** Returns the number of values removed because they expired. */
+  public long getExpirationCount() {
+    return expirations.sum();
+  }
+
+  private void tryAdvance(long now) {
+    if (tickOf(now) == currentTick || !wheelLock.tryLock()) return;
+
+    try {
+      advance(now);
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /** Processes every bucket whose time has passed since the last call. */
+  private void advance(long now) {
+    long previousTick = currentTick;
+    long nowTick = tickOf(now);
+    if (nowTick <= previousTick) return;
+
+    currentTick = nowTick;
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = level * BUCKET_BITS;
+      long previousSlot = previousTick >> shift;
+      long nowSlot = nowTick >> shift;
+      if (previousSlot == nowSlot) break;
+
+      long slots = Math.min(nowSlot - previousSlot, BUCKETS);
+      for (long slot = 1; slot <= slots; slot++)
+        processBucket(wheel[level][(int) (previousSlot + slot) & BUCKET_MASK], now);
+    }
+  }
+
+  /** Removes the expired entries of the bucket and moves the others to their current bucket. */
+  private void processBucket(Node<K, V> sentinel, long now) {
+    Node<K, V> node = sentinel.next;
+    sentinel.next = sentinel;
+    sentinel.previous = sentinel;
+
+    while (node != sentinel) {
+      Node<K, V> next = node.next;
+      node.next = null;
+      node.previous = null;
+
+      if (node.expiresAt - now <= 0) {
+        if (entries.remove(node.key, node)) expirations.increment();
+      } else {
+        schedule(node);
+      }
+      node = next;
+    }
+  }
+
+  /**
+   * Evicts the entry expiring first. Entries whose expiration time was refreshed since they were
+   * scheduled are moved on instead, until an entry is found in the bucket it belongs to.
+   */
+  private void evictFirstExpiring() {
+    while (true) {
+      Node<K, V> sentinel = firstOccupiedBucket();
+      if (sentinel == null) return;
+
+      Node<K, V> node = sentinel.next;
+      node.unlink();
+      if (bucketOf(node) != sentinel) {
+        schedule(node);
+        continue;
+      }
+
+      if (entries.remove(node.key, node)) evictions.increment();
+      return;
+    }
+  }
+
+  private Node<K, V> firstOccupiedBucket() {
+    for (int level = 0; level < LEVELS; level++) {
+      long slot = currentTick >> (level * BUCKET_BITS);
+      for (int offset = 0; offset < BUCKETS; offset++) {
+        Node<K, V> sentinel = wheel[level][(int) (slot + offset) & BUCKET_MASK];
+        if (sentinel.next != sentinel) return sentinel;
+      }
+    }
+    return null;
+  }
+
+  private void schedule(Node<K, V> node) {
+    bucketOf(node).append(node);
+  }
+
+  /** Returns the bucket the entry belongs to by its current expiration time. */
+  private Node<K, V> bucketOf(Node<K, V> node) {
+    long tick = Math.max(tickOf(node.expiresAt), currentTick + 1);
+    long delta = tick - currentTick;
+
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << ((level + 1) * BUCKET_BITS)) level++;
+
+    return wheel[level][(int) (tick >> (level * BUCKET_BITS)) & BUCKET_MASK];
+  }
+
+  /** Returns the tick of the given time, rounded up so entries are never removed early. */
+  private static long tickOf(long nanos) {
+    return Math.floorDiv(nanos, TICK_NANOS) + 1;
+  }
+
+  private static final class Node<K, V> {
+
+    private final K key;
+    private final V value;
+    private volatile long expiresAt;
+
+    private Node<K, V> previous;
+    private Node<K, V> next;
+
+    private Node(K key, V value, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    private static <K, V> Node<K, V> sentinel() {
+      Node<K, V> sentinel = new Node<>(null, null, 0);
+      sentinel.previous = sentinel;
+      sentinel.next = sentinel;
+      return sentinel;
+    }
+
+    /** Appends the node to the bucket of the given sentinel. */
+    private void append(Node<K, V> node) {
+      node.previous = previous;
+      node.next = this;
+      previous.next = node;
+      previous = node;
+    }
+
+    /** Removes the node from its bucket, if it is in one. */
+    private void unlink() {
+      if (previous == null) return;
+
+      previous.next = next;
+      next.previous = previous;
+      previous = null;
+      next = null;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package de.metaphoriker.pathetic.engine.util;
+
+/**
+ * A min-priority queue over non-negative {@code int} handles with primitive {@code double} keys.
+ * Every handle is contained at most once, which allows the key of a contained handle to be lowered
+ * in place instead of inserting a duplicate.
+ */
+public interface IndexedHeap {
+
+  /**
+   * Inserts the handle with the given key.
+   *
+   * @throws IllegalStateException if the handle is already contained
+   */
+  void insert(int handle, double key);
+
+  /**
+   * Lowers the key of a contained handle.
+   *
+   * @throws IllegalStateException if the handle is not contained or the key would increase
+   */
+  void decreaseKey(int handle, double key);
+
+  /**
+   * Removes the handle with the smallest key.
+   *
+   * @return the removed handle
+   * @throws IllegalStateException if the heap is empty
+   */
+  int deleteMin();
+
+  /** Returns the handle with the smallest key without removing it. */
+  int peek();
+
+  /** Returns the smallest key currently in the heap. */
+  double peekKey();
+
+  boolean contains(int handle);
+
+  /** Returns the key of a contained handle. */
+  double getKey(int handle);
+
+  int size();
+
+  boolean isEmpty();
+
+  /** Removes all handles while keeping the allocated storage. */
+  void clear();
+}
@@ -0,0 +1,141 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive {@code long} keys to non-negative {@code int} values.
+ * Neither keys nor values are boxed, which keeps the map cheap to use inside the pathfinding loop.
+ *
+ * <p>The map only supports insertion and lookup, entries cannot be removed individually. It is
+ * meant to live for a single search and be {@link #clear() cleared} afterwards.
+ */
+public class LongIntHashMap {
+
+  /** The value returned by {@link #get(long)} if the key is not present. */
+  public static final int NO_VALUE = -1;
+
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private long[] keys;
+
+  /** The stored values shifted by one, so that {@code 0} marks a free slot. */
+  private int[] values;
+
+  private int size;
+  private int mask;
+  private int resizeThreshold;
+
+  public LongIntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongIntHashMap(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  /**
+   * Returns the value mapped to the given key.
+   *
+   * @param key the key to look up
+   * @return the value, or {@link #NO_VALUE} if the key is not present
+   */
+  public int get(long key) {
+    int slot = slot(key);
+    while (values[slot] != 0) {
+      if (keys[slot] == key) return values[slot] - 1;
+      slot = (slot + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != NO_VALUE;
+  }
+
+  /**
+   * Maps the given key to the given value, replacing any previous mapping.
+   *
+   * @param key the key
+   * @param value the value, must not be negative
+   */
+  public void put(long key, int value) {
+    if (value < 0) throw new IllegalArgumentException("Value must not be negative: " + value);
+
+    int slot = slot(key);
+    while (values[slot] != 0) {
+      if (keys[slot] == key) {
+        values[slot] = value + 1;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    keys[slot] = key;
+    values[slot] = value + 1;
+
+    if (++size >= resizeThreshold) rehash(keys.length << 1);
+  }
+
+  /** Hands every entry of the map to the given consumer, in no particular order. */
+  public void forEach(EntryConsumer consumer) {
+    for (int i = 0; i < keys.length; i++) {
+      if (values[i] != 0) consumer.accept(keys[i], values[i] - 1);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Removes all entries while keeping the allocated table. */
+  public void clear() {
+    Arrays.fill(values, 0);
+    size = 0;
+  }
+
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void rehash(int newCapacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+
+    allocate(newCapacity);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] == 0) continue;
+
+      int slot = slot(oldKeys[i]);
+      while (values[slot] != 0) slot = (slot + 1) & mask;
+
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+    return Math.max(capacity, 2);
+  }
+
+  /** Receives the entries of a map. */
+  @FunctionalInterface
+  public interface EntryConsumer {
+
+    void accept(long key, int value);
+  }
+}
@@ -0,0 +1,45 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+
+/**
+ * Packs block coordinates into a single {@code long} and back. The layout matches the one used by
+ * Minecraft itself: 26 bits for x, 26 bits for z and 12 bits for y, which covers every block a
+ * {@link de.metaphoriker.pathetic.api.wrapper.PathEnvironment} can reasonably contain.
+ */
+public final class PackedPosition {
+
+  private static final int XZ_BITS = 26;
+  private static final int Y_BITS = 12;
+
+  private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+  private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+  private static final int X_SHIFT = XZ_BITS + Y_BITS;
+  private static final int Z_SHIFT = Y_BITS;
+
+  private PackedPosition() {
+    throw new AssertionError("PackedPosition is a utility class and should not be instantiated");
+  }
+
+  public static long pack(int x, int y, int z) {
+    return (x & XZ_MASK) << X_SHIFT | (z & XZ_MASK) << Z_SHIFT | (y & Y_MASK);
+  }
+
+  /** Packs the floored coordinates of the given position. */
+  public static long pack(PathPosition position) {
+    return pack(position.getFlooredX(), position.getFlooredY(), position.getFlooredZ());
+  }
+
+  public static int unpackX(long packed) {
+    return (int) (packed >> X_SHIFT);
+  }
+
+  public static int unpackY(long packed) {
+    return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+  }
+
+  public static int unpackZ(long packed) {
+    return (int) (packed << (64 - X_SHIFT) >> (64 - XZ_BITS));
+  }
+}
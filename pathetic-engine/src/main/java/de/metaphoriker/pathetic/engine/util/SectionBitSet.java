@@ -0,0 +1,76 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of block positions, stored as one bit per block in sections of 16x16x16 blocks. Sections
+ * are only allocated once a block within them is added, and are found through a {@link
+ * LongIntHashMap} keyed by their packed section coordinates, so neither lookups nor additions box
+ * or allocate per block.
+ *
+ * <p>A {@code SectionBitSet} is not thread-safe.
+ */
+public class SectionBitSet {
+
+  private static final int SECTION_SHIFT = 4;
+  private static final int SECTION_MASK = (1 << SECTION_SHIFT) - 1;
+
+  /** The number of {@code long} words holding the 4096 bits of a section. */
+  private static final int WORDS_PER_SECTION = 64;
+
+  private final LongIntHashMap sectionIndex = new LongIntHashMap();
+
+  private long[][] sections = new long[4][];
+  private int sectionCount;
+
+  /** Whether the block at the given packed position has been added. */
+  public boolean contains(long position) {
+    int section = sectionIndex.get(sectionKey(position));
+    if (section == LongIntHashMap.NO_VALUE) return false;
+
+    int bit = bitIndex(position);
+    return (sections[section][bit >>> 6] & 1L << bit) != 0;
+  }
+
+  /** Adds the block at the given packed position. */
+  public void add(long position) {
+    long key = sectionKey(position);
+    int section = sectionIndex.get(key);
+    if (section == LongIntHashMap.NO_VALUE) {
+      if (sectionCount == sections.length)
+        sections = Arrays.copyOf(sections, sectionCount << 1);
+
+      section = sectionCount++;
+      if (sections[section] == null) sections[section] = new long[WORDS_PER_SECTION];
+      else Arrays.fill(sections[section], 0);
+      sectionIndex.put(key, section);
+    }
+
+    int bit = bitIndex(position);
+    sections[section][bit >>> 6] |= 1L << bit;
+  }
+
+  /** Removes all blocks while keeping the allocated sections. */
+  public void clear() {
+    sectionIndex.clear();
+    sectionCount = 0;
+  }
+
+  /** Returns the number of sections that hold at least one block. */
+  public int sectionCount() {
+    return sectionCount;
+  }
+
+  private static long sectionKey(long position) {
+    return PackedPosition.pack(
+        PackedPosition.unpackX(position) >> SECTION_SHIFT,
+        PackedPosition.unpackY(position) >> SECTION_SHIFT,
+        PackedPosition.unpackZ(position) >> SECTION_SHIFT);
+  }
+
+  private static int bitIndex(long position) {
+    return (PackedPosition.unpackX(position) & SECTION_MASK) << 8
+        | (PackedPosition.unpackY(position) & SECTION_MASK) << 4
+        | PackedPosition.unpackZ(position) & SECTION_MASK;
+  }
+}
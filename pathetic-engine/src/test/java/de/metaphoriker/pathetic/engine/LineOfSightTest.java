@@ -0,0 +1,37 @@
+package de.metaphoriker.pathetic.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LineOfSightTest {
+
+  @Test
+  void testOpenSpace() {
+    assertTrue(LineOfSight.between((x, y, z) -> true, 0, 0, 0, 7, 3, -5));
+  }
+
+  @Test
+  void testBlockOnTheLine() {
+    Passability passability = (x, y, z) -> !(x == 2 && y == 1 && z == 0);
+
+    assertFalse(LineOfSight.between(passability, 0, 0, 0, 4, 2, 0));
+    assertTrue(LineOfSight.between(passability, 0, 0, 0, 4, 0, 0));
+  }
+
+  @Test
+  void testBlockNextToTheLine() {
+    Passability passability = (x, y, z) -> !(x == 1 && z == 2);
+
+    assertTrue(LineOfSight.between(passability, 0, 0, 0, 6, 0, 3));
+  }
+
+  @Test
+  void testCornerCutting() {
+    Passability oneCornerBlocked = (x, y, z) -> !(x == 1 && z == 0);
+    Passability bothCornersBlocked = (x, y, z) -> !(x == 1 && z == 0) && !(x == 0 && z == 1);
+
+    assertTrue(LineOfSight.between(oneCornerBlocked, 0, 0, 0, 2, 0, 2));
+    assertFalse(LineOfSight.between(bothCornersBlocked, 0, 0, 0, 2, 0, 2));
+  }
+}
@@ -0,0 +1,45 @@
+package de.metaphoriker.pathetic.engine;
+
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A flat floor at height 1 with a wall at x = 5 for z between -10 and 10, once it is built. Every
+ * instance lies in an environment of its own.
+ */
+public final class TestWorld {
+
+  public final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+
+  private final AtomicBoolean wallBuilt = new AtomicBoolean(false);
+
+  public final Passability floor = (x, y, z) -> y == 1 && !(wallBuilt.get() && isWall(x, z));
+
+  /** Lets searches walk on the floor. */
+  public final PathFilter walkable =
+      context -> {
+        PathPosition position = context.getPosition();
+        return floor.isPassable(
+            position.getFlooredX(), position.getFlooredY(), position.getFlooredZ());
+      };
+
+  public PathPosition position(int x, int z) {
+    return new PathPosition(environment, x, 1, z);
+  }
+
+  /** Builds the wall and invalidates the chunks it lies in. */
+  public void buildWall() {
+    wallBuilt.set(true);
+    ChunkInvalidations.invalidate(environment.getUuid(), 0, -1);
+    ChunkInvalidations.invalidate(environment.getUuid(), 0, 0);
+  }
+
+  public boolean isWall(int x, int z) {
+    return x == 5 && Math.abs(z) <= 10;
+  }
+}
@@ -0,0 +1,105 @@
+package de.metaphoriker.pathetic.engine.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PathResultCacheTest {
+
+  private final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+
+  @Test
+  void testHitsWithinSameBlocks() {
+    PathResultCache cache = new PathResultCache(8, 5000);
+    put(cache, 40, straightPath(PathState.FOUND, 0, 40));
+
+    PathfinderResult result =
+        cache.get(
+            new PathPosition(environment, 0.5, 1, 0.5),
+            new PathPosition(environment, 40.5, 1, 0.5),
+            "walk");
+
+    assertNotNull(result);
+    assertEquals(PathState.FOUND, result.getPathState());
+    assertEquals(41, result.getPath().length());
+    assertNull(cache.get(position(0, 0), position(40, 0), "fly"));
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsed() {
+    PathResultCache cache = new PathResultCache(2, 5000);
+    put(cache, 5, straightPath(PathState.FOUND, 0, 5));
+    put(cache, 6, straightPath(PathState.FOUND, 0, 6));
+    cache.get(position(0, 0), position(5, 0), "walk");
+    put(cache, 7, straightPath(PathState.FOUND, 0, 7));
+
+    assertNotNull(cache.get(position(0, 0), position(5, 0), "walk"));
+    assertNull(cache.get(position(0, 0), position(6, 0), "walk"));
+    assertNotNull(cache.get(position(0, 0), position(7, 0), "walk"));
+  }
+
+  @Test
+  void testInvalidatesChunksOfPath() {
+    PathResultCache cache = new PathResultCache(8, 5000);
+    put(cache, 20, straightPath(PathState.FOUND, 0, 20));
+    put(cache, 5, straightPath(PathState.FOUND, 0, 5));
+
+    ChunkInvalidations.invalidate(environment.getUuid(), 1, 0);
+
+    assertNull(cache.get(position(0, 0), position(20, 0), "walk"));
+    assertNotNull(cache.get(position(0, 0), position(5, 0), "walk"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void testRejectsResultsReadBeforeInvalidation() {
+    PathResultCache cache = new PathResultCache(8, 5000);
+    long searchEpoch = cache.getEpoch();
+
+    ChunkInvalidations.invalidate(environment.getUuid(), 1, 0);
+    cache.put(
+        position(0, 0), position(20, 0), "walk", straightPath(PathState.FOUND, 0, 20), searchEpoch);
+    cache.put(
+        position(0, 0), position(5, 0), "walk", straightPath(PathState.FOUND, 0, 5), searchEpoch);
+
+    assertNull(cache.get(position(0, 0), position(20, 0), "walk"));
+    assertNotNull(cache.get(position(0, 0), position(5, 0), "walk"));
+  }
+
+  @Test
+  void testFailuresExpire() throws InterruptedException {
+    PathResultCache cache = new PathResultCache(8, 0);
+    put(cache, 5, straightPath(PathState.FAILED, 0, 0));
+
+    Thread.sleep(5);
+
+    assertNull(cache.get(position(0, 0), position(5, 0), "walk"));
+  }
+
+  /** Caches a result between the origin and the given position, searched for right now. */
+  private void put(PathResultCache cache, int targetX, PathfinderResult result) {
+    cache.put(position(0, 0), position(targetX, 0), "walk", result, cache.getEpoch());
+  }
+
+  private PathPosition position(int x, int z) {
+    return new PathPosition(environment, x, 1, z);
+  }
+
+  private PathfinderResult straightPath(PathState state, int fromX, int toX) {
+    List<PathPosition> positions = new ArrayList<>();
+    for (int x = fromX; x <= toX; x++) positions.add(position(x, 0));
+    return new PathfinderResultImpl(
+        state, new PathImpl(position(fromX, 0), position(toX, 0), positions));
+  }
+}
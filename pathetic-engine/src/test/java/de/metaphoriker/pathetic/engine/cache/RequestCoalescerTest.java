@@ -0,0 +1,97 @@
+package de.metaphoriker.pathetic.engine.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.PathPriority;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+  private final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+
+  private final AtomicInteger searches = new AtomicInteger();
+  private final CompletableFuture<PathfinderResult> search = new CompletableFuture<>();
+
+  @Test
+  void testSharesRunningSearch() {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    CompletableFuture<PathfinderResult> first =
+        coalesce(coalescer, new PathPosition(environment, 0.2, 1, 0.2), "walk");
+    CompletableFuture<PathfinderResult> second =
+        coalesce(coalescer, new PathPosition(environment, 0.8, 1, 0.8), "walk");
+    coalesce(coalescer, new PathPosition(environment, 0.5, 1, 0.5), "fly");
+
+    assertEquals(2, searches.get());
+
+    search.complete(
+        new PathfinderResultImpl(
+            PathState.FOUND,
+            new PathImpl(
+                position(0), position(2), Arrays.asList(position(0), position(1), position(2)))));
+
+    assertEquals(0.2, first.join().getPath().getStart().getX());
+    assertEquals(0.8, second.join().getPath().getStart().getX());
+    assertEquals(3, second.join().getPath().length());
+    assertEquals(1, coalescer.size());
+  }
+
+  @Test
+  void testCancelsSearchOnceAllRequestsAreCancelled() {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    CompletableFuture<PathfinderResult> first = coalesce(coalescer, position(0), "walk");
+    CompletableFuture<PathfinderResult> second = coalesce(coalescer, position(0), "walk");
+
+    first.cancel(false);
+    assertFalse(search.isCancelled());
+
+    second.cancel(false);
+    assertTrue(search.isCancelled());
+    assertEquals(0, coalescer.size());
+  }
+
+  @Test
+  void testSharesSearchesOnlyWithinPriority() {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    coalesce(coalescer, position(0), "walk", PathPriority.BACKGROUND);
+    coalesce(coalescer, position(0), "walk", PathPriority.INTERACTIVE);
+    coalesce(coalescer, position(0), "walk", PathPriority.INTERACTIVE);
+
+    assertEquals(2, searches.get());
+    assertEquals(2, coalescer.size());
+  }
+
+  private CompletableFuture<PathfinderResult> coalesce(
+      RequestCoalescer coalescer, PathPosition start, String fingerprint) {
+    return coalesce(coalescer, start, fingerprint, PathPriority.NORMAL);
+  }
+
+  private CompletableFuture<PathfinderResult> coalesce(
+      RequestCoalescer coalescer, PathPosition start, String fingerprint, PathPriority priority) {
+    return coalescer
+        .coalesce(
+            start,
+            position(2),
+            fingerprint,
+            priority,
+            () -> {
+              searches.incrementAndGet();
+              return fingerprint.equals("walk") ? search : new CompletableFuture<>();
+            })
+        .toCompletableFuture();
+  }
+
+  private PathPosition position(int x) {
+    return new PathPosition(environment, x, 1, 0);
+  }
+}
@@ -0,0 +1,47 @@
+package de.metaphoriker.pathetic.engine.flowfield;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class DijkstraFlowFieldTest {
+
+  private final TestWorld world = new TestWorld();
+
+  @Test
+  void testStepsLeadToTarget() {
+    DijkstraFlowField field = new DijkstraFlowField(world.position(10, 0), 16, world.floor);
+
+    assertEquals(10, countSteps(field, world.position(0, 0)));
+    assertEquals(10, countSteps(field, world.position(0, 5)));
+    assertFalse(field.nextStep(new PathPosition(world.environment, 0, 2, 0)).isPresent());
+    assertFalse(field.nextStep(world.position(30, 0)).isPresent());
+  }
+
+  @Test
+  void testRepairsAroundInvalidatedWall() {
+    DijkstraFlowField field = new DijkstraFlowField(world.position(10, 0), 16, world.floor);
+    assertEquals(10, countSteps(field, world.position(0, 0)));
+
+    world.buildWall();
+
+    assertEquals(22, countSteps(field, world.position(0, 0)));
+    field.close();
+  }
+
+  /** Follows the field to its target, failing on steps into the wall or out of the field. */
+  private int countSteps(DijkstraFlowField field, PathPosition position) {
+    for (int steps = 0; steps < 100; steps++) {
+      Optional<PathPosition> next = field.nextStep(position);
+      assertTrue(next.isPresent());
+      if (next.get().equals(position)) return steps;
+
+      position = next.get();
+      assertTrue(world.floor.isPassable(position.getFlooredX(), 1, position.getFlooredZ()));
+    }
+    throw new AssertionError("The field does not lead to its target");
+  }
+}
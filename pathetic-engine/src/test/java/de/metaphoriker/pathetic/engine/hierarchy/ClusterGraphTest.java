@@ -0,0 +1,66 @@
+package de.metaphoriker.pathetic.engine.hierarchy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.provider.ChunkInvalidations;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.Passability;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class ClusterGraphTest {
+
+  private final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+
+  /** A flat floor at height 1 with a wall at x = 40 that only has a gap at z = 30. */
+  private final AtomicBoolean gapOpen = new AtomicBoolean(true);
+
+  private final Passability floor =
+      (x, y, z) -> y == 1 && (x != 40 || (z == 30 && gapOpen.get()));
+
+  @Test
+  void testRouteConnectsStartAndTarget() {
+    ClusterGraph clusterGraph = new ClusterGraph();
+    PathPosition start = new PathPosition(environment, 0, 1, 0);
+    PathPosition target = new PathPosition(environment, 80, 1, 5);
+
+    Optional<long[]> route = clusterGraph.findRoute(start, target, floor, 1000);
+
+    assertTrue(route.isPresent());
+    long[] positions = route.get();
+    assertEquals(PackedPosition.pack(start), positions[0]);
+    assertEquals(PackedPosition.pack(target), positions[positions.length - 1]);
+
+    for (int i = 1; i < positions.length; i++) {
+      assertTrue(
+          ClusterGraph.isInClusterOf(positions[i], positions[i - 1])
+              || isNeighbour(positions[i], positions[i - 1]));
+    }
+  }
+
+  @Test
+  void testInvalidationRebuildsClusters() {
+    ClusterGraph clusterGraph = new ClusterGraph();
+    PathPosition start = new PathPosition(environment, 0, 1, 0);
+    PathPosition target = new PathPosition(environment, 80, 1, 5);
+
+    assertTrue(clusterGraph.findRoute(start, target, floor, 1000).isPresent());
+
+    gapOpen.set(false);
+    assertTrue(clusterGraph.findRoute(start, target, floor, 1000).isPresent());
+
+    ChunkInvalidations.invalidate(environment.getUuid(), 40 >> 4, 30 >> 4);
+    assertFalse(clusterGraph.findRoute(start, target, floor, 1000).isPresent());
+  }
+
+  private static boolean isNeighbour(long first, long second) {
+    return Math.abs(PackedPosition.unpackX(first) - PackedPosition.unpackX(second)) <= 1
+        && Math.abs(PackedPosition.unpackY(first) - PackedPosition.unpackY(second)) <= 1
+        && Math.abs(PackedPosition.unpackZ(first) - PackedPosition.unpackZ(second)) <= 1;
+  }
+}
@@ -0,0 +1,45 @@
+package de.metaphoriker.pathetic.engine.incremental;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import org.junit.jupiter.api.Test;
+
+class DStarLiteSessionTest {
+
+  private final TestWorld world = new TestWorld();
+
+  private final PathfinderConfiguration configuration =
+      PathfinderConfiguration.builder().provider(position -> () -> true).build();
+
+  @Test
+  void testStraightPath() {
+    DStarLiteSession session =
+        new DStarLiteSession(world.position(10, 0), world.floor, configuration);
+
+    PathfinderResult result = session.update(world.position(0, 0));
+
+    assertEquals(PathState.FOUND, result.getPathState());
+    assertEquals(11, result.getPath().length());
+  }
+
+  @Test
+  void testReplansAroundInvalidatedWall() {
+    DStarLiteSession session =
+        new DStarLiteSession(world.position(10, 0), world.floor, configuration);
+    assertEquals(11, session.update(world.position(0, 0)).getPath().length());
+
+    world.buildWall();
+
+    PathfinderResult result = session.update(world.position(1, 0));
+
+    assertEquals(PathState.FOUND, result.getPathState());
+    for (PathPosition position : result.getPath()) {
+      assertFalse(world.isWall(position.getFlooredX(), position.getFlooredZ()));
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.common.collect.Iterables;
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.HeuristicWeights;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.hook.PathImprovementContext;
+import de.metaphoriker.pathetic.api.pathing.hook.PathfinderHook;
+import de.metaphoriker.pathetic.api.pathing.hook.PathfindingContext;
+import de.metaphoriker.pathetic.api.pathing.result.Path;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AStarPathfinderTest {
+
+  private final TestWorld world = new TestWorld();
+  private final NavigationPointProvider provider = position -> () -> true;
+
+  @Test
+  void testFallsBackOnceDeadlineHasPassed() {
+    Pathfinder pathfinder =
+        pathfinder(builder().requestDeadlineNanos(TimeUnit.MILLISECONDS.toNanos(200)));
+    PathFilter slowFilter =
+        context -> {
+          long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(100);
+          while (System.nanoTime() < until) Thread.yield();
+          return world.walkable.filter(context);
+        };
+
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(500, 0);
+    PathfinderResult result = findPath(pathfinder, start, target, slowFilter);
+
+    assertEquals(PathState.DEADLINE_EXCEEDED, result.getPathState());
+    Path path = result.getPath();
+    assertTrue(path.length() > 1, "The search has not fallen back to the node it expanded last");
+    assertEquals(start, path.iterator().next());
+    PathPosition previous = null;
+    for (PathPosition position : path) {
+      if (previous != null) assertTrue(previous.distance(position) < 2, "The path is not retraced");
+      previous = position;
+    }
+  }
+
+  @Test
+  void testCancellingLeavesOtherRequestsRunning() {
+    Queue<Runnable> executed = new ArrayDeque<>();
+    Pathfinder pathfinder = pathfinder(builder().async(true).executor(executed::add));
+
+    CompletableFuture<PathfinderResult> cancelled = findPathAsync(pathfinder, 20);
+    CompletableFuture<PathfinderResult> concurrent = findPathAsync(pathfinder, 20);
+    cancelled.cancel(false);
+    while (!executed.isEmpty()) executed.poll().run();
+
+    assertTrue(cancelled.isCancelled());
+    assertEquals(PathState.FOUND, concurrent.join().getPathState());
+  }
+
+  @Test
+  void testAbortStopsOnlyRunningRequests() {
+    Queue<Runnable> executed = new ArrayDeque<>();
+    Pathfinder pathfinder = pathfinder(builder().async(true).executor(executed::add));
+
+    CompletableFuture<PathfinderResult> aborted = findPathAsync(pathfinder, 20);
+    pathfinder.abort();
+    CompletableFuture<PathfinderResult> later = findPathAsync(pathfinder, 20);
+    while (!executed.isEmpty()) executed.poll().run();
+
+    assertEquals(PathState.ABORTED, aborted.join().getPathState());
+    assertEquals(PathState.FOUND, later.join().getPathState());
+  }
+
+  @Test
+  void testSlicesSearchOverResumptions() {
+    Pathfinder unsliced = pathfinder(builder());
+    AtomicInteger expansions = new AtomicInteger();
+    unsliced.registerPathfindingHook(context -> expansions.incrementAndGet());
+    assertEquals(PathState.FOUND, findPathAsync(unsliced, 20).join().getPathState());
+
+    Pathfinder sliced = pathfinder(builder().tickBudgetExpansions(4));
+    CompletableFuture<PathfinderResult> result = findPathAsync(sliced, 20);
+    int resumptions = 0;
+    while (!result.isDone()) {
+      assertTrue(resumptions < expansions.get(), "The search does not finish");
+      sliced.resumeSearches();
+      resumptions++;
+    }
+
+    assertEquals(PathState.FOUND, result.join().getPathState());
+    assertEquals((expansions.get() + 3) / 4, resumptions);
+  }
+
+  @Test
+  void testFindsPathsLikeSeparateSearches() {
+    Pathfinder pathfinder = pathfinder(builder().fallback(false));
+    PathPosition start = world.position(0, 0);
+    PathPosition unreachable = new PathPosition(world.environment, 6, 5, 6);
+    List<PathPosition> targets =
+        Arrays.asList(
+            world.position(10, 0), world.position(-4, 12), world.position(10, 0), unreachable);
+
+    Map<PathPosition, PathfinderResult> results =
+        pathfinder
+            .findPaths(start, targets, Collections.singletonList(world.walkable))
+            .toCompletableFuture()
+            .join();
+
+    assertEquals(3, results.size());
+    for (PathPosition target : targets) {
+      PathfinderResult expected = findPath(pathfinder, start, target, world.walkable);
+      PathfinderResult actual = results.get(target);
+      assertEquals(expected.getPathState(), actual.getPathState(), "State towards " + target);
+      if (expected.successful())
+        assertEquals(expected.getPath().length(), actual.getPath().length(), "Path to " + target);
+    }
+    assertFalse(results.get(unreachable).successful());
+  }
+
+  @Test
+  void testBidirectionalSearchIsNoWorse() {
+    world.buildWall();
+    PathPosition start = world.position(0, 0);
+    // the searches first meet on a detour around the wall
+    PathPosition target = world.position(10, 9);
+
+    PathfinderResult unidirectional =
+        findPath(pathfinder(builder()), start, target, world.walkable);
+    PathfinderResult bidirectional =
+        findPath(pathfinder(builder().bidirectional(true)), start, target, world.walkable);
+
+    assertEquals(PathState.FOUND, bidirectional.getPathState());
+    assertEquals(target, Iterables.getLast(bidirectional.getPath()));
+    assertTrue(cost(bidirectional.getPath()) <= cost(unidirectional.getPath()) + 1e-9);
+  }
+
+  @Test
+  void testBidirectionalSearchFollowsOneWayMoves() {
+    // the floor steps up by one block at x = 5, and can only be climbed at z = 8
+    PathFilter oneWay =
+        context -> {
+          PathPosition position = context.getPosition();
+          PathPosition parent = context.getParent();
+          if (position.getFlooredY() != (position.getFlooredX() < 5 ? 1 : 2)) return false;
+          return position.getFlooredY() <= parent.getFlooredY() || position.getFlooredZ() == 8;
+        };
+    PathPosition start = world.position(0, 0);
+    PathPosition target = new PathPosition(world.environment, 10, 2, 0);
+
+    PathfinderResult unidirectional = findPath(pathfinder(builder()), start, target, oneWay);
+    PathfinderResult bidirectional =
+        findPath(pathfinder(builder().bidirectional(true)), start, target, oneWay);
+
+    assertEquals(PathState.FOUND, bidirectional.getPathState());
+    PathPosition previous = null;
+    for (PathPosition position : bidirectional.getPath()) {
+      if (previous != null && position.getFlooredY() > previous.getFlooredY())
+        assertEquals(8, position.getFlooredZ(), "The path climbs away from the ladder");
+      previous = position;
+    }
+    assertEquals(cost(unidirectional.getPath()), cost(bidirectional.getPath()), 1e-9);
+  }
+
+  @Test
+  void testAnytimeSearchIsNoWorse() {
+    world.buildWall();
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(10, 3);
+
+    PathfinderResult plain = findPath(pathfinder(builder()), start, target, world.walkable);
+    Pathfinder anytime = pathfinder(builder().anytimeBudgetMillis(1000));
+    List<Double> bounds = new ArrayList<>();
+    anytime.registerPathfindingHook(
+        new PathfinderHook() {
+          @Override
+          public void onPathfindingStep(PathfindingContext pathfindingContext) {}
+
+          @Override
+          public void onPathImproved(PathImprovementContext pathImprovementContext) {
+            bounds.add(pathImprovementContext.getSuboptimalityBound());
+          }
+        });
+    PathfinderResult improved = findPath(anytime, start, target, world.walkable);
+
+    assertEquals(PathState.FOUND, improved.getPathState());
+    assertFalse(bounds.isEmpty(), "No pass of the anytime search has finished");
+    assertTrue(cost(improved.getPath()) <= cost(plain.getPath()) + 1e-9);
+  }
+
+  @Test
+  void testReopensNodesOnCheaperRoutes() {
+    world.buildWall();
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(12, 12);
+    // punishing every step away from the line to the target makes the heuristic inconsistent
+    HeuristicWeights weights = HeuristicWeights.create(0.3, 0.15, 3, 0.3);
+
+    PathfinderResult reopening =
+        findPath(pathfinder(builder().heuristicWeights(weights)), start, target, world.walkable);
+    PathfinderResult closing =
+        findPath(
+            pathfinder(builder().heuristicWeights(weights).reopenClosedNodes(false)),
+            start,
+            target,
+            world.walkable);
+
+    assertEquals(PathState.FOUND, reopening.getPathState());
+    assertEquals(PathState.FOUND, closing.getPathState());
+    assertTrue(cost(reopening.getPath()) < cost(closing.getPath()) - 1e-9);
+  }
+
+  @Test
+  void testJudgesNoImpossibleMoves() {
+    world.buildWall();
+    PathFilter diagonalClimbs =
+        context -> {
+          PathPosition position = context.getPosition();
+          PathPosition parent = context.getParent();
+          boolean diagonal =
+              position.getFlooredX() != parent.getFlooredX()
+                  && position.getFlooredZ() != parent.getFlooredZ();
+          assertFalse(
+              diagonal && position.getFlooredY() != parent.getFlooredY(),
+              "The filters judged a diagonal move changing the height");
+          return world.walkable.filter(context);
+        };
+
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(10, 3);
+    PathfinderResult result = findPath(pathfinder(builder()), start, target, diagonalClimbs);
+
+    assertEquals(PathState.FOUND, result.getPathState());
+  }
+
+  private PathfinderConfiguration.PathfinderConfigurationBuilder builder() {
+    return PathfinderConfiguration.builder().provider(provider).async(false);
+  }
+
+  private Pathfinder pathfinder(PathfinderConfiguration.PathfinderConfigurationBuilder builder) {
+    return new AStarPathfinder(provider, builder.build());
+  }
+
+  /** Sums the distances between the consecutive positions of the path. */
+  private static double cost(Path path) {
+    double cost = 0;
+    PathPosition previous = null;
+    for (PathPosition position : path) {
+      if (previous != null) cost += previous.distance(position);
+      previous = position;
+    }
+    return cost;
+  }
+
+  private CompletableFuture<PathfinderResult> findPathAsync(Pathfinder pathfinder, int targetX) {
+    return pathfinder
+        .findPath(
+            world.position(0, 0),
+            world.position(targetX, 0),
+            Collections.singletonList(world.walkable))
+        .toCompletableFuture();
+  }
+
+  private PathfinderResult findPath(
+      Pathfinder pathfinder, PathPosition start, PathPosition target, PathFilter filter) {
+    List<PathFilter> filters = Collections.singletonList(filter);
+    return pathfinder.findPath(start, target, filters).toCompletableFuture().join();
+  }
+}
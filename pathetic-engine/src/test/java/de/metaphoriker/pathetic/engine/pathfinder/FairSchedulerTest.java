@@ -0,0 +1,113 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.PathPriority;
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.hook.PathfinderHook;
+import de.metaphoriker.pathetic.api.pathing.hook.PathfindingContext;
+import de.metaphoriker.pathetic.api.pathing.hook.SearchStartContext;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class FairSchedulerTest {
+
+  private final Queue<Runnable> executed = new ArrayDeque<>();
+  private final List<String> started = new ArrayList<>();
+  private final TestWorld world = new TestWorld();
+
+  @Test
+  void testPrefersHigherPriorityAndRotatesOwners() {
+    FairScheduler scheduler = new FairScheduler(executed::add, 1);
+    submit(scheduler, "mobs", PathPriority.BACKGROUND, "mobs-1");
+    submit(scheduler, "mobs", PathPriority.BACKGROUND, "mobs-2");
+    submit(scheduler, "mobs", PathPriority.BACKGROUND, "mobs-3");
+    submit(scheduler, "villagers", PathPriority.BACKGROUND, "villagers-1");
+    submit(scheduler, "player", PathPriority.INTERACTIVE, "player-1");
+
+    assertEquals(1, executed.size());
+    while (!executed.isEmpty()) executed.poll().run();
+
+    assertEquals(Arrays.asList("mobs-1", "player-1", "mobs-2", "villagers-1", "mobs-3"), started);
+  }
+
+  @Test
+  void testSkipsCancelledSearches() {
+    FairScheduler scheduler = new FairScheduler(executed::add, 1);
+    submit(scheduler, "mobs", PathPriority.NORMAL, "mobs-1");
+    submit(scheduler, "mobs", PathPriority.NORMAL, "mobs-2").cancel(false);
+    submit(scheduler, "mobs", PathPriority.NORMAL, "mobs-3");
+
+    while (!executed.isEmpty()) executed.poll().run();
+
+    assertEquals(Arrays.asList("mobs-1", "mobs-3"), started);
+  }
+
+  @Test
+  void testSkipsSearchesOfCancelledRequests() {
+    NavigationPointProvider provider = position -> () -> true;
+    PathfinderConfiguration configuration =
+        PathfinderConfiguration.builder()
+            .provider(provider)
+            .async(true)
+            .executor(executed::add)
+            .maxConcurrentSearches(1)
+            .build();
+    Pathfinder pathfinder = new AStarPathfinder(provider, configuration);
+    pathfinder.registerPathfindingHook(
+        new PathfinderHook() {
+          @Override
+          public void onPathfindingStep(PathfindingContext pathfindingContext) {}
+
+          @Override
+          public void onSearchStarted(SearchStartContext searchStartContext) {
+            started.add((String) searchStartContext.getRequestTag().getOwner());
+          }
+        });
+
+    CompletableFuture<PathfinderResult> first = findPath(pathfinder, "first");
+    CompletableFuture<PathfinderResult> cancelled = findPath(pathfinder, "cancelled");
+    CompletableFuture<PathfinderResult> last = findPath(pathfinder, "last");
+    cancelled.cancel(false);
+
+    while (!executed.isEmpty()) executed.poll().run();
+
+    assertEquals(PathState.FOUND, first.join().getPathState());
+    assertEquals(PathState.FOUND, last.join().getPathState());
+    assertEquals(Arrays.asList("first", "last"), started);
+  }
+
+  private CompletableFuture<PathfinderResult> findPath(Pathfinder pathfinder, String owner) {
+    return pathfinder
+        .findPath(
+            world.position(0, 0),
+            world.position(6, 0),
+            Collections.singletonList(world.walkable),
+            Collections.emptyList(),
+            null,
+            PathRequestTag.of(owner, PathPriority.NORMAL))
+        .toCompletableFuture();
+  }
+
+  private CompletableFuture<String> submit(
+      FairScheduler scheduler, String owner, PathPriority priority, String name) {
+    return scheduler.submit(
+        PathRequestTag.of(owner, priority),
+        () -> {
+          started.add(name);
+          return name;
+        });
+  }
+}
@@ -0,0 +1,105 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.provider.NavigationPoint;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import de.metaphoriker.pathetic.engine.util.PackedPosition;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class FrontierPrefetcherTest {
+
+  private static final int DISTANCE = 20;
+
+  private final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+  private final NodeStore nodeStore = new NodeStore(environment);
+  private final List<List<PathPosition>> batches = new ArrayList<>();
+
+  /** Has only the chunk at the origin available, and records every batch it is asked for. */
+  private final NavigationPointProvider provider =
+      new NavigationPointProvider() {
+        @Override
+        public NavigationPoint getNavigationPoint(PathPosition position) {
+          return () -> true;
+        }
+
+        @Override
+        public boolean isChunkAvailable(PathEnvironment environment, int chunkX, int chunkZ) {
+          return chunkX == 0 && chunkZ == 0;
+        }
+
+        @Override
+        public void prefetch(Collection<PathPosition> positions) {
+          batches.add(new ArrayList<>(positions));
+        }
+      };
+
+  private final FrontierPrefetcher prefetcher =
+      new FrontierPrefetcher(provider, environment, DISTANCE);
+
+  @Test
+  void testPrefetchesChunksWithinDistance() {
+    prefetcher.prefetchAround(nodeStore, node(8, 8));
+
+    assertEquals(1, batches.size());
+    assertEquals(8, batches.get(0).size(), "Every chunk around the node but the available one");
+    for (PathPosition position : batches.get(0)) {
+      assertWithinDistance(position, 8, 8);
+      assertNotEquals(0L, chunkOf(position), "The available chunk was prefetched");
+    }
+  }
+
+  @Test
+  void testAsksForEveryChunkOnce() {
+    prefetcher.prefetchAround(nodeStore, node(8, 8));
+    prefetcher.prefetchAround(nodeStore, node(9, 8));
+    prefetcher.prefetchAround(nodeStore, node(30, 8));
+    prefetcher.prefetchAround(nodeStore, node(8, 8));
+
+    assertEquals(2, batches.size());
+    assertEquals(6, batches.get(1).size(), "Only the chunks ahead of the second node");
+    for (PathPosition position : batches.get(1)) assertWithinDistance(position, 30, 8);
+
+    Set<Long> chunks = new HashSet<>();
+    for (List<PathPosition> batch : batches) {
+      for (PathPosition position : batch)
+        assertTrue(chunks.add(chunkOf(position)), "A chunk was prefetched twice");
+    }
+  }
+
+  @Test
+  void testPrefetchesNothingWithoutDistance() {
+    new FrontierPrefetcher(provider, environment, 0).prefetchAround(nodeStore, node(8, 8));
+
+    assertTrue(batches.isEmpty());
+  }
+
+  private int node(int x, int z) {
+    long position = PackedPosition.pack(x, 1, z);
+    int node = nodeStore.indexOf(position);
+    return node != NodeStore.NO_NODE ? node : nodeStore.add(position, NodeStore.NO_PARENT, 0, 0, 0);
+  }
+
+  /** Packs the chunk coordinates of the position, so the chunk at the origin is 0. */
+  private static long chunkOf(PathPosition position) {
+    return (long) (position.getFlooredX() >> 4) << 32 | position.getFlooredZ() >> 4 & 0xFFFFFFFFL;
+  }
+
+  /** Asserts that the chunk of the position overlaps the square within the distance of a node. */
+  private static void assertWithinDistance(PathPosition position, int x, int z) {
+    int minX = position.getFlooredX() >> 4 << 4;
+    int minZ = position.getFlooredZ() >> 4 << 4;
+    assertTrue(minX <= x + DISTANCE && minX + 15 >= x - DISTANCE, position + " is too far away");
+    assertTrue(minZ <= z + DISTANCE && minZ + 15 >= z - DISTANCE, position + " is too far away");
+  }
+}
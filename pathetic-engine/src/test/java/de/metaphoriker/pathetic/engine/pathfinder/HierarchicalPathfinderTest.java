@@ -0,0 +1,60 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.common.collect.Iterables;
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalPathfinderTest {
+
+  private final TestWorld world = new TestWorld();
+  private final NavigationPointProvider provider = position -> () -> true;
+
+  @Test
+  void testRefinesRoutesThroughSeveralClusters() {
+    world.buildWall();
+    // too few iterations for a single search over the whole route, enough for every cluster
+    PathfinderConfiguration configuration =
+        PathfinderConfiguration.builder()
+            .provider(provider)
+            .async(false)
+            .fallback(false)
+            .maxIterations(300)
+            .build();
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(150, 3);
+
+    PathfinderResult plain = findPath(new AStarPathfinder(provider, configuration), start, target);
+    PathfinderResult hierarchical =
+        findPath(new HierarchicalPathfinder(provider, configuration), start, target);
+
+    assertNotEquals(PathState.FOUND, plain.getPathState());
+    assertEquals(PathState.FOUND, hierarchical.getPathState());
+    assertEquals(start, hierarchical.getPath().iterator().next());
+    assertEquals(target, Iterables.getLast(hierarchical.getPath()));
+
+    PathPosition previous = null;
+    for (PathPosition position : hierarchical.getPath()) {
+      assertFalse(world.isWall(position.getFlooredX(), position.getFlooredZ()), "Through the wall");
+      if (previous != null)
+        assertTrue(previous.distance(position) < 2, "The path has a gap at " + position);
+      previous = position;
+    }
+  }
+
+  private PathfinderResult findPath(
+      Pathfinder pathfinder, PathPosition start, PathPosition target) {
+    return pathfinder
+        .findPath(start, target, Collections.singletonList(world.walkable))
+        .toCompletableFuture()
+        .join();
+  }
+}
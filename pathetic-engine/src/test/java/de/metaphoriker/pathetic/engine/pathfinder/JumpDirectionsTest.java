@@ -0,0 +1,46 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class JumpDirectionsTest {
+
+  @Test
+  void testNoForcedNeighboursInOpenSpace() {
+    for (int d = 0; d < JumpDirections.COUNT; d++) {
+      assertFalse(JumpDirections.hasForcedNeighbour(d, 0));
+    }
+  }
+
+  @Test
+  void testStraightNaturalNeighbourOnly() {
+    int east = JumpDirections.of(1, 0, 0);
+
+    for (int e = 0; e < JumpDirections.COUNT; e++) {
+      assertEquals(e == east, JumpDirections.isRelevant(east, e, 0));
+    }
+  }
+
+  @Test
+  void testDiagonalSubDirections() {
+    int diagonal = JumpDirections.of(1, 0, 1);
+    int[] subDirections = JumpDirections.SUB_DIRECTIONS[diagonal];
+
+    assertEquals(2, subDirections.length);
+    for (int subDirection : subDirections) {
+      assertTrue(
+          subDirection == JumpDirections.of(1, 0, 0) || subDirection == JumpDirections.of(0, 0, 1));
+    }
+  }
+
+  @Test
+  void testBlockedSideForcesDiagonal() {
+    int east = JumpDirections.of(1, 0, 0);
+    int blockedSide = 1 << JumpDirections.cell(0, 0, 1);
+
+    assertTrue(JumpDirections.hasForcedNeighbour(east, blockedSide));
+    assertTrue(JumpDirections.isRelevant(east, JumpDirections.of(1, 0, 1), blockedSide));
+    assertFalse(JumpDirections.isRelevant(east, JumpDirections.of(1, 0, -1), blockedSide));
+  }
+}
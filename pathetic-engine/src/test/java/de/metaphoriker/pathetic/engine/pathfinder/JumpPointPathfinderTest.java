@@ -0,0 +1,96 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.result.Path;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class JumpPointPathfinderTest {
+
+  private final TestWorld world = new TestWorld();
+  private final NavigationPointProvider provider = position -> () -> true;
+  private final PathfinderConfiguration configuration =
+      PathfinderConfiguration.builder().provider(provider).async(false).build();
+
+  @Test
+  void testCostsAsMuchAsAStar() {
+    world.buildWall();
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(10, 3);
+
+    Path aStarPath = findPath(new AStarPathfinder(provider, configuration), target, world.walkable);
+    Path jumpPointPath =
+        findPath(new JumpPointPathfinder(provider, configuration), target, world.walkable);
+
+    assertEquals(start, jumpPointPath.iterator().next());
+    assertEquals(cost(aStarPath), cost(jumpPointPath), 1e-9);
+  }
+
+  @Test
+  void testHonoursFiltersOnJumpedBlocks() {
+    PathPosition blocked = world.position(5, 0);
+    PathFilter filter =
+        context -> !context.getPosition().equals(blocked) && world.walkable.filter(context);
+
+    Path path =
+        findPath(new JumpPointPathfinder(provider, configuration), world.position(10, 0), filter);
+
+    for (PathPosition position : path) assertNotEquals(blocked, position);
+  }
+
+  @Test
+  void testKeepsHeightOnDiagonalMoves() {
+    // the floor steps up by one block at x = 5
+    PathFilter stairs =
+        context -> {
+          PathPosition position = context.getPosition();
+          return position.getFlooredY() == (position.getFlooredX() < 5 ? 1 : 2);
+        };
+
+    PathPosition target = new PathPosition(world.environment, 10, 2, 6);
+
+    Path path = findPath(new JumpPointPathfinder(provider, configuration), target, stairs);
+
+    Path aStarPath = findPath(new AStarPathfinder(provider, configuration), target, stairs);
+    assertEquals(cost(aStarPath), cost(path), 1e-9);
+
+    PathPosition previous = null;
+    for (PathPosition position : path) {
+      if (previous != null
+          && position.getFlooredX() != previous.getFlooredX()
+          && position.getFlooredZ() != previous.getFlooredZ())
+        assertEquals(previous.getFlooredY(), position.getFlooredY(), "A diagonal move climbs");
+      previous = position;
+    }
+  }
+
+  private Path findPath(Pathfinder pathfinder, PathPosition target, PathFilter filter) {
+    PathfinderResult result =
+        pathfinder
+            .findPath(world.position(0, 0), target, Collections.singletonList(filter))
+            .toCompletableFuture()
+            .join();
+    assertEquals(PathState.FOUND, result.getPathState());
+    return result.getPath();
+  }
+
+  /** Sums the distances between the consecutive positions of the path. */
+  private static double cost(Path path) {
+    double cost = 0;
+    PathPosition previous = null;
+    for (PathPosition position : path) {
+      if (previous != null) cost += previous.distance(position);
+      previous = position;
+    }
+    return cost;
+  }
+}
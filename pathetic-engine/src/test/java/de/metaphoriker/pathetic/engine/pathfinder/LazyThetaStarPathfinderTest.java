@@ -0,0 +1,79 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.LineOfSight;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LazyThetaStarPathfinderTest {
+
+  private final TestWorld world = new TestWorld();
+  private final NavigationPointProvider provider = position -> () -> true;
+  private final Pathfinder pathfinder =
+      new LazyThetaStarPathfinder(
+          provider, PathfinderConfiguration.builder().provider(provider).async(false).build());
+
+  @Test
+  void testConnectsPositionsInLineOfSight() {
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(10, 3);
+
+    List<PathPosition> waypoints = findWaypoints(start, target);
+
+    assertEquals(Arrays.asList(start, target), waypoints);
+  }
+
+  @Test
+  void testFallsBackToNeighboursAroundBlockedLines() {
+    world.buildWall();
+    PathPosition start = world.position(0, 0);
+    PathPosition target = world.position(10, 3);
+
+    List<PathPosition> waypoints = findWaypoints(start, target);
+
+    assertEquals(start, waypoints.get(0));
+    assertEquals(target, waypoints.get(waypoints.size() - 1));
+    assertTrue(
+        waypoints.stream().anyMatch(waypoint -> Math.abs(waypoint.getFlooredZ()) > 10),
+        "The path does not lead around the end of the wall");
+    for (int i = 1; i < waypoints.size(); i++)
+      assertTrue(
+          isInLineOfSight(waypoints.get(i - 1), waypoints.get(i)),
+          "No line of sight between " + waypoints.get(i - 1) + " and " + waypoints.get(i));
+  }
+
+  private List<PathPosition> findWaypoints(PathPosition start, PathPosition target) {
+    PathfinderResult result =
+        pathfinder
+            .findPath(start, target, Collections.singletonList(world.walkable))
+            .toCompletableFuture()
+            .join();
+    assertEquals(PathState.FOUND, result.getPathState());
+
+    List<PathPosition> waypoints = new ArrayList<>();
+    result.getPath().forEach(waypoints::add);
+    return waypoints;
+  }
+
+  private boolean isInLineOfSight(PathPosition from, PathPosition to) {
+    return LineOfSight.between(
+        world.floor,
+        from.getFlooredX(),
+        from.getFlooredY(),
+        from.getFlooredZ(),
+        to.getFlooredX(),
+        to.getFlooredY(),
+        to.getFlooredZ());
+  }
+}
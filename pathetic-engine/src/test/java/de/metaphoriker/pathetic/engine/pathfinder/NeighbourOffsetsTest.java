@@ -0,0 +1,46 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.configuration.NeighbourStrategy;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class NeighbourOffsetsTest {
+
+  @Test
+  void testNeighbourCounts() {
+    assertEquals(6, NeighbourOffsets.of(NeighbourStrategy.FACES).length);
+    assertEquals(18, NeighbourOffsets.of(NeighbourStrategy.FACES_AND_EDGES).length);
+    assertEquals(18, NeighbourOffsets.of(NeighbourStrategy.ALL).length);
+    assertEquals(16, NeighbourOffsets.of(NeighbourStrategy.WALKER).length);
+  }
+
+  @Test
+  void testNoDuplicatesAndNoStandStill() {
+    for (NeighbourStrategy strategy : NeighbourStrategy.values()) {
+      Set<Integer> cells = new HashSet<>();
+      for (int[] offset : NeighbourOffsets.of(strategy)) {
+        assertFalse(offset[0] == 0 && offset[1] == 0 && offset[2] == 0);
+        assertTrue(cells.add((offset[0] + 1) * 9 + (offset[1] + 1) * 3 + offset[2] + 1));
+      }
+    }
+  }
+
+  @Test
+  void testNoImpossibleMoves() {
+    for (NeighbourStrategy strategy : NeighbourStrategy.values()) {
+      for (int[] offset : NeighbourOffsets.of(strategy)) {
+        assertFalse(offset[0] != 0 && offset[1] != 0 && offset[2] != 0);
+      }
+    }
+  }
+
+  @Test
+  void testWalkerNeverMovesStraightUp() {
+    for (int[] offset : NeighbourOffsets.of(NeighbourStrategy.WALKER)) {
+      assertTrue(offset[0] != 0 || offset[2] != 0);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfindingExecutors;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPoint;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ParkedNodesTest {
+
+  private final TestWorld world = new TestWorld();
+  private final ChunkLoader loader = new ChunkLoader();
+
+  @Test
+  void testWaitsForDelayedLoads() throws Exception {
+    // While its best nodes are parked, the search keeps expanding everything else it has loaded
+    Pathfinder pathfinder = pathfinder(builder().executor(Runnable::run).maxIterations(100000));
+    CompletableFuture<PathfinderResult> result = findPath(pathfinder, 40);
+
+    int rounds = 0;
+    while (!awaitLoadsOrResult(result)) {
+      assertTrue(++rounds < 100, "The search does not resume after its loads");
+      loader.completeAll();
+    }
+
+    assertEquals(PathState.FOUND, result.join().getPathState());
+    assertEquals(33, result.join().getPath().length());
+    assertEquals(loader.requested.size(), loader.loads.get(), "A chunk was loaded twice");
+  }
+
+  @Test
+  void testGivesUpNodesNextToFailedLoads() {
+    loader.failing = true;
+    Pathfinder pathfinder = pathfinder(builder().executor(Runnable::run).fallback(false));
+
+    PathfinderResult result = findPath(pathfinder, 40).join();
+
+    assertEquals(PathState.FAILED, result.getPathState());
+    assertTrue(loader.loads.get() <= 8, "Failed chunks were loaded again");
+  }
+
+  @Test
+  void testStopsWaitingAtDeadline() throws Exception {
+    Pathfinder pathfinder =
+        pathfinder(
+            builder()
+                .executor(Runnable::run)
+                .requestDeadlineNanos(TimeUnit.MILLISECONDS.toNanos(50)));
+
+    PathfinderResult result = findPath(pathfinder, 40).get(5, TimeUnit.SECONDS);
+
+    assertEquals(PathState.DEADLINE_EXCEEDED, result.getPathState());
+  }
+
+  @Test
+  void testHandsBackThreadWhileParked() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Pathfinder pathfinder = pathfinder(builder().executor(executor).maxIterations(100000));
+      CompletableFuture<PathfinderResult> far = findPath(pathfinder, 40);
+      CompletableFuture<PathfinderResult> near = findPath(pathfinder, 12);
+
+      assertEquals(PathState.FOUND, near.get(5, TimeUnit.SECONDS).getPathState());
+      assertFalse(far.isDone());
+
+      while (!far.isDone()) {
+        loader.completeAll();
+        Thread.sleep(1);
+      }
+      assertEquals(PathState.FOUND, far.get(5, TimeUnit.SECONDS).getPathState());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testResumesOffTheLoadingThread() throws Exception {
+    ExecutorService executor =
+        PathfindingExecutors.bounded(1, 1, PathfindingExecutors.RejectionPolicy.CALLER_RUNS);
+    Set<Thread> searchThreads = ConcurrentHashMap.newKeySet();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      Pathfinder pathfinder = pathfinder(builder().executor(executor).maxIterations(100000));
+      CompletableFuture<PathfinderResult> result =
+          pathfinder
+              .findPath(
+                  world.position(8, 8),
+                  world.position(40, 8),
+                  Collections.singletonList(
+                      context -> {
+                        searchThreads.add(Thread.currentThread());
+                        return world.walkable.filter(context);
+                      }))
+              .toCompletableFuture();
+      awaitIdle((ThreadPoolExecutor) executor);
+
+      // takes the only thread and the only queue slot, so the resumed search is run by the caller
+      CountDownLatch blocking = new CountDownLatch(1);
+      executor.execute(
+          () -> {
+            blocking.countDown();
+            awaitUninterruptibly(release);
+          });
+      blocking.await();
+      executor.execute(() -> {});
+
+      loader.completeAll();
+      awaitLoadsOrResult(result);
+      release.countDown();
+
+      while (!awaitLoadsOrResult(result)) loader.completeAll();
+      assertEquals(PathState.FOUND, result.join().getPathState());
+      assertFalse(
+          searchThreads.contains(Thread.currentThread()), "The search ran on the loading thread");
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testSlicedSearchesPassParkedOnes() {
+    Pathfinder pathfinder = pathfinder(builder().async(false).tickBudgetExpansions(1000));
+    CompletableFuture<PathfinderResult> parked = findPath(pathfinder, 40);
+    CompletableFuture<PathfinderResult> near = findPath(pathfinder, 12);
+
+    pathfinder.resumeSearches();
+
+    assertFalse(parked.isDone());
+    assertTrue(near.isDone(), "The parked search holds up the one behind it");
+    assertEquals(PathState.FOUND, near.join().getPathState());
+
+    while (!parked.isDone()) {
+      loader.completeAll();
+      pathfinder.resumeSearches();
+    }
+    assertEquals(PathState.FOUND, parked.join().getPathState());
+  }
+
+  /**
+   * Waits until the search has finished or waits for loads, since it is resumed on another thread.
+   *
+   * @return whether the search has finished
+   */
+  private boolean awaitLoadsOrResult(CompletableFuture<PathfinderResult> result)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!result.isDone() && loader.pending.isEmpty()) {
+      assertTrue(System.nanoTime() < deadline, "The search neither finishes nor waits for loads");
+      Thread.sleep(1);
+    }
+    return result.isDone();
+  }
+
+  /** Waits until the executor has neither running nor queued searches. */
+  private static void awaitIdle(ThreadPoolExecutor executor) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) {
+      assertTrue(System.nanoTime() < deadline, "The search does not hand back its thread");
+      Thread.sleep(1);
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private PathfinderConfiguration.PathfinderConfigurationBuilder builder() {
+    return PathfinderConfiguration.builder().provider(loader).async(true);
+  }
+
+  private Pathfinder pathfinder(PathfinderConfiguration.PathfinderConfigurationBuilder builder) {
+    return new AStarPathfinder(loader, builder.build());
+  }
+
+  /** Searches from the middle of the only chunk that is available at first. */
+  private CompletableFuture<PathfinderResult> findPath(Pathfinder pathfinder, int targetX) {
+    return pathfinder
+        .findPath(
+            world.position(8, 8),
+            world.position(targetX, 8),
+            Collections.singletonList(world.walkable))
+        .toCompletableFuture();
+  }
+
+  /** Loads chunks once the test completes their loads, or fails all loads. */
+  private static final class ChunkLoader implements NavigationPointProvider {
+
+    private final Set<Long> loaded = ConcurrentHashMap.newKeySet();
+    private final Set<Long> requested = ConcurrentHashMap.newKeySet();
+    private final Map<Long, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private volatile boolean failing;
+
+    private ChunkLoader() {
+      loaded.add(chunkKey(0, 0));
+    }
+
+    @Override
+    public NavigationPoint getNavigationPoint(PathPosition position) {
+      return () -> true;
+    }
+
+    @Override
+    public boolean isChunkAvailable(PathEnvironment environment, int chunkX, int chunkZ) {
+      return loaded.contains(chunkKey(chunkX, chunkZ));
+    }
+
+    @Override
+    public CompletionStage<Void> loadChunkAsync(
+        PathEnvironment environment, int chunkX, int chunkZ) {
+      loads.incrementAndGet();
+      requested.add(chunkKey(chunkX, chunkZ));
+      CompletableFuture<Void> load = new CompletableFuture<>();
+      if (failing) load.completeExceptionally(new IllegalStateException("Chunk is corrupt"));
+      else pending.put(chunkKey(chunkX, chunkZ), load);
+      return load;
+    }
+
+    private void completeAll() {
+      for (Long chunk : pending.keySet()) {
+        loaded.add(chunk);
+        pending.remove(chunk).complete(null);
+      }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+      return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+  }
+}
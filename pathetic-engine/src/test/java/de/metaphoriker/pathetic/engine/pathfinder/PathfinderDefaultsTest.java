@@ -0,0 +1,107 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.PathRequestTag;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilter;
+import de.metaphoriker.pathetic.api.pathing.filter.PathFilterStage;
+import de.metaphoriker.pathetic.api.pathing.hook.PathfinderHook;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.wrapper.PathPosition;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import de.metaphoriker.pathetic.engine.result.PathImpl;
+import de.metaphoriker.pathetic.engine.result.PathfinderResultImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.junit.jupiter.api.Test;
+
+class PathfinderDefaultsTest {
+
+  private final TestWorld world = new TestWorld();
+  private final List<PathPosition> searchedTargets = new ArrayList<>();
+
+  /** Implements only the methods pathfinders had to implement before the experimental ones. */
+  private final Pathfinder pathfinder =
+      new Pathfinder() {
+        @Override
+        public CompletionStage<PathfinderResult> findPath(
+            PathPosition start, PathPosition target, List<PathFilter> filters) {
+          return findPath(start, target, filters, Collections.emptyList());
+        }
+
+        @Override
+        public CompletionStage<PathfinderResult> findPath(
+            PathPosition start,
+            PathPosition target,
+            List<PathFilter> sharedFilters,
+            List<PathFilterStage> filterStages) {
+          searchedTargets.add(target);
+          return CompletableFuture.completedFuture(
+              new PathfinderResultImpl(
+                  PathState.FOUND, new PathImpl(start, target, Arrays.asList(start, target))));
+        }
+
+        @Override
+        public void abort() {}
+
+        @Override
+        public void registerPathfindingHook(PathfinderHook hook) {}
+      };
+
+  @Test
+  void testSearchesTaggedRequestsOnTheirOwn() {
+    PathfinderResult result =
+        pathfinder
+            .findPath(
+                world.position(0, 0),
+                world.position(3, 0),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                "walk",
+                PathRequestTag.DEFAULT)
+            .toCompletableFuture()
+            .join();
+
+    assertEquals(PathState.FOUND, result.getPathState());
+    assertEquals(Collections.singletonList(world.position(3, 0)), searchedTargets);
+  }
+
+  @Test
+  void testFindsPathsPerDistinctTarget() {
+    List<PathPosition> targets =
+        Arrays.asList(world.position(3, 0), world.position(0, 3), world.position(3, 0));
+
+    Map<PathPosition, PathfinderResult> results =
+        pathfinder
+            .findPaths(world.position(0, 0), targets, Collections.emptyList())
+            .toCompletableFuture()
+            .join();
+
+    assertEquals(2, results.size());
+    assertEquals(2, searchedTargets.size());
+    assertEquals(world.position(0, 3), results.get(world.position(0, 3)).getPath().getEnd());
+  }
+
+  @Test
+  void testRejectsUnsupportedFeatures() {
+    pathfinder.resumeSearches();
+
+    assertThrows(
+        UnsupportedOperationException.class,
+        () ->
+            pathfinder.openSession(
+                world.position(3, 0), Collections.emptyList(), Collections.emptyList()));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () ->
+            pathfinder.createFlowField(
+                world.position(3, 0), 8, Collections.emptyList(), Collections.emptyList()));
+  }
+}
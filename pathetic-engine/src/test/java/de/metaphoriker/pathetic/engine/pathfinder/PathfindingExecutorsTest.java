@@ -0,0 +1,106 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.pathing.Pathfinder;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfinderConfiguration;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfindingExecutors;
+import de.metaphoriker.pathetic.api.pathing.configuration.PathfindingExecutors.RejectionPolicy;
+import de.metaphoriker.pathetic.api.pathing.result.PathState;
+import de.metaphoriker.pathetic.api.pathing.result.PathfinderResult;
+import de.metaphoriker.pathetic.api.provider.NavigationPointProvider;
+import de.metaphoriker.pathetic.engine.TestWorld;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class PathfindingExecutorsTest {
+
+  private final TestWorld world = new TestWorld();
+  private final NavigationPointProvider provider = position -> () -> true;
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Test
+  void testRejectsSearchesWhileQueueIsFull() throws Exception {
+    ExecutorService executor = PathfindingExecutors.bounded(1, 1, RejectionPolicy.REJECT);
+    try {
+      occupy(executor);
+
+      CompletableFuture<PathfinderResult> result = findPath(executor, Collections.emptySet());
+
+      ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+      assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testRunsSearchesOnCallerWhileQueueIsFull() throws Exception {
+    ExecutorService executor = PathfindingExecutors.bounded(1, 1, RejectionPolicy.CALLER_RUNS);
+    Set<Thread> searchThreads = ConcurrentHashMap.newKeySet();
+    try {
+      occupy(executor);
+
+      CompletableFuture<PathfinderResult> result = findPath(executor, searchThreads);
+
+      assertTrue(result.isDone(), "The search has not run on the caller");
+      assertEquals(PathState.FOUND, result.join().getPathState());
+      assertEquals(Collections.singleton(Thread.currentThread()), searchThreads);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testRejectsInvalidBounds() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PathfindingExecutors.bounded(0, 1, RejectionPolicy.REJECT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PathfindingExecutors.bounded(1, 0, RejectionPolicy.CALLER_RUNS));
+  }
+
+  /** Takes the only thread of the executor and the only slot of its queue until the test ends. */
+  private void occupy(ExecutorService executor) throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          running.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    running.await();
+    executor.execute(() -> {});
+  }
+
+  /** Starts a search on the executor that records the threads its filter is called on. */
+  private CompletableFuture<PathfinderResult> findPath(
+      ExecutorService executor, Set<Thread> searchThreads) {
+    PathfinderConfiguration configuration =
+        PathfinderConfiguration.builder().provider(provider).async(true).executor(executor).build();
+    Pathfinder pathfinder = new AStarPathfinder(provider, configuration);
+    return pathfinder
+        .findPath(
+            world.position(0, 0),
+            world.position(10, 0),
+            Collections.singletonList(
+                context -> {
+                  searchThreads.add(Thread.currentThread());
+                  return world.walkable.filter(context);
+                }))
+        .toCompletableFuture();
+  }
+}
@@ -0,0 +1,44 @@
+package de.metaphoriker.pathetic.engine.pathfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.api.wrapper.PathEnvironment;
+import de.metaphoriker.pathetic.engine.NodeStore;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class SearchArenaTest {
+
+  private final PathEnvironment environment =
+      new PathEnvironment(UUID.randomUUID(), "world", -64, 320);
+
+  @Test
+  void testReusesResetMemory() {
+    SearchArena arena = SearchArena.current();
+    SearchArena.Memory memory = arena.acquire(environment, 4);
+    memory.nodeStore.add(0, NodeStore.NO_PARENT, 0, 0, 0);
+    memory.nodeQueue.insert(0, 0);
+    arena.release(memory);
+
+    PathEnvironment otherEnvironment = new PathEnvironment(UUID.randomUUID(), "other", 0, 256);
+    SearchArena.Memory reused = arena.acquire(otherEnvironment, 4);
+
+    assertSame(memory, reused);
+    assertEquals(0, reused.nodeStore.size());
+    assertTrue(reused.nodeQueue.isEmpty());
+    assertEquals(otherEnvironment, reused.nodeStore.getPathEnvironment());
+    assertNotSame(reused, arena.acquire(environment, 4));
+  }
+
+  @Test
+  void testDropsOversizedMemory() {
+    SearchArena arena = SearchArena.current();
+    SearchArena.Memory memory = arena.acquire(environment, 2);
+    for (int node = 0; node < 1 << 15; node++)
+      memory.nodeStore.add(node, NodeStore.NO_PARENT, 0, 0, 0);
+    memory.nodeStore.clear();
+    arena.release(memory);
+
+    assertNotSame(memory, arena.acquire(environment, 2));
+  }
+}
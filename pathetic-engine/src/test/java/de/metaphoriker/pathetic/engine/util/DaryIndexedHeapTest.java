@@ -0,0 +1,77 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DaryIndexedHeapTest {
+
+  @Test
+  void testDeleteMinReturnsAscendingKeys() {
+    for (int arity : new int[] {2, 4}) {
+      DaryIndexedHeap heap = new DaryIndexedHeap(arity, 4);
+      Random random = new Random(42);
+
+      for (int handle = 0; handle < 500; handle++) {
+        heap.insert(handle, random.nextDouble() * 100);
+      }
+
+      double previousKey = Double.NEGATIVE_INFINITY;
+      while (!heap.isEmpty()) {
+        double key = heap.peekKey();
+        int handle = heap.deleteMin();
+
+        assertTrue(key >= previousKey);
+        assertFalse(heap.contains(handle));
+        previousKey = key;
+      }
+    }
+  }
+
+  @Test
+  void testDecreaseKey() {
+    DaryIndexedHeap heap = new DaryIndexedHeap(4);
+    heap.insert(0, 5);
+    heap.insert(1, 10);
+    heap.insert(2, 15);
+
+    heap.decreaseKey(2, 1);
+
+    assertEquals(1, heap.getKey(2));
+    assertEquals(2, heap.deleteMin());
+    assertEquals(0, heap.deleteMin());
+    assertEquals(1, heap.deleteMin());
+  }
+
+  @Test
+  void testDecreaseKeyRejectsIncrease() {
+    DaryIndexedHeap heap = new DaryIndexedHeap(2);
+    heap.insert(7, 3);
+
+    assertThrows(IllegalStateException.class, () -> heap.decreaseKey(7, 4));
+  }
+
+  @Test
+  void testInsertRejectsDuplicates() {
+    DaryIndexedHeap heap = new DaryIndexedHeap(2);
+    heap.insert(3, 1);
+
+    assertThrows(IllegalStateException.class, () -> heap.insert(3, 2));
+  }
+
+  @Test
+  void testClear() {
+    DaryIndexedHeap heap = new DaryIndexedHeap(4);
+    heap.insert(0, 1);
+    heap.insert(100, 2);
+
+    heap.clear();
+
+    assertTrue(heap.isEmpty());
+    assertFalse(heap.contains(0));
+    assertFalse(heap.contains(100));
+    heap.insert(100, 3);
+    assertEquals(100, heap.peek());
+  }
+}
@@ -0,0 +1,84 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.metaphoriker.pathetic.engine.util.ExpiringCache.ExpirationPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  private final AtomicLong time = new AtomicLong();
+
+  @Test
+  void testExpiresAfterWrite() {
+    ExpiringCache<String, Integer> cache = createCache(ExpirationPolicy.AFTER_WRITE, 16);
+    cache.put("a", 1);
+
+    advanceSeconds(200);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+
+    advanceSeconds(101);
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getExpirationCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void testReadsRefreshAfterAccess() {
+    ExpiringCache<String, Integer> cache = createCache(ExpirationPolicy.AFTER_ACCESS, 16);
+    cache.put("a", 1);
+    cache.put("b", 2);
+
+    for (int i = 0; i < 10; i++) {
+      advanceSeconds(200);
+      assertEquals(Integer.valueOf(1), cache.get("a"));
+    }
+
+    assertNull(cache.get("b"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void testEvictsFirstExpiring() {
+    ExpiringCache<String, Integer> cache = createCache(ExpirationPolicy.AFTER_ACCESS, 2);
+    cache.put("a", 1);
+    advanceSeconds(10);
+    cache.put("b", 2);
+    advanceSeconds(10);
+    cache.get("a");
+    cache.put("c", 3);
+
+    assertTrue(cache.containsKey("a"));
+    assertFalse(cache.containsKey("b"));
+    assertTrue(cache.containsKey("c"));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  void testExpiresAcrossLevels() {
+    ExpiringCache<Integer, Integer> cache =
+        new ExpiringCache<>(3, TimeUnit.DAYS, ExpirationPolicy.AFTER_WRITE, 16, time::get);
+    cache.put(1, 1);
+
+    for (int hour = 1; hour < 72; hour++) {
+      advanceSeconds(3600);
+      assertEquals(Integer.valueOf(1), cache.get(1));
+    }
+
+    advanceSeconds(3601);
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+  }
+
+  private ExpiringCache<String, Integer> createCache(ExpirationPolicy policy, int maximumSize) {
+    return new ExpiringCache<>(5, TimeUnit.MINUTES, policy, maximumSize, time::get);
+  }
+
+  private void advanceSeconds(long seconds) {
+    time.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+}
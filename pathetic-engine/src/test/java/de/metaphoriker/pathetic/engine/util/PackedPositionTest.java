@@ -0,0 +1,37 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PackedPositionTest {
+
+  @Test
+  void testRoundTrip() {
+    int[][] coordinates = {
+      {0, 0, 0},
+      {1, 2, 3},
+      {-1, -64, -1},
+      {29_999_999, 319, -29_999_999},
+      {-30_000_000, -2048, 2047}
+    };
+
+    for (int[] coordinate : coordinates) {
+      long packed = PackedPosition.pack(coordinate[0], coordinate[1], coordinate[2]);
+
+      assertEquals(coordinate[0], PackedPosition.unpackX(packed));
+      assertEquals(coordinate[1], PackedPosition.unpackY(packed));
+      assertEquals(coordinate[2], PackedPosition.unpackZ(packed));
+    }
+  }
+
+  @Test
+  void testDistinctNeighbours() {
+    long origin = PackedPosition.pack(0, 0, 0);
+
+    assertNotEquals(origin, PackedPosition.pack(1, 0, 0));
+    assertNotEquals(origin, PackedPosition.pack(0, 1, 0));
+    assertNotEquals(origin, PackedPosition.pack(0, 0, 1));
+    assertNotEquals(PackedPosition.pack(-1, 0, 0), PackedPosition.pack(0, -1, 0));
+  }
+}
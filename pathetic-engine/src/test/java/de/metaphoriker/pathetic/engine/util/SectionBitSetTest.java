@@ -0,0 +1,45 @@
+package de.metaphoriker.pathetic.engine.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SectionBitSetTest {
+
+  @Test
+  void testAddAndContains() {
+    SectionBitSet set = new SectionBitSet();
+    set.add(PackedPosition.pack(3, 64, -7));
+    set.add(PackedPosition.pack(-1, -1, -1));
+
+    assertTrue(set.contains(PackedPosition.pack(3, 64, -7)));
+    assertTrue(set.contains(PackedPosition.pack(-1, -1, -1)));
+    assertFalse(set.contains(PackedPosition.pack(3, 64, -8)));
+    assertFalse(set.contains(PackedPosition.pack(15, 15, 15)));
+    assertFalse(set.contains(PackedPosition.pack(-17, -1, -1)));
+  }
+
+  @Test
+  void testBlocksOfOneSectionShareIt() {
+    SectionBitSet set = new SectionBitSet();
+    for (int x = 16; x < 32; x++) {
+      for (int y = 0; y < 16; y++) {
+        for (int z = -16; z < 0; z++) set.add(PackedPosition.pack(x, y, z));
+      }
+    }
+
+    assertEquals(1, set.sectionCount());
+    assertTrue(set.contains(PackedPosition.pack(31, 15, -1)));
+  }
+
+  @Test
+  void testClear() {
+    SectionBitSet set = new SectionBitSet();
+    set.add(PackedPosition.pack(1, 2, 3));
+    set.clear();
+
+    assertFalse(set.contains(PackedPosition.pack(1, 2, 3)));
+    set.add(PackedPosition.pack(5, 2, 3));
+    assertFalse(set.contains(PackedPosition.pack(1, 2, 3)));
+  }
+}